@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.extensibility;
+
+import jakarta.annotation.Nonnull;
+import java.util.Set;
+
+/**
+ * A Document Worker may implement this interface to declare the names of the fields that it reads.
+ * <p>
+ * When the streaming JSON decoder is being used to read the input messages, only the values of the declared fields are decoded up-front.
+ * The values of other fields are kept in their encoded form, and are only decoded if they are accessed, for example by a customization
+ * script. If they are not changed then they are written to the result message as they were received.
+ * <p>
+ * The worker can still access undeclared fields, so the declaration only affects performance and not behaviour.
+ */
+public interface FieldProjectingDocumentWorker extends DocumentWorker
+{
+    /**
+     * Returns the names of the fields whose values the worker reads. This method is called once, when the worker is being initialized.
+     *
+     * @return the names of the fields that the worker reads
+     */
+    @Nonnull
+    Set<String> getRequiredFieldNames();
+}
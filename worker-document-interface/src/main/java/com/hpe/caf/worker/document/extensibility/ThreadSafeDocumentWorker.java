@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.extensibility;
+
+/**
+ * A Document Worker may implement this interface to declare that its {@link DocumentWorker#processDocument processDocument()} method
+ * can safely be called concurrently for different documents.
+ * <p>
+ * When subdocuments are being processed separately, and a number of subdocument threads has been configured, the framework then passes
+ * sibling subdocuments to the worker concurrently, rather than processing the document hierarchy one document at a time. The
+ * customization script events are still raised on a single thread, but not in the same order:
+ * <ul>
+ * <li>The onBeforeProcessDocument and onProcessDocument events are raised for all of a document's subdocuments before any of them are
+ * passed to the worker.</li>
+ * <li>The onAfterProcessDocument events are raised for the subdocuments, in document order, once all of them have been processed.</li>
+ * <li>The subdocuments of each subdocument are then processed in the same way.</li>
+ * </ul>
+ * <p>
+ * If the worker fails to process a subdocument, then the siblings which have not yet been started are skipped, and the failure is
+ * reported as it would have been if the documents had been processed one at a time. The onAfterProcessDocument event is only raised for
+ * the siblings before the failed one. However, siblings after the failed one which had already been started are not stopped or rolled
+ * back, so any changes that the worker made to them are kept, and are included in the change log along with the failure.
+ * <p>
+ * Whilst processing a document the implementation must only access that document and its own subdocuments. It must not access the
+ * document's parent or sibling documents, which may be being processed on other threads at the same time.
+ */
+public interface ThreadSafeDocumentWorker extends DocumentWorker
+{
+}
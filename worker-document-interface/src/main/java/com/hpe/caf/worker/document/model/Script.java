@@ -109,6 +109,15 @@ public interface Script extends DocumentWorkerObject
      */
     void load() throws ScriptException;
 
+    /**
+     * Looks up the event handlers of this customization script again. Calling this method has no effect if the script is not loaded.
+     * <p>
+     * The event handlers are looked up when the script is loaded, and again if the script assigns a new value to one of its event
+     * handler globals. A script only needs to call this method if it replaces an event handler which it declared as a function, as
+     * that cannot be detected.
+     */
+    void refreshHandlers();
+
     /**
      * Sets the name of the customization script. This may be used as an identifier for the script. If there is an issue with the script
      * then it may appear in log files or in error messages.
@@ -36,8 +36,11 @@ public interface Task extends DocumentWorkerObject
 
     /**
      * Returns the document to be processed by this task.
+     * <p>
+     * A task can hold several separate documents, each of which is passed to the worker to be processed. In that case this method only
+     * returns the first of them, so workers should process the document that they are passed rather than the one returned here.
      *
-     * @return the document to be processed by this task
+     * @return the document to be processed by this task, or the first of its documents if it holds several
      */
     @Nonnull
     Document getDocument();
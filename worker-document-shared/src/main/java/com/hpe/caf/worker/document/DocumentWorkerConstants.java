@@ -23,9 +23,45 @@ public final class DocumentWorkerConstants
     public static final String WORKER_NAME = "DocumentWorker";
     public static final int WORKER_API_VER = 1;
 
+    /**
+     * The version of the fields-only message which is encoded using CBOR rather than JSON. Workers which do not support CBOR reject
+     * messages of this version as being too new, which leaves them to be picked up by workers which do.
+     */
+    public static final int WORKER_CBOR_API_VER = 2;
+
     public static final String DOCUMENT_TASK_NAME = "DocumentWorkerTask";
     public static final int DOCUMENT_TASK_API_VER = 3;
 
+    /**
+     * The prefix of composite document message data which is a data store reference to the encoded message, rather than the message
+     * itself. It is used to keep large messages off the message queue, and it is followed by the reference in UTF-8.
+     */
+    public static final String CLAIM_CHECK_PREFIX = "claimcheck:";
+
+    /**
+     * The version of composite document messages which may be claim checks. It is newer than the other versions of the message, so that
+     * workers which do not recognise claim checks reject these messages and leave them for a newer worker, rather than failing them.
+     */
+    public static final int DOCUMENT_TASK_CLAIM_CHECK_API_VER = 4;
+
+    /**
+     * The version of the composite document message which is encoded using CBOR rather than JSON. It is newer than the claim check
+     * version, so messages of this version may also be claim checks, in which case the message in the data store is CBOR encoded.
+     */
+    public static final int DOCUMENT_TASK_CBOR_API_VER = 5;
+
+    /**
+     * The name of the message which holds a number of separate documents that share the same scripts and custom data, so that they can
+     * be processed as a single task.
+     */
+    public static final String MULTI_DOCUMENT_TASK_NAME = "DocumentWorkerMultiDocumentTask";
+    public static final int MULTI_DOCUMENT_TASK_API_VER = 1;
+
+    /**
+     * The version of the multiple document message which is encoded using CBOR rather than JSON.
+     */
+    public static final int MULTI_DOCUMENT_TASK_CBOR_API_VER = 2;
+
     private DocumentWorkerConstants()
     {
     }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Message format for the Multi-Document Task, which holds a number of separate documents that share the same custom data and
+ * customization scripts.
+ */
+@JsonInclude(Include.NON_NULL)
+public final class DocumentWorkerMultiDocumentTask
+{
+    public List<DocumentWorkerDocumentEntry> documents;
+    public Map<String, String> customData;
+    public List<DocumentWorkerScript> scripts;
+}
@@ -100,6 +100,12 @@ public final class DocumentWorkerConfigurationBuilder
         return this;
     }
 
+    public DocumentWorkerConfigurationBuilder withMaxBatchBytes(final long maxBatchBytes)
+    {
+        this.configuration.setMaxBatchBytes(maxBatchBytes);
+        return this;
+    }
+
     public DocumentWorkerConfigurationBuilder withWorkerName(final String workerName)
     {
         this.configuration.setWorkerName(workerName);
@@ -33,10 +33,12 @@ import com.hpe.caf.worker.document.views.ReadOnlyFieldValue;
 import com.hpe.caf.worker.document.views.ReadOnlyFieldValues;
 import jakarta.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import static java.util.stream.Collectors.toList;
@@ -44,28 +46,52 @@ import java.util.stream.Stream;
 
 /**
  * Implements the application of a change log on top of a {@link ReadOnlyDocument}.
+ * <p>
+ * The base document is not copied up front. The reference, fields, failures, and subdocuments are only copied when a change is applied
+ * to them, and individual fields are only copied when values are added to them, so the cost of applying a change log depends on what it
+ * changes rather than on the size of the document.
  */
 public final class MutableDocument
 {
+    private final ReadOnlyDocument baseDocument;
     private String reference;
-    private final Map<String, ArrayList<ReadOnlyFieldValue>> fields;
-    private ArrayList<ReadOnlyFailure> failures;
-    private final ArrayList<MutableDocument> subdocuments;
+    private boolean isReferenceChanged;
+    private Map<String, List<ReadOnlyFieldValue>> fields;
+    private Set<String> copiedFields;
+    private List<ReadOnlyFailure> failures;
+    private ArrayList<MutableDocument> subdocuments;
+    private boolean isSubdocumentListChanged;
 
     public MutableDocument(final ReadOnlyDocument document)
     {
-        Objects.requireNonNull(document);
-
+        this.baseDocument = Objects.requireNonNull(document);
         this.reference = document.getReference();
-        this.fields = document.getFields().entrySet().stream().collect(
-            Collectors.toMap(Entry::getKey,
-                             entry -> new ArrayList<>(entry.getValue())));
-        this.failures = new ArrayList<>(document.getFailures());
-        this.subdocuments = document
-            .getSubdocuments()
-            .stream()
-            .map(MutableDocument::new)
-            .collect(toArrayList());
+        this.isReferenceChanged = false;
+        this.fields = null;
+        this.copiedFields = null;
+        this.failures = null;
+        this.subdocuments = null;
+        this.isSubdocumentListChanged = false;
+    }
+
+    @Nonnull
+    public ReadOnlyDocument getBaseDocument()
+    {
+        return baseDocument;
+    }
+
+    /**
+     * Returns whether any changes have been applied to the document or to any of its subdocuments.
+     *
+     * @return true if the document differs from the base document
+     */
+    public boolean hasChanges()
+    {
+        return isReferenceChanged
+            || fields != null
+            || failures != null
+            || isSubdocumentListChanged
+            || (subdocuments != null && subdocuments.stream().anyMatch(MutableDocument::hasChanges));
     }
 
     public String getReference()
@@ -73,21 +99,42 @@ public final class MutableDocument
         return reference;
     }
 
+    /**
+     * Returns the current fields of the document. The map and the lists that it contains must not be modified.
+     *
+     * @return the current fields
+     */
     @Nonnull
-    public Map<String, ArrayList<ReadOnlyFieldValue>> getFields()
+    public Map<String, List<ReadOnlyFieldValue>> getFields()
     {
-        return fields;
+        return (fields == null)
+            ? baseDocument.getFields()
+            : fields;
     }
 
+    /**
+     * Returns the current failures of the document. The list must not be modified.
+     *
+     * @return the current failures
+     */
     @Nonnull
-    public ArrayList<ReadOnlyFailure> getFailures()
+    public List<ReadOnlyFailure> getFailures()
     {
-        return failures;
+        return (failures == null)
+            ? baseDocument.getFailures()
+            : failures;
     }
 
     @Nonnull
     public ArrayList<MutableDocument> getSubdocuments()
     {
+        if (subdocuments == null) {
+            subdocuments = baseDocument
+                .getSubdocuments()
+                .stream()
+                .map(MutableDocument::new)
+                .collect(toArrayList());
+        }
         return subdocuments;
     }
 
@@ -186,20 +233,39 @@ public final class MutableDocument
     private void setReference(final String value)
     {
         this.reference = value;
+        this.isReferenceChanged = true;
+    }
+
+    @Nonnull
+    private Map<String, List<ReadOnlyFieldValue>> getModifiableFields()
+    {
+        if (fields == null) {
+            // The lists are shared with the base document until values are added to them
+            fields = new LinkedHashMap<>(baseDocument.getFields());
+            copiedFields = new HashSet<>();
+        }
+        return fields;
     }
 
     private void addFields(final Map<String, List<DocumentWorkerFieldValue>> addFields)
     {
+        final Map<String, List<ReadOnlyFieldValue>> modifiableFields = getModifiableFields();
+
         for (final Map.Entry<String, List<DocumentWorkerFieldValue>> addFieldEntry : addFields.entrySet()) {
             final String fieldName = addFieldEntry.getKey();
             final List<DocumentWorkerFieldValue> fieldValuesToAdd = addFieldEntry.getValue();
 
             if (fieldValuesToAdd != null) {
-                final List<ReadOnlyFieldValue> fieldValues = fields.get(fieldName);
+                final List<ReadOnlyFieldValue> fieldValues = modifiableFields.get(fieldName);
                 final Stream<ReadOnlyFieldValue> extraFieldValues = ReadOnlyFieldValues.createStream(fieldValuesToAdd);
 
                 if (fieldValues == null) {
-                    fields.put(fieldName, extraFieldValues.collect(toArrayList()));
+                    modifiableFields.put(fieldName, extraFieldValues.collect(toArrayList()));
+                    copiedFields.add(fieldName);
+                } else if (copiedFields.add(fieldName)) {
+                    final ArrayList<ReadOnlyFieldValue> newFieldValues = new ArrayList<>(fieldValues);
+                    newFieldValues.addAll(extraFieldValues.collect(toList()));
+                    modifiableFields.put(fieldName, newFieldValues);
                 } else {
                     fieldValues.addAll(extraFieldValues.collect(toList()));
                 }
@@ -209,25 +275,32 @@ public final class MutableDocument
 
     private void setFields(final Map<String, List<DocumentWorkerFieldValue>> setFields)
     {
+        final Map<String, List<ReadOnlyFieldValue>> modifiableFields = getModifiableFields();
+
         for (final Map.Entry<String, List<DocumentWorkerFieldValue>> setFieldEntry : setFields.entrySet()) {
             final String fieldName = setFieldEntry.getKey();
             final List<DocumentWorkerFieldValue> fieldValuesToSet = setFieldEntry.getValue();
 
             if (fieldValuesToSet == null) {
-                fields.remove(fieldName);
+                modifiableFields.remove(fieldName);
+                copiedFields.remove(fieldName);
             } else {
                 final Stream<ReadOnlyFieldValue> newFieldValuesStream = ReadOnlyFieldValues.createStream(fieldValuesToSet);
                 final ArrayList<ReadOnlyFieldValue> newFieldValues = newFieldValuesStream.collect(toArrayList());
 
-                fields.put(fieldName, newFieldValues);
+                modifiableFields.put(fieldName, newFieldValues);
+                copiedFields.add(fieldName);
             }
         }
     }
 
     private void removeFields(final List<String> removeFields)
     {
+        final Map<String, List<ReadOnlyFieldValue>> modifiableFields = getModifiableFields();
+
         for (final String fieldName : removeFields) {
-            fields.remove(fieldName);
+            modifiableFields.remove(fieldName);
+            copiedFields.remove(fieldName);
         }
     }
 
@@ -236,6 +309,9 @@ public final class MutableDocument
         final ReadOnlyFailure failure = ReadOnlyFailure.create(addFailure);
 
         if (failure != null) {
+            if (failures == null) {
+                failures = new ArrayList<>(baseDocument.getFailures());
+            }
             failures.add(failure);
         }
     }
@@ -251,7 +327,8 @@ public final class MutableDocument
     {
         final ReadOnlyDocument subdocument = ReadOnlyDocument.create(addSubdocument);
 
-        subdocuments.add(new MutableDocument(subdocument));
+        getSubdocuments().add(new MutableDocument(subdocument));
+        isSubdocumentListChanged = true;
     }
 
     private void insertSubdocument(
@@ -261,7 +338,8 @@ public final class MutableDocument
     {
         final ReadOnlyDocument newSubdocument = ReadOnlyDocument.create(subdocument);
 
-        subdocuments.add(index, new MutableDocument(newSubdocument));
+        getSubdocuments().add(index, new MutableDocument(newSubdocument));
+        isSubdocumentListChanged = true;
     }
 
     private void updateSubdocument(
@@ -270,7 +348,7 @@ public final class MutableDocument
         final List<DocumentWorkerChange> changes
     ) throws InvalidChangeLogException
     {
-        final MutableDocument subdocument = subdocuments.get(index);
+        final MutableDocument subdocument = getSubdocuments().get(index);
         checkSubdocumentReference(reference, subdocument.reference);
 
         subdocument.applyChanges(changes);
@@ -281,10 +359,11 @@ public final class MutableDocument
         final String reference
     ) throws UnexpectedSubdocumentReferenceException
     {
-        final MutableDocument subdocument = subdocuments.get(index);
+        final MutableDocument subdocument = getSubdocuments().get(index);
         checkSubdocumentReference(reference, subdocument.reference);
 
         subdocuments.remove(index);
+        isSubdocumentListChanged = true;
     }
 
     private static <T> Collector<T, ?, ArrayList<T>> toArrayList()
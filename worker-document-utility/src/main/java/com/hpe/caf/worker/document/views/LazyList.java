@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.views;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * An unmodifiable list which converts the elements of an underlying list on first access and retains the converted elements.
+ * <p>
+ * <b>Note: </b>The underlying list must not be changed after this object is constructed.
+ */
+final class LazyList<S, T> extends AbstractList<T> implements RandomAccess
+{
+    private final List<S> source;
+    private final Function<S, T> converter;
+    private final Object[] elements;
+
+    public LazyList(final List<S> source, final Function<S, T> converter)
+    {
+        this.source = Objects.requireNonNull(source);
+        this.converter = Objects.requireNonNull(converter);
+        this.elements = new Object[source.size()];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(final int index)
+    {
+        // Each element is only converted once, as the source element might be a MutableDocument, which is not thread-safe
+        synchronized (elements) {
+            Object element = elements[index];
+            if (element == null) {
+                element = converter.apply(source.get(index));
+                elements[index] = element;
+            }
+            return (T) element;
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return elements.length;
+    }
+}
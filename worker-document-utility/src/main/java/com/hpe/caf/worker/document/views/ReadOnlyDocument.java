@@ -19,21 +19,28 @@ import com.hpe.caf.worker.document.DocumentWorkerDocument;
 import com.hpe.caf.worker.document.DocumentWorkerFieldValue;
 import com.hpe.caf.worker.document.changelog.MutableDocument;
 import jakarta.annotation.Nonnull;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Provides a read-only, non-null, view of an underlying document object. This can be used when the underlying document object must not be
  * changed. It can be passed around in lieu of the document object to allow it to be read without the danger of it being manipulated.
  * Additionally it also makes the underlying document easier to read, as it translates nulls into empty sets or lists where possible.
+ * <p>
+ * The fields and subdocuments are only wrapped when they are first read, so the cost of creating a view does not depend on the size of
+ * the document.
  */
 public final class ReadOnlyDocument
 {
     private final String reference;
-    private final Map<String, List<ReadOnlyFieldValue>> fields;
+    private final Supplier<Map<String, List<ReadOnlyFieldValue>>> fieldsSupplier;
     private final List<ReadOnlyFailure> failures;
-    private final List<ReadOnlyDocument> subdocuments;
+    private final Supplier<List<ReadOnlyDocument>> subdocumentsSupplier;
+    private volatile Map<String, List<ReadOnlyFieldValue>> fields;
+    private volatile List<ReadOnlyDocument> subdocuments;
 
     /**
      * Constructs a ReadOnlyDocument object which provides read access to the specified fields.
@@ -48,9 +55,9 @@ public final class ReadOnlyDocument
     {
         return new ReadOnlyDocument(
             null,
-            ReadOnlyFields.create(fields),
+            () -> ReadOnlyFields.create(fields),
             ReadOnlyFailures.none(),
-            ReadOnlyDocuments.none());
+            ReadOnlyDocuments::none);
     }
 
     /**
@@ -68,15 +75,15 @@ public final class ReadOnlyDocument
         if (document == null) {
             return new ReadOnlyDocument(
                 null,
-                ReadOnlyFields.none(),
+                ReadOnlyFields::none,
                 ReadOnlyFailures.none(),
-                ReadOnlyDocuments.none());
+                ReadOnlyDocuments::none);
         } else {
             return new ReadOnlyDocument(
                 document.reference,
-                ReadOnlyFields.create(document.fields),
+                () -> ReadOnlyFields.create(document.fields),
                 ReadOnlyFailures.create(document.failures),
-                ReadOnlyDocuments.create(document.subdocuments));
+                () -> ReadOnlyDocuments.create(document.subdocuments));
         }
     }
 
@@ -85,6 +92,8 @@ public final class ReadOnlyDocument
      * <p>
      * <b>Note: </b>The specified document must not be changed after this object is constructed. If this constraint is violated then there
      * will be undefined results. What is presented may contain elements of both the original and current document.
+     * <p>
+     * If no changes have been applied to the document then the document that it was constructed from is returned.
      *
      * @param document the document to wrap
      * @return the new read-only document object
@@ -94,11 +103,15 @@ public final class ReadOnlyDocument
     {
         Objects.requireNonNull(document);
 
+        if (!document.hasChanges()) {
+            return document.getBaseDocument();
+        }
+
         return new ReadOnlyDocument(
             document.getReference(),
-            ReadOnlyFields.createFromMutable(document.getFields()),
-            ReadOnlyFailures.create(document.getFailures()),
-            ReadOnlyDocuments.create(document.getSubdocuments()));
+            () -> ReadOnlyFields.createFromMutable(document.getFields()),
+            Collections.unmodifiableList(document.getFailures()),
+            () -> ReadOnlyDocuments.create(document.getSubdocuments()));
     }
 
     /**
@@ -114,22 +127,24 @@ public final class ReadOnlyDocument
     {
         return new ReadOnlyDocument(
             reference,
-            ReadOnlyFields.none(),
+            ReadOnlyFields::none,
             ReadOnlyFailures.none(),
-            ReadOnlyDocuments.none());
+            ReadOnlyDocuments::none);
     }
 
     private ReadOnlyDocument(
         final String reference,
-        final Map<String, List<ReadOnlyFieldValue>> fields,
+        final Supplier<Map<String, List<ReadOnlyFieldValue>>> fieldsSupplier,
         final List<ReadOnlyFailure> failures,
-        final List<ReadOnlyDocument> subdocuments
+        final Supplier<List<ReadOnlyDocument>> subdocumentsSupplier
     )
     {
         this.reference = reference;
-        this.fields = fields;
+        this.fieldsSupplier = fieldsSupplier;
         this.failures = failures;
-        this.subdocuments = subdocuments;
+        this.subdocumentsSupplier = subdocumentsSupplier;
+        this.fields = null;
+        this.subdocuments = null;
     }
 
     public String getReference()
@@ -140,7 +155,18 @@ public final class ReadOnlyDocument
     @Nonnull
     public Map<String, List<ReadOnlyFieldValue>> getFields()
     {
-        return fields;
+        Map<String, List<ReadOnlyFieldValue>> value = fields;
+        if (value == null) {
+            // The supplier might read from a MutableDocument, which is not thread-safe, so it must only be called once
+            synchronized (this) {
+                value = fields;
+                if (value == null) {
+                    value = fieldsSupplier.get();
+                    fields = value;
+                }
+            }
+        }
+        return value;
     }
 
     @Nonnull
@@ -152,6 +178,16 @@ public final class ReadOnlyDocument
     @Nonnull
     public List<ReadOnlyDocument> getSubdocuments()
     {
-        return subdocuments;
+        List<ReadOnlyDocument> value = subdocuments;
+        if (value == null) {
+            synchronized (this) {
+                value = subdocuments;
+                if (value == null) {
+                    value = subdocumentsSupplier.get();
+                    subdocuments = value;
+                }
+            }
+        }
+        return value;
     }
 }
@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 public final class ReadOnlyDocuments
 {
@@ -35,9 +34,7 @@ public final class ReadOnlyDocuments
     {
         return (documents == null)
             ? Collections.emptyList()
-            : Collections.unmodifiableList(documents.stream()
-                .map(ReadOnlyDocument::create)
-                .collect(Collectors.toList()));
+            : new LazyList<>(documents, ReadOnlyDocument::create);
     }
 
     @Nonnull
@@ -45,10 +42,7 @@ public final class ReadOnlyDocuments
     {
         Objects.requireNonNull(documents);
 
-        return Collections.unmodifiableList(documents
-            .stream()
-            .map(ReadOnlyDocument::create)
-            .collect(Collectors.toList()));
+        return new LazyList<>(documents, ReadOnlyDocument::create);
     }
 
     @Nonnull
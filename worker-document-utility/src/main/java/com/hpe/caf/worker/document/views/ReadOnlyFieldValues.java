@@ -20,7 +20,6 @@ import jakarta.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class ReadOnlyFieldValues
@@ -32,10 +31,16 @@ public final class ReadOnlyFieldValues
     @Nonnull
     public static List<ReadOnlyFieldValue> create(final List<DocumentWorkerFieldValue> fieldValues)
     {
-        return (fieldValues == null)
-            ? Collections.emptyList()
-            : Collections.unmodifiableList(
-                createStream(fieldValues).collect(Collectors.toList()));
+        if (fieldValues == null) {
+            return Collections.emptyList();
+        }
+
+        // Null values are still rejected up-front, but the values are only converted when they are first accessed, as many fields are
+        // never read
+        if (fieldValues.contains(null)) {
+            throw new NullPointerException("Field values must not be null");
+        }
+        return new LazyList<>(fieldValues, ReadOnlyFieldValue::create);
     }
 
     @Nonnull
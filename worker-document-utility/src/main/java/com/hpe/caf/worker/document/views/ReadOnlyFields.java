@@ -17,8 +17,8 @@ package com.hpe.caf.worker.document.views;
 
 import com.hpe.caf.worker.document.DocumentWorkerFieldValue;
 import jakarta.annotation.Nonnull;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -42,12 +42,14 @@ public final class ReadOnlyFields
                 .entrySet()
                 .stream()
                 .collect(Collectors.toMap(Entry::getKey,
-                                          entry -> ReadOnlyFieldValues.create(entry.getValue()))));
+                                          entry -> ReadOnlyFieldValues.create(entry.getValue()),
+                                          (a, b) -> a,
+                                          LinkedHashMap::new)));
     }
 
     @Nonnull
     public static Map<String, List<ReadOnlyFieldValue>> createFromMutable(
-        final Map<String, ArrayList<ReadOnlyFieldValue>> fields
+        final Map<String, List<ReadOnlyFieldValue>> fields
     )
     {
         Objects.requireNonNull(fields);
@@ -56,7 +58,9 @@ public final class ReadOnlyFields
             .entrySet()
             .stream()
             .collect(Collectors.toMap(Entry::getKey,
-                                      entry -> ReadOnlyFieldValues.create(entry.getValue()))));
+                                      entry -> Collections.unmodifiableList(entry.getValue()),
+                                      (a, b) -> a,
+                                      LinkedHashMap::new)));
     }
 
     @Nonnull
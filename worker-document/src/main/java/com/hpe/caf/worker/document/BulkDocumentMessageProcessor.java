@@ -15,6 +15,8 @@
  */
 package com.hpe.caf.worker.document;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.hpe.caf.api.worker.BulkWorkerRuntime;
 import com.hpe.caf.api.worker.InvalidTaskException;
 import com.hpe.caf.api.worker.TaskRejectedException;
@@ -23,30 +25,57 @@ import com.hpe.caf.api.worker.WorkerTask;
 import com.hpe.caf.worker.document.exceptions.DocumentWorkerTransientException;
 import com.hpe.caf.worker.document.extensibility.BulkDocumentWorker;
 import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.BatchSizeControllerImpl;
 import com.hpe.caf.worker.document.impl.DocumentWorkerObjectImpl;
-import com.hpe.caf.worker.document.model.BatchSizeController;
 import com.hpe.caf.worker.document.model.Document;
 import com.hpe.caf.worker.document.model.Documents;
 import com.hpe.caf.worker.document.model.InputMessageProcessor;
 import com.hpe.caf.worker.document.tasks.AbstractTask;
 import com.hpe.caf.worker.document.util.DocumentFunctions;
 import jakarta.annotation.Nonnull;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public final class BulkDocumentMessageProcessor
 {
+    private static final Logger LOG = LoggerFactory.getLogger(BulkDocumentMessageProcessor.class);
+
+    /**
+     * The maximum length of time (in milliseconds) that the prefetch stage waits for a task before checking whether it has been asked to
+     * hand the batch over.
+     */
+    private static final long PREFETCH_POLL_INTERVAL = 50;
+
     private final ApplicationImpl application;
     private final BulkDocumentWorker bulkDocumentWorker;
     private final BulkWorkerRuntime bulkWorkerRuntime;
 
+    /**
+     * Used to prepare the next batch whilst the current batch is being processed, or null if batch pipelining is not enabled.
+     */
+    private final ExecutorService prefetchExecutor;
+
+    private final BatchSizeControllerImpl batchSizeController;
     private final int maxBatchSize;
     private final long maxBatchTime;
+
+    /**
+     * The maximum total size (in bytes) of the encoded task data in the batch, or zero or less if it is not limited.
+     */
+    private final long maxBatchBytes;
     private final boolean processSubdocumentsSeparately;
 
     private final List<BulkDocumentTask> bulkDocumentTasks;
@@ -54,19 +83,70 @@ public final class BulkDocumentMessageProcessor
     private boolean isBatchClosed;
     private long batchEndTime;
 
+    /**
+     * The total size (in bytes) of the encoded task data that has been added to the batch.
+     */
+    private long batchBytes;
+
+    /**
+     * Tasks that have been retrieved for this batch but not yet added to it. These are tasks retrieved by the prefetch stage, which have
+     * already been prepared, or tasks which were held over from the previous batch because they did not fit into it.
+     */
+    private final ArrayDeque<BulkDocumentTask> pendingTasks;
+
+    /**
+     * The time (in nanoseconds) spent retrieving and preparing documents whilst the worker was iterating the batch.
+     */
+    private long batchPreparationTime;
+
+    /**
+     * Set by the processing thread to ask the prefetch stage to stop adding documents to this batch and to hand it over.
+     */
+    private volatile boolean isPrefetchStopRequested;
+
+    /**
+     * The next batch, which is being prepared by the prefetch stage whilst this batch is processed.
+     */
+    private BulkDocumentMessageProcessor nextBatch;
+    private Future<?> nextBatchPrefetch;
+
     public BulkDocumentMessageProcessor(
         final ApplicationImpl application,
         final BulkDocumentWorker bulkDocumentWorker,
         final BulkWorkerRuntime bulkWorkerRuntime
     )
+    {
+        this(application, bulkDocumentWorker, bulkWorkerRuntime, null);
+    }
+
+    /**
+     * Constructs the BulkDocumentMessageProcessor object.
+     * <p>
+     * If a prefetch executor is supplied then the next batch is prepared using it whilst the current batch is being processed by the
+     * worker, and {@link #processTasks()} continues to process batches until no further tasks are prefetched. At most one batch is
+     * prepared ahead of the batch being processed.
+     *
+     * @param application the global data for the worker
+     * @param bulkDocumentWorker the actual implementation of the worker
+     * @param bulkWorkerRuntime used to retrieve the tasks to be processed
+     * @param prefetchExecutor used to prepare the next batch, or null if batches should not be prepared ahead of time
+     */
+    public BulkDocumentMessageProcessor(
+        final ApplicationImpl application,
+        final BulkDocumentWorker bulkDocumentWorker,
+        final BulkWorkerRuntime bulkWorkerRuntime,
+        final ExecutorService prefetchExecutor
+    )
     {
         this.application = application;
         this.bulkDocumentWorker = bulkDocumentWorker;
         this.bulkWorkerRuntime = bulkWorkerRuntime;
+        this.prefetchExecutor = prefetchExecutor;
 
-        final BatchSizeController batchSizeController = application.getBatchSizeController();
+        this.batchSizeController = application.getBatchSizeController();
         this.maxBatchSize = batchSizeController.getMaximumBatchSize();
         this.maxBatchTime = batchSizeController.getMaximumBatchTime();
+        this.maxBatchBytes = application.getConfiguration().getMaxBatchBytes();
 
         final InputMessageProcessor inputMessageProcessor = application.getInputMessageProcessor();
         this.processSubdocumentsSeparately = inputMessageProcessor.getProcessSubdocumentsSeparately();
@@ -75,14 +155,53 @@ public final class BulkDocumentMessageProcessor
         this.documentBatch = new ArrayList<>();
         this.isBatchClosed = false;
         this.batchEndTime = 0;
+        this.batchBytes = 0;
+        this.pendingTasks = new ArrayDeque<>();
+        this.batchPreparationTime = 0;
+        this.isPrefetchStopRequested = false;
+        this.nextBatch = null;
+        this.nextBatchPrefetch = null;
     }
 
     public void processTasks() throws InterruptedException
+    {
+        BulkDocumentMessageProcessor batch = this;
+        do {
+            batch.processBatchOrAbandonNext();
+            batch = batch.takeNextBatch();
+        } while (batch != null);
+    }
+
+    /**
+     * Processes this batch. If the processing does not complete normally then the next batch, if it has already been started, is
+     * abandoned so that none of its tasks are left without a response.
+     */
+    private void processBatchOrAbandonNext() throws InterruptedException
+    {
+        boolean isProcessed = false;
+        try {
+            processBatch();
+
+            // Any tasks that were retrieved for the batch but not added to it are passed on to the next batch
+            if (!isBatchClosed && !pendingTasks.isEmpty()) {
+                closeBatch();
+            }
+            isProcessed = true;
+        } finally {
+            if (!isProcessed) {
+                abandonNextBatch();
+            }
+        }
+    }
+
+    private void processBatch() throws InterruptedException
     {
         // Create the object which encapsulates the batch of documents
         final DocumentsImpl documents = new DocumentsImpl(application);
 
         // Attempt to process the documents
+        batchPreparationTime = 0;
+        final long processingStartTime = System.nanoTime();
         try {
             bulkDocumentWorker.processDocuments(documents);
         } catch (final DocumentWorkerTransientException dwte) {
@@ -101,6 +220,10 @@ public final class BulkDocumentMessageProcessor
             return;
         }
 
+        // Record how long the worker took to process the batch, not counting the time spent building it up
+        final long processingTime = System.nanoTime() - processingStartTime - batchPreparationTime;
+        batchSizeController.recordBatchProcessingTime(documentBatch.size(), TimeUnit.NANOSECONDS.toMillis(processingTime));
+
         // Cycle around the tasks and set the responses on them
         for (final BulkDocumentTask bulkDocumentTask : bulkDocumentTasks) {
 
@@ -135,6 +258,258 @@ public final class BulkDocumentMessageProcessor
         }
     }
 
+    /**
+     * Closes the batch so that no more documents are added to it. If batch pipelining is enabled then the next batch starts being
+     * prepared.
+     */
+    private void closeBatch()
+    {
+        isBatchClosed = true;
+        startPrefetchingNextBatch();
+    }
+
+    /**
+     * Starts preparing the next batch on the prefetch executor, if batch pipelining is enabled and it has not already been started. Any
+     * tasks which are pending for this batch are passed on to the next batch.
+     */
+    private void startPrefetchingNextBatch()
+    {
+        if (prefetchExecutor == null || nextBatchPrefetch != null) {
+            return;
+        }
+
+        final BulkDocumentMessageProcessor batch
+            = new BulkDocumentMessageProcessor(application, bulkDocumentWorker, bulkWorkerRuntime, prefetchExecutor);
+        batch.pendingTasks.addAll(pendingTasks);
+
+        try {
+            nextBatchPrefetch = prefetchExecutor.submit(batch::prefetchBatch);
+            nextBatch = batch;
+            pendingTasks.clear();
+        } catch (final RejectedExecutionException ex) {
+            // The worker is shutting down so the next batch will just be built up when it is processed
+            LOG.debug("Unable to start preparing the next batch", ex);
+        }
+    }
+
+    /**
+     * Retrieves and prepares tasks for this batch until it is full, the batch time has elapsed, or the processing thread asks for the
+     * batch to be handed over. This is run by the prefetch stage whilst the previous batch is being processed.
+     * <p>
+     * Each task has its own scripts, so preparing a task here only uses scripts which no other thread is using. The processing thread
+     * only goes on to use them once the batch has been handed over to it, and the framework's task runtime is likewise only used by one
+     * thread at a time, as the processing thread does not retrieve any more tasks from it until the batch has been handed over.
+     */
+    private void prefetchBatch()
+    {
+        final long initialEndTime = System.currentTimeMillis() + maxBatchTime;
+        long pendingBytes = 0;
+        int pendingDocuments = 0;
+
+        // Prepare the tasks that were held over from the previous batch
+        final Iterator<BulkDocumentTask> pendingTaskIterator = pendingTasks.iterator();
+        while (pendingTaskIterator.hasNext() && !Thread.currentThread().isInterrupted()) {
+            final BulkDocumentTask pendingTask = pendingTaskIterator.next();
+            if (pendingTask.getDocuments() == null && !prefetchTask(pendingTask)) {
+                pendingTaskIterator.remove();
+                continue;
+            }
+            pendingBytes += getTaskBytes(pendingTask);
+            pendingDocuments += pendingTask.getDocuments().size();
+        }
+
+        while (!isPrefetchStopRequested && !Thread.currentThread().isInterrupted()) {
+            if (pendingDocuments >= maxBatchSize || (maxBatchBytes > 0 && pendingBytes >= maxBatchBytes)) {
+                return;
+            }
+
+            final long cutoffTime = pendingTasks.isEmpty() ? initialEndTime : batchEndTime;
+            final long currentTime = System.currentTimeMillis();
+
+            if (currentTime >= cutoffTime) {
+                return;
+            }
+
+            // Wait for the next task in short intervals so that the batch can be handed over promptly when it is needed
+            final BulkDocumentTask bulkDocumentTask
+                = getNextBulkDocumentTask(Math.min(cutoffTime, currentTime + PREFETCH_POLL_INTERVAL));
+
+            if (bulkDocumentTask != null && prefetchTask(bulkDocumentTask)) {
+                if (pendingTasks.isEmpty()) {
+                    // Start the batch timer now that the first task has been prepared
+                    batchEndTime = System.currentTimeMillis() + maxBatchTime;
+                }
+                pendingTasks.add(bulkDocumentTask);
+                pendingBytes += getTaskBytes(bulkDocumentTask);
+                pendingDocuments += bulkDocumentTask.getDocuments().size();
+            }
+        }
+    }
+
+    /**
+     * Prepares the specified task on the prefetch stage.
+     * <p>
+     * If one of the task's event handlers fails with a transient error then only that task is rejected, and the prefetch stage moves on
+     * to the next task. If the thread is interrupted then no response is set on the task, in the same way as when a task is prepared by
+     * the processing thread.
+     *
+     * @param bulkDocumentTask the task to prepare
+     * @return true if the task was prepared, or false if it should not be added to the batch
+     */
+    private boolean prefetchTask(final BulkDocumentTask bulkDocumentTask)
+    {
+        try {
+            prepareTask(bulkDocumentTask);
+            return true;
+        } catch (final DocumentWorkerTransientException ex) {
+            bulkDocumentTask.getWorkerTask().setResponse(new TaskRejectedException("Failed to process task before scripts", ex));
+            return false;
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Stops the preparation of the next batch and returns it, so that the remainder of it can be built up as it is processed.
+     * <p>
+     * If the next batch was not started, but there are tasks pending from this batch, then a new batch is started with those tasks.
+     *
+     * @return the next batch, or null if it was not started or if no tasks were retrieved for it
+     * @throws InterruptedException if the thread is interrupted whilst waiting for the next batch
+     */
+    private BulkDocumentMessageProcessor takeNextBatch() throws InterruptedException
+    {
+        final BulkDocumentMessageProcessor batch = (nextBatch != null)
+            ? stopPrefetchingNextBatch()
+            : createBatchFromPendingTasks();
+
+        if (batch == null) {
+            return null;
+        }
+
+        // Since the thread has been interrupted the tasks that were prepared are returned to the queue rather than being processed
+        if (Thread.interrupted()) {
+            batch.rejectTasks("Batch abandoned as the worker was interrupted");
+            throw new InterruptedException();
+        }
+
+        return batch.pendingTasks.isEmpty() ? null : batch;
+    }
+
+    /**
+     * Creates a new batch to hold the tasks that are pending from this batch.
+     *
+     * @return the new batch, or null if there are no pending tasks
+     */
+    private BulkDocumentMessageProcessor createBatchFromPendingTasks()
+    {
+        if (pendingTasks.isEmpty()) {
+            return null;
+        }
+
+        final BulkDocumentMessageProcessor batch
+            = new BulkDocumentMessageProcessor(application, bulkDocumentWorker, bulkWorkerRuntime, prefetchExecutor);
+        batch.pendingTasks.addAll(pendingTasks);
+        pendingTasks.clear();
+
+        return batch;
+    }
+
+    /**
+     * Stops the preparation of the next batch and rejects any tasks which had been added to it.
+     */
+    private void abandonNextBatch()
+    {
+        final BulkDocumentMessageProcessor batch = stopPrefetchingNextBatch();
+
+        if (batch != null) {
+            batch.rejectTasks("Batch abandoned as the previous batch failed");
+        }
+
+        rejectPendingTasks("Batch abandoned as the previous batch failed");
+    }
+
+    /**
+     * Asks the prefetch stage to hand over the next batch and waits for it to do so.
+     * <p>
+     * The wait is not interruptible, as the tasks that the prefetch stage has already retrieved must not be left without a response. If
+     * the thread is interrupted whilst it is waiting then the interrupt status is restored before this method returns.
+     *
+     * @return the next batch, or null if it was not started
+     */
+    private BulkDocumentMessageProcessor stopPrefetchingNextBatch()
+    {
+        final BulkDocumentMessageProcessor batch = nextBatch;
+        final Future<?> batchPrefetch = nextBatchPrefetch;
+
+        if (batch == null) {
+            return null;
+        }
+
+        nextBatch = null;
+        nextBatchPrefetch = null;
+
+        batch.isPrefetchStopRequested = true;
+
+        try {
+            Uninterruptibles.getUninterruptibly(batchPrefetch);
+        } catch (final ExecutionException ex) {
+            batch.rejectTasks("Failed to prepare batch");
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new RuntimeException(ex.getCause());
+        }
+
+        return batch;
+    }
+
+    /**
+     * Rejects all of the tasks that have been added to this batch, so that they are returned to the queue to be processed later.
+     *
+     * @param message the message to include in the rejection
+     */
+    private void rejectTasks(final String message)
+    {
+        final TaskRejectedException tre = new TaskRejectedException(message);
+        for (final BulkDocumentTask bulkDocumentTask : bulkDocumentTasks) {
+            // Unload the scripts
+            bulkDocumentTask.getDocumentWorkerTask().unloadScripts();
+
+            // Set the response on the WorkerTask object
+            bulkDocumentTask.getWorkerTask().setResponse(tre);
+        }
+
+        rejectPendingTasks(message);
+    }
+
+    /**
+     * Rejects the tasks that are pending for this batch. Their scripts may have been loaded by the prefetch stage.
+     *
+     * @param message the message to include in the rejection
+     */
+    private void rejectPendingTasks(final String message)
+    {
+        BulkDocumentTask pendingTask;
+        while ((pendingTask = pendingTasks.pollFirst()) != null) {
+            // Unload the scripts
+            pendingTask.getDocumentWorkerTask().unloadScripts();
+
+            // Set the response on the WorkerTask object
+            pendingTask.getWorkerTask().setResponse(new TaskRejectedException(message));
+        }
+    }
+
+    /**
+     * Checks whether the batch has reached its maximum size, either in terms of the number of documents or the size of the task data.
+     *
+     * @return true if no more documents should be added to the batch
+     */
+    private boolean isBatchFull()
+    {
+        return documentBatch.size() >= maxBatchSize
+            || (maxBatchBytes > 0 && batchBytes >= maxBatchBytes);
+    }
+
     private final class DocumentsImpl extends DocumentWorkerObjectImpl implements Documents
     {
         public DocumentsImpl(final ApplicationImpl application)
@@ -145,7 +520,7 @@ public final class BulkDocumentMessageProcessor
         @Override
         public void closeBatch()
         {
-            isBatchClosed = true;
+            BulkDocumentMessageProcessor.this.closeBatch();
         }
 
         @Override
@@ -198,8 +573,9 @@ public final class BulkDocumentMessageProcessor
             }
 
             // Try to add more documents to the batch if the batch size and time has not already been reached
+            final long preparationStartTime = System.nanoTime();
             final boolean moreDocumentsAdded;
-            if (currentBatchSize == 0) {
+            if (currentBatchSize == 0 && batchEndTime == 0) {
                 // Add the first document to the batch within the batch timeframe
                 final long initialEndTime = System.currentTimeMillis() + maxBatchTime;
 
@@ -207,17 +583,18 @@ public final class BulkDocumentMessageProcessor
 
                 // Start the batch timer now that the first document has been retrieved
                 batchEndTime = System.currentTimeMillis() + maxBatchTime;
-            } else if (currentBatchSize >= maxBatchSize) {
+            } else if (isBatchFull()) {
                 // The maximum batch size has been reached so don't attempt to retrieve any more documents
                 moreDocumentsAdded = false;
             } else {
                 // Add the next document within the allowed timeframe
                 moreDocumentsAdded = tryAddMoreDocumentsToBatch(batchEndTime);
             }
+            batchPreparationTime += System.nanoTime() - preparationStartTime;
 
             // If a document wasn't returned then close the batch
             if (!moreDocumentsAdded) {
-                isBatchClosed = true;
+                closeBatch();
                 return false;
             }
 
@@ -236,142 +613,194 @@ public final class BulkDocumentMessageProcessor
             // Return the document at the current position and move the cursor on to the next position
             return documentBatch.get(pos++);
         }
+    }
 
-        /**
-         * Tries to add more documents to the batch, if that can be done before the specified cut-off time.
-         * <p>
-         * If the thread is interrupted then it will return false immediately.
-         *
-         * @param cutoffTime the cut-off time, specified in milliseconds since the Unix epoch
-         * @return true if documents were successfully added to the batch; false if they were not
-         */
-        private boolean tryAddMoreDocumentsToBatch(final long cutoffTime)
-        {
-            for (;;) {
-                // Get the next task to add to the batch
-                final BulkDocumentTask bulkDocumentTask = getNextBulkDocumentTask(cutoffTime);
+    /**
+     * Tries to add more documents to the batch, if that can be done before the specified cut-off time.
+     * <p>
+     * Tasks which are pending for the batch are added before any more tasks are retrieved, and they are only prepared here if the
+     * prefetch stage has not already prepared them. If the thread is interrupted then it will
+     * return false immediately. The maximum batch payload size is charged as each task's documents are added to the batch, so a task
+     * none of whose documents are added does not count towards it. If the next task's documents would take the batch over the maximum
+     * batch payload size then the batch is closed and the task is held over for the next batch, unless the batch does not yet contain
+     * any documents, in which case they are added to it anyway.
+     *
+     * @param cutoffTime the cut-off time, specified in milliseconds since the Unix epoch
+     * @return true if documents were successfully added to the batch; false if they were not
+     */
+    private boolean tryAddMoreDocumentsToBatch(final long cutoffTime)
+    {
+        for (;;) {
+            // Get the next task to add to the batch, starting with the tasks that are already pending
+            final BulkDocumentTask pendingTask = pendingTasks.pollFirst();
+            final BulkDocumentTask bulkDocumentTask = (pendingTask != null)
+                ? pendingTask
+                : getNextBulkDocumentTask(cutoffTime);
+
+            // If a task hasn't been returned then return that no document could be added to the batch
+            if (bulkDocumentTask == null) {
+                return false;
+            }
 
-                // If a task hasn't been returned then return that no document could be added to the batch
-                if (bulkDocumentTask == null) {
-                    return false;
+            try {
+                // Prepare the task, unless the prefetch stage has already done it
+                if (bulkDocumentTask.getDocuments() == null) {
+                    prepareTask(bulkDocumentTask);
                 }
 
-                final AbstractTask task = bulkDocumentTask.getDocumentWorkerTask();
-                try {
-                    // Load the task's customization scripts and raise its onProcessTask event
-                    task.loadScripts();
-                    task.raiseProcessTaskEvent();
+                // Get the documents from the task that should be added to the batch
+                final List<Document> documentsToAdd = bulkDocumentTask.getDocuments();
 
-                    // Get the documents from the task that should be added to the batch
-                    final List<Document> documentsToAdd = getDocumentsToAddToBatch(task);
-
-                    // Add the task to the collection
-                    bulkDocumentTask.setDocuments(documentsToAdd);
-                    bulkDocumentTasks.add(bulkDocumentTask);
+                // If the documents would take the batch over its maximum payload size then hand the task on to the next batch
+                final long taskBytes = getTaskBytes(bulkDocumentTask);
+                if (maxBatchBytes > 0 && !documentBatch.isEmpty() && batchBytes + taskBytes > maxBatchBytes) {
+                    pendingTasks.addFirst(bulkDocumentTask);
+                    closeBatch();
+                    return false;
+                }
 
-                    // If there are documents to add to the batch then add them and return, otherwise try the next task
-                    if (!documentsToAdd.isEmpty()) {
-                        documentBatch.addAll(documentsToAdd);
-                        return true;
-                    }
+                // Add the task to the collection
+                bulkDocumentTasks.add(bulkDocumentTask);
 
-                } catch (final DocumentWorkerTransientException ex) {
-                    // Unload the scripts
-                    task.unloadScripts();
+                // If there are documents to add to the batch then add them and return, otherwise try the next task
+                if (!documentsToAdd.isEmpty()) {
+                    documentBatch.addAll(documentsToAdd);
+                    batchBytes += taskBytes;
+                    return true;
+                }
 
-                    // Reject the task as a transient exception was thrown from one of its event handlers
-                    bulkDocumentTask.getWorkerTask().setResponse(
-                        new TaskRejectedException("Failed to process task before scripts", ex));
+            } catch (final DocumentWorkerTransientException ex) {
+                // Reject the task as a transient exception was thrown from one of its event handlers
+                bulkDocumentTask.getWorkerTask().setResponse(
+                    new TaskRejectedException("Failed to process task before scripts", ex));
 
-                    // Since a transient exception has occurred I'm going to close the batch rather than trying the next task
-                    return false;
+                // Since a transient exception has occurred I'm going to close the batch rather than trying the next task
+                closeBatch();
+                return false;
 
-                } catch (final InterruptedException ex) {
-                    // Unload the scripts
-                    task.unloadScripts();
+            } catch (final InterruptedException ex) {
+                // Since the thread has been interrupted I think the correct thing to do is to not set any response on the task at
+                // all. This is in line with what happens when an InterruptedException is throw from the worker's processDocuments()
+                // method.
 
-                    // Since the thread has been interrupted I think the correct thing to do is to not set any response on the task at
-                    // all. This is in line with what happens when an InterruptedException is throw from the worker's processDocuments()
-                    // method.
+                // Reinterrupt the thread
+                Thread.currentThread().interrupt();
+                closeBatch();
+                return false;
+            }
+        }
+    }
 
-                    // Reinterrupt the thread
-                    Thread.currentThread().interrupt();
-                    return false;
-                }
+    /**
+     * Loads the task's customization scripts, raises its onProcessTask event, and prepares the documents from it that should be added
+     * to the batch. If the task cannot be prepared then its scripts are unloaded again.
+     *
+     * @param bulkDocumentTask the task to prepare
+     * @throws DocumentWorkerTransientException if a transient issue occurs when processing any of the event handlers
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private void prepareTask(final BulkDocumentTask bulkDocumentTask)
+        throws DocumentWorkerTransientException, InterruptedException
+    {
+        final AbstractTask task = bulkDocumentTask.getDocumentWorkerTask();
+        boolean isPrepared = false;
+        try {
+            // Load the task's customization scripts and raise its onProcessTask event
+            task.loadScripts();
+            task.raiseProcessTaskEvent();
+
+            // Record the documents from the task that should be added to the batch
+            bulkDocumentTask.setDocuments(getDocumentsToAddToBatch(task));
+            isPrepared = true;
+        } finally {
+            if (!isPrepared) {
+                task.unloadScripts();
             }
         }
+    }
 
-        /**
-         * Retrieves the next document task to be processed, or null if no task could be retrieved before the specified cut-off time.
-         * <p>
-         * If the thread is interrupted then it will return null immediately. Any invalid tasks encountered are skipped (after setting an
-         * appropriate response on them).
-         *
-         * @param cutoffTime the cut-off time, specified in milliseconds since the Unix epoch
-         * @return the next document to be processed
-         */
-        private BulkDocumentTask getNextBulkDocumentTask(final long cutoffTime)
-        {
-            // Get the next valid task (loop around if there are invalid messages)
-            WorkerTask workerTask;
-            AbstractTask documentWorkerTask;
-            do {
-                // Get the next worker task
-                workerTask = getNextWorkerTask(cutoffTime);
-
-                if (workerTask == null) {
-                    return null;
-                }
+    /**
+     * Returns the number of bytes that the prepared task's documents are charged against the maximum batch payload size. This is the size
+     * of the task's encoded message, or zero if none of its documents are to be added to the batch. If the message was received as a
+     * claim check then it is the size of the message that was retrieved from the data store.
+     */
+    private static long getTaskBytes(final BulkDocumentTask bulkDocumentTask)
+    {
+        return bulkDocumentTask.getDocuments().isEmpty()
+            ? 0
+            : bulkDocumentTask.getDocumentWorkerTask().getPayloadSize();
+    }
 
-                // Confirm that the worker task is valid.
-                // If it is not valid then set the response on it immediately and move on to the next one without counting it.
-                documentWorkerTask = getValidDocumentWorkerTask(workerTask);
+    /**
+     * Retrieves the next document task to be processed, or null if no task could be retrieved before the specified cut-off time.
+     * <p>
+     * If the thread is interrupted then it will return null immediately. Any invalid tasks encountered are skipped (after setting an
+     * appropriate response on them).
+     *
+     * @param cutoffTime the cut-off time, specified in milliseconds since the Unix epoch
+     * @return the next document to be processed
+     */
+    private BulkDocumentTask getNextBulkDocumentTask(final long cutoffTime)
+    {
+        // Get the next valid task (loop around if there are invalid messages)
+        WorkerTask workerTask;
+        AbstractTask documentWorkerTask;
+        do {
+            // Get the next worker task
+            workerTask = getNextWorkerTask(cutoffTime);
+
+            if (workerTask == null) {
+                return null;
+            }
 
-            } while (documentWorkerTask == null);
+            // Confirm that the worker task is valid.
+            // If it is not valid then set the response on it immediately and move on to the next one without counting it.
+            documentWorkerTask = getValidDocumentWorkerTask(workerTask);
 
-            // Create and return the new BulkDocumentTask object
-            return new BulkDocumentTask(workerTask, documentWorkerTask);
-        }
+        } while (documentWorkerTask == null);
 
-        /**
-         * Retrieves the next task to be processed. If the next task cannot be retrieved before the specified cut-off time then null is
-         * returned. If the thread is interrupted then it will return null immediately.
-         *
-         * @param cutoffTime the cut-off time, specified in milliseconds since the Unix epoch
-         * @return the next task to be processed, or null if no task could be retrieved before the cut-off time
-         */
-        private WorkerTask getNextWorkerTask(final long cutoffTime)
-        {
-            final long maxWaitTime = cutoffTime - System.currentTimeMillis();
+        // Create and return the new BulkDocumentTask object
+        return new BulkDocumentTask(workerTask, documentWorkerTask);
+    }
 
-            try {
-                return bulkWorkerRuntime.getNextWorkerTask(maxWaitTime);
-            } catch (final InterruptedException ex) {
-                Thread.currentThread().interrupt();
-                return null;
-            }
+    /**
+     * Retrieves the next task to be processed. If the next task cannot be retrieved before the specified cut-off time then null is
+     * returned. If the thread is interrupted then it will return null immediately.
+     *
+     * @param cutoffTime the cut-off time, specified in milliseconds since the Unix epoch
+     * @return the next task to be processed, or null if no task could be retrieved before the cut-off time
+     */
+    private WorkerTask getNextWorkerTask(final long cutoffTime)
+    {
+        final long maxWaitTime = cutoffTime - System.currentTimeMillis();
+
+        try {
+            return bulkWorkerRuntime.getNextWorkerTask(maxWaitTime);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
         }
+    }
 
-        /**
-         * If the specified worker task is the correct type and version then the DocumentWorkerTask is de-serialised and returned. If
-         * there is an issue with it then the appropriate response is set on the WorkerTask object and null is returned.
-         *
-         * @param workerTask the Worker Framework task to examine and extract the DocumentWorkerTask from
-         * @return the decoded DocumentWorkerTask that was extracted from the WorkerTaskData object, or null if there was an error
-         */
-        private AbstractTask getValidDocumentWorkerTask(final WorkerTask workerTask)
-        {
-            Objects.requireNonNull(workerTask);
+    /**
+     * If the specified worker task is the correct type and version then the DocumentWorkerTask is de-serialised and returned. If
+     * there is an issue with it then the appropriate response is set on the WorkerTask object and null is returned.
+     *
+     * @param workerTask the Worker Framework task to examine and extract the DocumentWorkerTask from
+     * @return the decoded DocumentWorkerTask that was extracted from the WorkerTaskData object, or null if there was an error
+     */
+    private AbstractTask getValidDocumentWorkerTask(final WorkerTask workerTask)
+    {
+        Objects.requireNonNull(workerTask);
 
-            try {
-                return application.getInputMessageProcessor().createTask(workerTask);
-            } catch (final InvalidTaskException ex) {
-                workerTask.setResponse(ex);
-                return null;
-            } catch (final TaskRejectedException ex) {
-                workerTask.setResponse(ex);
-                return null;
-            }
+        try {
+            return application.getInputMessageProcessor().createTask(workerTask);
+        } catch (final InvalidTaskException ex) {
+            workerTask.setResponse(ex);
+            return null;
+        } catch (final TaskRejectedException ex) {
+            workerTask.setResponse(ex);
+            return null;
         }
     }
 
@@ -390,26 +819,23 @@ public final class BulkDocumentMessageProcessor
         // Create a list to hold the documents that will be added to the batch
         final ArrayList<Document> documentsToAdd = new ArrayList<>();
 
-        // Check whether the documents in the task are being processed separately
-        if (processSubdocumentsSeparately) {
-            // Get the root document
-            final Document rootDocument = task.getDocument();
-
-            // Cycle around all the documents in the task and try to add them to the list
-            final Iterable<Document> allDocuments = DocumentFunctions.documentNodes(rootDocument)::iterator;
+        // Multi-document tasks have several root documents, which all go into the same batch
+        for (final Document rootDocument : task.getDocuments()) {
+            // Check whether the documents in the task are being processed separately
+            if (processSubdocumentsSeparately) {
+                // Cycle around all the documents in the hierarchy and try to add them to the list
+                final Iterable<Document> allDocuments = DocumentFunctions.documentNodes(rootDocument)::iterator;
 
-            for (final Document document : allDocuments) {
-                if (prepareToAddDocumentToBatch(task, document)) {
-                    documentsToAdd.add(document);
+                for (final Document document : allDocuments) {
+                    if (prepareToAddDocumentToBatch(task, document)) {
+                        documentsToAdd.add(document);
+                    }
+                }
+            } else {
+                // Check whether it should be added to the batch
+                if (prepareToAddDocumentToBatch(task, rootDocument)) {
+                    documentsToAdd.add(rootDocument);
                 }
-            }
-        } else {
-            // Get the root document
-            final Document rootDocument = task.getDocument();
-
-            // Check whether it should be added to the batch
-            if (prepareToAddDocumentToBatch(task, rootDocument)) {
-                documentsToAdd.add(rootDocument);
             }
         }
 
@@ -15,10 +15,13 @@
  */
 package com.hpe.caf.worker.document;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hpe.caf.api.worker.BulkWorker;
 import com.hpe.caf.api.worker.BulkWorkerRuntime;
 import com.hpe.caf.worker.document.extensibility.BulkDocumentWorker;
 import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class allows implementations of the BulkDocumentWorker class can be used with the Worker Framework.
@@ -31,18 +34,45 @@ public final class BulkDocumentWorkerAdapter extends DocumentWorkerAdapter imple
      */
     private final BulkDocumentWorker bulkDocumentWorker;
 
+    /**
+     * Used to prepare the next batch of documents whilst the current batch is being processed, or null if batch pipelining is not
+     * enabled.
+     */
+    private final ExecutorService prefetchExecutor;
+
     public BulkDocumentWorkerAdapter(final ApplicationImpl application, final BulkDocumentWorker bulkDocumentWorker)
     {
         super(application, bulkDocumentWorker);
         this.bulkDocumentWorker = bulkDocumentWorker;
+        this.prefetchExecutor = application.getConfiguration().getEnableBatchPipelining()
+            ? createPrefetchExecutor()
+            : null;
     }
 
     @Override
     public void processTasks(final BulkWorkerRuntime runtime) throws InterruptedException
     {
         final BulkDocumentMessageProcessor messageProcessor
-            = new BulkDocumentMessageProcessor(application, bulkDocumentWorker, runtime);
+            = new BulkDocumentMessageProcessor(application, bulkDocumentWorker, runtime, prefetchExecutor);
 
         messageProcessor.processTasks();
     }
+
+    @Override
+    public void shutdown()
+    {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdown();
+        }
+        super.shutdown();
+    }
+
+    private static ExecutorService createPrefetchExecutor()
+    {
+        return Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder()
+                .setNameFormat("BatchPrefetch-%d")
+                .setDaemon(true)
+                .build());
+    }
 }
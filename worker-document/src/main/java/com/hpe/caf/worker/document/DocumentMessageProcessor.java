@@ -26,6 +26,13 @@ import com.hpe.caf.worker.document.impl.ApplicationImpl;
 import com.hpe.caf.worker.document.model.Document;
 import com.hpe.caf.worker.document.model.Subdocument;
 import com.hpe.caf.worker.document.tasks.AbstractTask;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * Uses a DocumentWorker implementation process an messages. Each instance processes just a single message.
@@ -49,6 +56,11 @@ public final class DocumentMessageProcessor implements Worker
      */
     private final AbstractTask documentWorkerTask;
 
+    /**
+     * Used to pass sibling subdocuments to the worker concurrently, or null if the documents should be processed one at a time.
+     */
+    private final ExecutorService subdocumentExecutor;
+
     /**
      * Constructs the DocumentMessageProcessor object, which is used to process a single worker message.
      *
@@ -64,10 +76,32 @@ public final class DocumentMessageProcessor implements Worker
         final WorkerTaskData workerTask
     )
         throws TaskRejectedException, InvalidTaskException
+    {
+        this(application, documentWorker, workerTask, null);
+    }
+
+    /**
+     * Constructs the DocumentMessageProcessor object, which is used to process a single worker message.
+     *
+     * @param application the global data for the worker
+     * @param documentWorker the actual implementation of the worker
+     * @param workerTask the task which the worker should perform
+     * @param subdocumentExecutor used to process sibling subdocuments concurrently, or null if they should be processed one at a time
+     * @throws TaskRejectedException if the task can't be handled right now but should be retried
+     * @throws InvalidTaskException if there is something wrong with the task which means that if will always fail
+     */
+    public DocumentMessageProcessor(
+        final ApplicationImpl application,
+        final DocumentWorker documentWorker,
+        final WorkerTaskData workerTask,
+        final ExecutorService subdocumentExecutor
+    )
+        throws TaskRejectedException, InvalidTaskException
     {
         this.application = application;
         this.documentWorker = documentWorker;
         this.documentWorkerTask = application.getInputMessageProcessor().createTask(workerTask);
+        this.subdocumentExecutor = subdocumentExecutor;
     }
 
     @Override
@@ -137,17 +171,20 @@ public final class DocumentMessageProcessor implements Worker
         // Raise the onProcessTask event
         documentWorkerTask.raiseProcessTaskEvent();
 
-        // Retrieve the document
-        final Document document = documentWorkerTask.getDocument();
-
         // Process the document (or documents if subdocuments are being treated separately)
         final boolean processSubdocumentsSeparately
             = application.getInputMessageProcessor().getProcessSubdocumentsSeparately();
 
-        if (processSubdocumentsSeparately) {
-            processDocumentHierarchy(document);
-        } else {
-            processDocument(document);
+        // Multi-document tasks have several root documents, which are processed in turn
+        for (final Document document : documentWorkerTask.getDocuments()) {
+            if (processSubdocumentsSeparately && subdocumentExecutor != null) {
+                processDocument(document);
+                processSubdocumentHierarchiesConcurrently(document);
+            } else if (processSubdocumentsSeparately) {
+                processDocumentHierarchy(document);
+            } else {
+                processDocument(document);
+            }
         }
 
         // Raise the onAfterProcessTask event
@@ -167,6 +204,124 @@ public final class DocumentMessageProcessor implements Worker
         }
     }
 
+    /**
+     * Calls the implementation's {@link DocumentWorker#processDocument processDocument()} function for all of the documents in the
+     * hierarchy below the specified document, passing sibling subdocuments to it concurrently.
+     * <p>
+     * The onBeforeProcessDocument and onProcessDocument events are raised for each of the siblings in turn before any of them are passed
+     * to the implementation, and the onAfterProcessDocument events are raised in the same order once they have all been processed. The
+     * subdocuments of each sibling are then processed in the same way.
+     */
+    private void processSubdocumentHierarchiesConcurrently(final Document document)
+        throws DocumentWorkerTransientException, InterruptedException
+    {
+        final List<Subdocument> subdocuments = document.getSubdocuments().stream().collect(Collectors.toList());
+
+        if (subdocuments.isEmpty()) {
+            return;
+        }
+
+        // Raise the onBeforeProcessDocument and onProcessDocument events, skipping any documents that are cancelled
+        final List<Document> documentsToProcess = new ArrayList<>(subdocuments.size());
+        for (final Subdocument subdocument : subdocuments) {
+            if (documentWorkerTask.raiseBeforeProcessDocumentEvent(subdocument)) {
+                continue;
+            }
+
+            documentWorkerTask.raiseProcessDocumentEvent(subdocument);
+            documentsToProcess.add(subdocument);
+        }
+
+        // Process the documents and raise the onAfterProcessDocument events
+        processDocumentsConcurrently(documentsToProcess);
+
+        // Process the documents further down the hierarchy
+        for (final Subdocument subdocument : subdocuments) {
+            processSubdocumentHierarchiesConcurrently(subdocument);
+        }
+    }
+
+    /**
+     * Calls the implementation's {@link DocumentWorker#processDocument processDocument()} function concurrently for the specified
+     * documents, and then raises the onAfterProcessDocument event for each of them in order.
+     * <p>
+     * If the implementation fails to process any of the documents then the documents which have not yet been started are skipped, and
+     * once the documents which are in progress have finished, the failure for the earliest document in the list is re-thrown. The
+     * onAfterProcessDocument event is only raised for the documents before that one, as it would have been if the documents had been
+     * processed one at a time. Unlike serial processing though, documents after the failed one may already have been processed, and
+     * the changes made to them are not rolled back.
+     */
+    private void processDocumentsConcurrently(final List<Document> documents)
+        throws DocumentWorkerTransientException, InterruptedException
+    {
+        // Start processing the documents
+        final AtomicBoolean hasFailed = new AtomicBoolean();
+        final List<Future<Boolean>> results = new ArrayList<>(documents.size());
+        for (final Document document : documents) {
+            results.add(subdocumentExecutor.submit(() -> {
+                if (hasFailed.get()) {
+                    return false;
+                }
+                try {
+                    documentWorker.processDocument(document);
+                    return true;
+                } catch (final Exception | Error ex) {
+                    hasFailed.set(true);
+                    throw ex;
+                }
+            }));
+        }
+
+        // Wait for all of them to finish and find the first document that was not processed
+        int processedCount = documents.size();
+        Throwable failure = null;
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    final boolean isProcessed = results.get(i).get();
+                    if (!isProcessed && i < processedCount) {
+                        processedCount = i;
+                    }
+                } catch (final ExecutionException ex) {
+                    if (failure == null) {
+                        failure = ex.getCause();
+                    }
+                    processedCount = Math.min(processedCount, i);
+                }
+            }
+        } catch (final InterruptedException ex) {
+            hasFailed.set(true);
+            results.forEach(result -> result.cancel(true));
+            throw ex;
+        }
+
+        // Raise the onAfterProcessDocument event for each of the documents that were processed
+        for (final Document document : documents.subList(0, processedCount)) {
+            documentWorkerTask.raiseAfterProcessDocumentEvent(document);
+        }
+
+        // Re-throw the failure if there was one
+        if (failure != null) {
+            rethrowProcessingFailure(failure);
+        }
+    }
+
+    private static void rethrowProcessingFailure(final Throwable failure)
+        throws DocumentWorkerTransientException, InterruptedException
+    {
+        if (failure instanceof DocumentWorkerTransientException documentWorkerTransientException) {
+            throw documentWorkerTransientException;
+        } else if (failure instanceof InterruptedException interruptedException) {
+            throw interruptedException;
+        } else if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (failure instanceof Error error) {
+            throw error;
+        } else {
+            throw new RuntimeException(failure);
+        }
+    }
+
     /**
      * Calls the customization scripts, and if none of them have set the cancellation flag then calls the implementation's
      * {@link DocumentWorker#processDocument processDocument()} function.
@@ -15,6 +15,7 @@
  */
 package com.hpe.caf.worker.document;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hpe.caf.api.HealthResult;
 import com.hpe.caf.api.worker.InvalidTaskException;
 import com.hpe.caf.api.worker.TaskRejectedException;
@@ -24,9 +25,13 @@ import com.hpe.caf.api.worker.WorkerFactory;
 import com.hpe.caf.api.worker.WorkerTaskData;
 import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
 import com.hpe.caf.worker.document.extensibility.DocumentWorker;
+import com.hpe.caf.worker.document.extensibility.FieldProjectingDocumentWorker;
+import com.hpe.caf.worker.document.extensibility.ThreadSafeDocumentWorker;
 import com.hpe.caf.worker.document.impl.ApplicationImpl;
 import com.hpe.caf.worker.document.impl.HealthMonitorImpl;
 import jakarta.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +63,12 @@ public class DocumentWorkerAdapter implements WorkerFactory
      */
     private final DocumentWorkerConfiguration configuration;
 
+    /**
+     * Used to process sibling subdocuments concurrently when subdocuments are being processed separately, or null if the worker has not
+     * declared that it is thread-safe.
+     */
+    private final ExecutorService subdocumentExecutor;
+
     /**
      * Constructs the DocumentWorkerAdapter object, which adapts the DocumentWorker interface so that objects which implement it can be
      * used with the Worker Framework.
@@ -70,6 +81,13 @@ public class DocumentWorkerAdapter implements WorkerFactory
         this.application = application;
         this.documentWorker = documentWorker;
         this.configuration = application.getConfiguration();
+        this.subdocumentExecutor = createSubdocumentExecutor(application, documentWorker);
+
+        // Only decode the values of the fields that the worker reads up-front, if it has declared them
+        if (documentWorker instanceof FieldProjectingDocumentWorker) {
+            application.getInputMessageProcessor().setProjectedFieldNames(
+                ((FieldProjectingDocumentWorker) documentWorker).getRequiredFieldNames());
+        }
     }
 
     @Override
@@ -94,7 +112,7 @@ public class DocumentWorkerAdapter implements WorkerFactory
     public Worker getWorker(final WorkerTaskData workerTask)
         throws TaskRejectedException, InvalidTaskException
     {
-        return new DocumentMessageProcessor(application, documentWorker, workerTask);
+        return new DocumentMessageProcessor(application, documentWorker, workerTask, subdocumentExecutor);
     }
 
     @Nonnull
@@ -119,6 +137,10 @@ public class DocumentWorkerAdapter implements WorkerFactory
     @Override
     public void shutdown()
     {
+        if (subdocumentExecutor != null) {
+            subdocumentExecutor.shutdown();
+        }
+
         try {
             documentWorker.close();
         } catch (final RuntimeException ex) {
@@ -126,5 +148,27 @@ public class DocumentWorkerAdapter implements WorkerFactory
         } catch (final Exception ex) {
             LOG.warn("Error closing DocumentWorker during shutdown", ex);
         }
+
+        application.getJavaScriptManager().close();
+    }
+
+    private static ExecutorService createSubdocumentExecutor(final ApplicationImpl application, final DocumentWorker documentWorker)
+    {
+        if (!(documentWorker instanceof ThreadSafeDocumentWorker)) {
+            return null;
+        }
+
+        // Concurrent processing changes the order of the events and the effect of failures, so it must be explicitly configured
+        final int threads = application.getConfiguration().getSubdocumentThreads();
+        if (threads < 2) {
+            return null;
+        }
+
+        return Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactoryBuilder()
+                .setNameFormat("SubdocumentProcessor-%d")
+                .setDaemon(true)
+                .build());
     }
 }
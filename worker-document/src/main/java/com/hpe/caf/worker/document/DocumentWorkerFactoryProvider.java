@@ -45,6 +45,9 @@ public final class DocumentWorkerFactoryProvider implements WorkerFactoryProvide
         // Construct the application object
         final ApplicationImpl application = new ApplicationImpl(configSource, dataStore, codec);
 
+        // Compile the configured scripts before the worker starts accepting tasks
+        application.warmUpScripts();
+
         // Construct the DocumentWorker implementation object
         final DocumentWorker documentWorker = createDocumentWorker(application);
 
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.changelog;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.hpe.caf.api.Codec;
+import com.hpe.caf.api.CodecException;
+import com.hpe.caf.worker.document.DocumentWorkerChangeLogEntry;
+import com.hpe.caf.worker.document.DocumentWorkerDocument;
+import com.hpe.caf.worker.document.config.EffectiveDocumentCacheConfiguration;
+import com.hpe.caf.worker.document.converters.RawJson;
+import com.hpe.caf.worker.document.exceptions.InvalidChangeLogException;
+import com.hpe.caf.worker.document.views.ReadOnlyDocument;
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Caches the documents produced by applying change logs, so that tasks which have already been seen by this worker (such as retried
+ * tasks), and tasks whose change log extends one that has already been seen, do not need to replay the whole change log.
+ * <p>
+ * Each entry is keyed by a checkpoint, which is a hash of the encoded base document chained with the hash of each encoded change log
+ * entry that has been applied to it. The encoded form is the one in which the task was received when it is available, and the
+ * serialised form otherwise. The cache is bounded by the size of the encoded data that the cached documents represent,
+ * with the least recently used entries evicted first.
+ */
+public final class EffectiveDocumentCache
+{
+    private static final long DEFAULT_MAXIMUM_WEIGHT = 64L * 1024 * 1024;
+    private static final long DEFAULT_EXPIRE_AFTER_ACCESS = 600;
+
+    private final Codec codec;
+    private final Cache<HashCode, CachedDocument> cache;
+
+    public EffectiveDocumentCache(final Codec codec, final EffectiveDocumentCacheConfiguration config)
+    {
+        Objects.requireNonNull(config);
+
+        this.codec = Objects.requireNonNull(codec);
+        this.cache = CacheBuilder.newBuilder()
+            .recordStats()
+            .maximumWeight(coalesce(config.getMaximumWeight(), DEFAULT_MAXIMUM_WEIGHT))
+            .weigher((HashCode key, CachedDocument value) -> value.weight)
+            .expireAfterAccess(coalesce(config.getExpireAfterAccess(), DEFAULT_EXPIRE_AFTER_ACCESS), TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * Returns the document produced by applying the change log to the base document, replaying only the change log entries which follow
+     * the longest checkpoint that is in the cache.
+     * <p>
+     * The document and the change log entries are serialised to compute the checkpoints. If they were decoded from a message whose
+     * encoded form was retained then the overload which takes the encoded form should be used instead.
+     *
+     * @param document the base document
+     * @param changeLog the change log to be applied to the base document
+     * @return the effective document
+     * @throws InvalidChangeLogException if the change log cannot be applied to the document
+     * @throws CodecException if the document or the change log cannot be serialised to compute the checkpoints
+     */
+    @Nonnull
+    public ReadOnlyDocument getEffectiveDocument(
+        final DocumentWorkerDocument document,
+        final List<DocumentWorkerChangeLogEntry> changeLog
+    ) throws InvalidChangeLogException, CodecException
+    {
+        if (changeLog == null || changeLog.isEmpty()) {
+            return ReadOnlyDocument.create(document);
+        }
+
+        final Checkpoints checkpoints = new Checkpoints(changeLog.size());
+        checkpoints.add(codec.serialise(document));
+        for (final DocumentWorkerChangeLogEntry changeLogEntry : changeLog) {
+            checkpoints.add(codec.serialise(changeLogEntry));
+        }
+
+        return getEffectiveDocument(document, changeLog, checkpoints);
+    }
+
+    /**
+     * Returns the document produced by applying the change log to the base document, replaying only the change log entries which follow
+     * the longest checkpoint that is in the cache.
+     * <p>
+     * The checkpoints are computed from the encoded form in which the document and the change log entries were received, so they do not
+     * need to be serialised again, and field values which have not been decoded are left as they are.
+     *
+     * @param document the base document
+     * @param changeLog the change log to be applied to the base document
+     * @param encodedDocument the base document as it was received
+     * @param encodedChangeLog each entry of the change log as it was received
+     * @return the effective document
+     * @throws InvalidChangeLogException if the change log cannot be applied to the document
+     */
+    @Nonnull
+    public ReadOnlyDocument getEffectiveDocument(
+        final DocumentWorkerDocument document,
+        final List<DocumentWorkerChangeLogEntry> changeLog,
+        final RawJson encodedDocument,
+        final List<RawJson> encodedChangeLog
+    ) throws InvalidChangeLogException
+    {
+        if (changeLog == null || changeLog.isEmpty()) {
+            return ReadOnlyDocument.create(document);
+        }
+
+        if (encodedChangeLog.size() != changeLog.size()) {
+            throw new IllegalArgumentException("The encoded change log does not match the change log");
+        }
+
+        final Checkpoints checkpoints = new Checkpoints(changeLog.size());
+        checkpoints.add(encodedDocument);
+        for (final RawJson encodedChangeLogEntry : encodedChangeLog) {
+            checkpoints.add(encodedChangeLogEntry);
+        }
+
+        return getEffectiveDocument(document, changeLog, checkpoints);
+    }
+
+    @Nonnull
+    private ReadOnlyDocument getEffectiveDocument(
+        final DocumentWorkerDocument document,
+        final List<DocumentWorkerChangeLogEntry> changeLog,
+        final Checkpoints checkpoints
+    ) throws InvalidChangeLogException
+    {
+        final int changeLogSize = changeLog.size();
+
+        // Start from the latest checkpoint that is cached
+        int appliedEntries = 0;
+        ReadOnlyDocument effectiveDocument = null;
+        for (int i = changeLogSize; i > 0; i--) {
+            final CachedDocument cachedDocument = cache.getIfPresent(checkpoints.get(i));
+            if (cachedDocument != null) {
+                appliedEntries = i;
+                effectiveDocument = cachedDocument.document;
+                break;
+            }
+        }
+
+        if (appliedEntries == changeLogSize) {
+            return effectiveDocument;
+        }
+
+        if (effectiveDocument == null) {
+            effectiveDocument = ReadOnlyDocument.create(document);
+        }
+
+        // Apply the rest of the change log, without changing the cached document
+        final MutableDocument mutableDocument = new MutableDocument(effectiveDocument);
+        for (final DocumentWorkerChangeLogEntry changeLogEntry : changeLog.subList(appliedEntries, changeLogSize)) {
+            mutableDocument.applyChangeLogEntry(changeLogEntry);
+        }
+        effectiveDocument = ReadOnlyDocument.create(mutableDocument);
+
+        cache.put(checkpoints.get(changeLogSize), new CachedDocument(effectiveDocument, checkpoints.getWeight()));
+
+        return effectiveDocument;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters for the cache. Each checkpoint that is looked up is counted as a hit or a miss, so a
+     * task can record several misses before it finds an earlier checkpoint.
+     *
+     * @return the statistics recorded by the cache
+     */
+    @Nonnull
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+
+    private static long coalesce(final Long value, final long defaultValue)
+    {
+        return (value == null) ? defaultValue : value;
+    }
+
+    /**
+     * The chain of checkpoints for a base document and its change log entries, together with the total size of their encoded form.
+     */
+    private static final class Checkpoints
+    {
+        private final HashCode[] checkpoints;
+        private int count;
+        private long weight;
+
+        public Checkpoints(final int changeLogSize)
+        {
+            this.checkpoints = new HashCode[changeLogSize + 1];
+            this.count = 0;
+            this.weight = 0;
+        }
+
+        public void add(final byte[] data)
+        {
+            add(hasher -> hasher.putBytes(data), data.length);
+        }
+
+        public void add(final RawJson data)
+        {
+            add(data::putBytes, data.getByteLength());
+        }
+
+        private void add(final Consumer<Hasher> data, final int length)
+        {
+            final Hasher hasher = Hashing.sha256().newHasher();
+            if (count > 0) {
+                hasher.putBytes(checkpoints[count - 1].asBytes());
+            }
+            data.accept(hasher);
+
+            checkpoints[count++] = hasher.hash();
+            weight += length;
+        }
+
+        public HashCode get(final int index)
+        {
+            return checkpoints[index];
+        }
+
+        public long getWeight()
+        {
+            return weight;
+        }
+    }
+
+    private static final class CachedDocument
+    {
+        public final ReadOnlyDocument document;
+        public final int weight;
+
+        public CachedDocument(final ReadOnlyDocument document, final long weight)
+        {
+            this.document = document;
+            this.weight = (int) Math.min(weight, Integer.MAX_VALUE);
+        }
+    }
+}
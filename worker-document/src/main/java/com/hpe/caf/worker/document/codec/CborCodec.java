@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.codec;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.hpe.caf.api.Codec;
+import com.hpe.caf.api.CodecException;
+import com.hpe.caf.api.DecodeMethod;
+import com.hpe.caf.worker.document.DocumentWorkerFieldEncoding;
+import com.hpe.caf.worker.document.DocumentWorkerFieldValue;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A codec which encodes objects as CBOR (RFC 8949) rather than JSON.
+ * <p>
+ * Objects are bound in the same way as they are by the JSON codec, and the encoded data has the same structure as the JSON encoding,
+ * except that base64 encoded field values are carried as CBOR byte strings rather than as base64 text. Decoding a byte string field
+ * value produces the equivalent base64 text, so the decoded objects are the same as if the message had been JSON encoded.
+ * <p>
+ * Whether a message is CBOR encoded is given by its version, but the encoded data also starts with the self-described CBOR tag so that
+ * it can be recognised when it is inspected.
+ */
+public final class CborCodec implements Codec
+{
+    private final ObjectMapper strictMapper;
+    private final ObjectMapper lenientMapper;
+
+    public CborCodec()
+    {
+        this.strictMapper = createMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true)
+            .configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, true);
+        this.lenientMapper = createMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Override
+    public <T> T deserialise(final byte[] data, final Class<T> clazz, final DecodeMethod method) throws CodecException
+    {
+        try {
+            return getMapper(method).readValue(data, clazz);
+        } catch (final IOException ex) {
+            throw new CodecException("Failed to deserialise", ex);
+        }
+    }
+
+    @Override
+    public <T> T deserialise(final InputStream stream, final Class<T> clazz, final DecodeMethod method) throws CodecException
+    {
+        try {
+            return getMapper(method).readValue(stream, clazz);
+        } catch (final IOException ex) {
+            throw new CodecException("Failed to deserialise", ex);
+        }
+    }
+
+    @Override
+    public byte[] serialise(final Object object) throws CodecException
+    {
+        try {
+            return strictMapper.writeValueAsBytes(object);
+        } catch (final IOException ex) {
+            throw new CodecException("Failed to serialise", ex);
+        }
+    }
+
+    private ObjectMapper getMapper(final DecodeMethod method)
+    {
+        return (method == DecodeMethod.STRICT) ? strictMapper : lenientMapper;
+    }
+
+    private static ObjectMapper createMapper()
+    {
+        final SimpleModule module = new SimpleModule();
+        module.addSerializer(DocumentWorkerFieldValue.class, new FieldValueSerializer());
+
+        return CBORMapper.builder()
+            .enable(CBORGenerator.Feature.WRITE_TYPE_HEADER)
+            .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+            .addModule(module)
+            .build();
+    }
+
+    /**
+     * Writes base64 encoded field values as binary values so that they are encoded as byte strings.
+     */
+    private static final class FieldValueSerializer extends StdSerializer<DocumentWorkerFieldValue>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public FieldValueSerializer()
+        {
+            super(DocumentWorkerFieldValue.class);
+        }
+
+        @Override
+        public void serialize(final DocumentWorkerFieldValue value, final JsonGenerator gen, final SerializerProvider provider)
+            throws IOException
+        {
+            gen.writeStartObject(value);
+
+            final String data = value.data;
+            if (data != null) {
+                final byte[] binaryData = (value.encoding == DocumentWorkerFieldEncoding.base64) ? tryDecodeBase64(data) : null;
+                gen.writeFieldName("data");
+                if (binaryData != null) {
+                    gen.writeBinary(binaryData);
+                } else {
+                    gen.writeString(data);
+                }
+            }
+
+            if (value.encoding != null) {
+                gen.writeStringField("encoding", value.encoding.name());
+            }
+
+            gen.writeEndObject();
+        }
+
+        /**
+         * Returns the decoded data, or null if it is not valid base64, in which case it is passed on as it is.
+         */
+        private static byte[] tryDecodeBase64(final String data)
+        {
+            try {
+                return Base64Variants.MIME_NO_LINEFEEDS.decode(data);
+            } catch (final IllegalArgumentException ex) {
+                return null;
+            }
+        }
+    }
+}
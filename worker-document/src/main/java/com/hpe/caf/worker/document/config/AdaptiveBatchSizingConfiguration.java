@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.config;
+
+public final class AdaptiveBatchSizingConfiguration
+{
+    /**
+     * Whether the batch size and batch time should be adjusted based on how long the worker takes to process each batch.
+     */
+    private Boolean enabled;
+
+    /**
+     * The length of time (in milliseconds) that the worker should ideally take to process a batch.
+     */
+    private Long targetBatchProcessingTime;
+
+    /**
+     * The smallest batch size that the controller may choose.
+     */
+    private Integer minBatchSize;
+
+    /**
+     * The number of documents by which the batch size is increased after a full batch is processed within the target time.
+     */
+    private Integer batchSizeIncrement;
+
+    /**
+     * The factor by which the batch size is multiplied after a batch takes longer than the target time to process.
+     */
+    private Double batchSizeDecreaseFactor;
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public void setEnabled(final Boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public Long getTargetBatchProcessingTime()
+    {
+        return targetBatchProcessingTime;
+    }
+
+    public void setTargetBatchProcessingTime(final Long targetBatchProcessingTime)
+    {
+        this.targetBatchProcessingTime = targetBatchProcessingTime;
+    }
+
+    public Integer getMinBatchSize()
+    {
+        return minBatchSize;
+    }
+
+    public void setMinBatchSize(final Integer minBatchSize)
+    {
+        this.minBatchSize = minBatchSize;
+    }
+
+    public Integer getBatchSizeIncrement()
+    {
+        return batchSizeIncrement;
+    }
+
+    public void setBatchSizeIncrement(final Integer batchSizeIncrement)
+    {
+        this.batchSizeIncrement = batchSizeIncrement;
+    }
+
+    public Double getBatchSizeDecreaseFactor()
+    {
+        return batchSizeDecreaseFactor;
+    }
+
+    public void setBatchSizeDecreaseFactor(final Double batchSizeDecreaseFactor)
+    {
+        this.batchSizeDecreaseFactor = batchSizeDecreaseFactor;
+    }
+}
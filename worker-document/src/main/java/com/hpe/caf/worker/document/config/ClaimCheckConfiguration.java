@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.config;
+
+public final class ClaimCheckConfiguration
+{
+    /**
+     * The size in bytes above which response messages are stored in the data store, and only a reference to them is sent on the
+     * message queue.
+     */
+    private Long threshold;
+
+    /**
+     * The partial reference to pass to the data store when the response messages are stored.
+     * <p>
+     * The stored messages are not deleted by the worker which receives them, as the same message may be redelivered and processed
+     * again. They should be removed by a retention or expiry policy on this location, which keeps them for longer than a message can
+     * spend waiting on, or being retried from, the message queue.
+     */
+    private String partialReference;
+
+    public Long getThreshold()
+    {
+        return threshold;
+    }
+
+    public void setThreshold(final Long threshold)
+    {
+        this.threshold = threshold;
+    }
+
+    public String getPartialReference()
+    {
+        return partialReference;
+    }
+
+    public void setPartialReference(final String partialReference)
+    {
+        this.partialReference = partialReference;
+    }
+}
@@ -48,6 +48,33 @@ public class DocumentWorkerConfiguration extends WorkerConfiguration
      */
     private long maxBatchTime;
 
+    /**
+     * Maximum total size (in bytes) of the encoded task data in a batch, or zero if the batch size is not limited in this way.
+     */
+    private long maxBatchBytes;
+
+    /**
+     * Whether the next batch should be prepared whilst the current batch is being processed. The tasks for the next batch are retrieved
+     * and decoded, their scripts are loaded, and the events which are raised before the documents are processed are raised for them.
+     */
+    private boolean enableBatchPipelining;
+
+    /**
+     * Configuration for adjusting the batch size based on the measured processing time
+     */
+    private AdaptiveBatchSizingConfiguration adaptiveBatchSizing;
+
+    /**
+     * Number of threads to use for processing sibling subdocuments concurrently, if the worker is thread-safe. Zero, which is the
+     * default, or one means that the documents are processed one at a time.
+     * <p>
+     * Concurrent processing does not give exactly the same results as serial processing if a document fails or if the customization
+     * scripts depend on the order of the events, so it should only be enabled if the worker and the scripts allow for the differences
+     * described on {@link com.hpe.caf.worker.document.extensibility.ThreadSafeDocumentWorker ThreadSafeDocumentWorker}.
+     */
+    @Min(0)
+    private int subdocumentThreads;
+
     /**
      * Configuration for the input message processor
      */
@@ -58,11 +85,45 @@ public class DocumentWorkerConfiguration extends WorkerConfiguration
      */
     private ScriptCachingConfiguration scriptCaching;
 
+    /**
+     * Configuration for storing large field values in the data store
+     */
+    private FieldValueSpillingConfiguration fieldValueSpilling;
+
+    /**
+     * Configuration for storing large response messages in the data store and only sending a reference to them
+     */
+    private ClaimCheckConfiguration claimCheck;
+
+    /**
+     * Configuration for caching the documents produced by applying the change log to the base document
+     */
+    private EffectiveDocumentCacheConfiguration effectiveDocumentCache;
+
     /**
      * Enable returning Exception on failure
      */
     private boolean enableExceptionOnFailure;
 
+    /**
+     * Whether the incoming change log should be folded into the document in the result message, so that only the names of the
+     * earlier change log entries are kept
+     */
+    private boolean compactChangeLog;
+
+    /**
+     * Whether composite document results should be written directly as JSON rather than being serialised using the worker's codec.
+     * This should only be enabled if the worker's codec is the JSON codec.
+     */
+    private boolean streamingJsonEncoderEnabled;
+
+    /**
+     * Whether results should be encoded using CBOR rather than the worker's codec. CBOR encoded results are sent with their own message
+     * versions, so that workers which do not support CBOR reject them rather than failing them, but this should still only be enabled
+     * once the workers which consume the results are able to accept CBOR encoded messages.
+     */
+    private boolean cborResultsEnabled;
+
     public String getOutputQueue()
     {
         return outputQueue;
@@ -113,6 +174,46 @@ public class DocumentWorkerConfiguration extends WorkerConfiguration
         this.maxBatchTime = maxBatchTime;
     }
 
+    public long getMaxBatchBytes()
+    {
+        return maxBatchBytes;
+    }
+
+    public void setMaxBatchBytes(final long maxBatchBytes)
+    {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    public boolean getEnableBatchPipelining()
+    {
+        return enableBatchPipelining;
+    }
+
+    public void setEnableBatchPipelining(final boolean enableBatchPipelining)
+    {
+        this.enableBatchPipelining = enableBatchPipelining;
+    }
+
+    public AdaptiveBatchSizingConfiguration getAdaptiveBatchSizing()
+    {
+        return adaptiveBatchSizing;
+    }
+
+    public void setAdaptiveBatchSizing(final AdaptiveBatchSizingConfiguration adaptiveBatchSizing)
+    {
+        this.adaptiveBatchSizing = adaptiveBatchSizing;
+    }
+
+    public int getSubdocumentThreads()
+    {
+        return subdocumentThreads;
+    }
+
+    public void setSubdocumentThreads(final int subdocumentThreads)
+    {
+        this.subdocumentThreads = subdocumentThreads;
+    }
+
     public InputMessageConfiguration getInputMessageProcessing()
     {
         return inputMessageProcessing;
@@ -133,6 +234,36 @@ public class DocumentWorkerConfiguration extends WorkerConfiguration
         this.scriptCaching = scriptCaching;
     }
 
+    public FieldValueSpillingConfiguration getFieldValueSpilling()
+    {
+        return fieldValueSpilling;
+    }
+
+    public void setFieldValueSpilling(final FieldValueSpillingConfiguration fieldValueSpilling)
+    {
+        this.fieldValueSpilling = fieldValueSpilling;
+    }
+
+    public ClaimCheckConfiguration getClaimCheck()
+    {
+        return claimCheck;
+    }
+
+    public void setClaimCheck(final ClaimCheckConfiguration claimCheck)
+    {
+        this.claimCheck = claimCheck;
+    }
+
+    public EffectiveDocumentCacheConfiguration getEffectiveDocumentCache()
+    {
+        return effectiveDocumentCache;
+    }
+
+    public void setEffectiveDocumentCache(final EffectiveDocumentCacheConfiguration effectiveDocumentCache)
+    {
+        this.effectiveDocumentCache = effectiveDocumentCache;
+    }
+
     public boolean getEnableExceptionOnFailure()
     {
         return enableExceptionOnFailure;
@@ -142,4 +273,34 @@ public class DocumentWorkerConfiguration extends WorkerConfiguration
     {
         this.enableExceptionOnFailure = enableExceptionOnFailure;
     }
+
+    public boolean getCompactChangeLog()
+    {
+        return compactChangeLog;
+    }
+
+    public void setCompactChangeLog(final boolean compactChangeLog)
+    {
+        this.compactChangeLog = compactChangeLog;
+    }
+
+    public boolean getStreamingJsonEncoderEnabled()
+    {
+        return streamingJsonEncoderEnabled;
+    }
+
+    public void setStreamingJsonEncoderEnabled(final boolean streamingJsonEncoderEnabled)
+    {
+        this.streamingJsonEncoderEnabled = streamingJsonEncoderEnabled;
+    }
+
+    public boolean getCborResultsEnabled()
+    {
+        return cborResultsEnabled;
+    }
+
+    public void setCborResultsEnabled(final boolean cborResultsEnabled)
+    {
+        this.cborResultsEnabled = cborResultsEnabled;
+    }
 }
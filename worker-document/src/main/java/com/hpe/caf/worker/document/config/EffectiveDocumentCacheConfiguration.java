@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.config;
+
+public final class EffectiveDocumentCacheConfiguration
+{
+    /**
+     * The approximate maximum number of bytes of serialised document and change log that the cached documents may represent.
+     */
+    private Long maximumWeight;
+
+    /**
+     * The number of seconds since its last access before the entry expires from the cache.
+     */
+    private Long expireAfterAccess;
+
+    public Long getMaximumWeight()
+    {
+        return maximumWeight;
+    }
+
+    public void setMaximumWeight(final Long maximumWeight)
+    {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public Long getExpireAfterAccess()
+    {
+        return expireAfterAccess;
+    }
+
+    public void setExpireAfterAccess(final Long expireAfterAccess)
+    {
+        this.expireAfterAccess = expireAfterAccess;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.config;
+
+public final class FieldValueSpillingConfiguration
+{
+    /**
+     * The size above which new field values are stored in the data store and added as references rather than being held in memory.
+     * For string values this is measured in characters, and for binary values it is measured in bytes.
+     */
+    private Long threshold;
+
+    /**
+     * The partial reference to pass to the data store when the field values are stored.
+     */
+    private String partialReference;
+
+    public Long getThreshold()
+    {
+        return threshold;
+    }
+
+    public void setThreshold(final Long threshold)
+    {
+        this.threshold = threshold;
+    }
+
+    public String getPartialReference()
+    {
+        return partialReference;
+    }
+
+    public void setPartialReference(final String partialReference)
+    {
+        this.partialReference = partialReference;
+    }
+}
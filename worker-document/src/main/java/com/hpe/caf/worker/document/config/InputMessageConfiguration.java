@@ -32,6 +32,15 @@ public final class InputMessageConfiguration
      */
     private Boolean processSubdocumentsSeparately;
 
+    /**
+     * Whether composite document messages should be decoded using the streaming JSON decoder rather than the worker's codec. This
+     * should only be enabled if the messages are JSON encoded.
+     * <p>
+     * It is disabled by default. Decoding a whole message this way is not faster than using the codec; it only saves time and memory
+     * when the worker declares the fields that it reads, as the values of the other fields are then left undecoded.
+     */
+    private Boolean streamingJsonDecoderEnabled;
+
     public Boolean getDocumentTasksAccepted()
     {
         return documentTasksAccepted;
@@ -61,4 +70,14 @@ public final class InputMessageConfiguration
     {
         this.processSubdocumentsSeparately = processSubdocumentsSeparately;
     }
+
+    public Boolean getStreamingJsonDecoderEnabled()
+    {
+        return streamingJsonDecoderEnabled;
+    }
+
+    public void setStreamingJsonDecoderEnabled(final Boolean streamingJsonDecoderEnabled)
+    {
+        this.streamingJsonDecoderEnabled = streamingJsonDecoderEnabled;
+    }
 }
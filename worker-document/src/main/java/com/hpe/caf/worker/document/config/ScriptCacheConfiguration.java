@@ -32,6 +32,17 @@ public final class ScriptCacheConfiguration
      */
     private Long expireAfterWrite;
 
+    /**
+     * The number of seconds since it was created or last refreshed before the entry is refreshed in the background the next time
+     * it is accessed. The existing entry continues to be used while it is being refreshed.
+     */
+    private Long refreshAfterWrite;
+
+    /**
+     * The number of threads that are expected to update the cache concurrently.
+     */
+    private Integer concurrencyLevel;
+
     public Long getMaximumSize()
     {
         return maximumSize;
@@ -61,4 +72,24 @@ public final class ScriptCacheConfiguration
     {
         this.expireAfterWrite = expireAfterWrite;
     }
+
+    public Long getRefreshAfterWrite()
+    {
+        return refreshAfterWrite;
+    }
+
+    public void setRefreshAfterWrite(final Long refreshAfterWrite)
+    {
+        this.refreshAfterWrite = refreshAfterWrite;
+    }
+
+    public Integer getConcurrencyLevel()
+    {
+        return concurrencyLevel;
+    }
+
+    public void setConcurrencyLevel(final Integer concurrencyLevel)
+    {
+        this.concurrencyLevel = concurrencyLevel;
+    }
 }
@@ -15,6 +15,9 @@
  */
 package com.hpe.caf.worker.document.config;
 
+import com.hpe.caf.worker.document.DocumentWorkerScript;
+import java.util.List;
+
 public final class ScriptCachingConfiguration
 {
     /**
@@ -27,6 +30,21 @@ public final class ScriptCachingConfiguration
      */
     private ScriptCacheConfiguration dynamicScriptCache;
 
+    /**
+     * Configuration for caching scripts by their content, so that the same script from different sources is only compiled once
+     */
+    private ScriptCacheConfiguration contentScriptCache;
+
+    /**
+     * A local directory that the JavaScript engine's code cache should be persisted to and reloaded from
+     */
+    private String codeCacheDirectory;
+
+    /**
+     * Scripts to compile when the worker starts, so that the first tasks which use them do not have to wait for them to be compiled
+     */
+    private List<DocumentWorkerScript> warmUpScripts;
+
     public ScriptCacheConfiguration getStaticScriptCache()
     {
         return staticScriptCache;
@@ -46,4 +64,34 @@ public final class ScriptCachingConfiguration
     {
         this.dynamicScriptCache = dynamicScriptCache;
     }
+
+    public ScriptCacheConfiguration getContentScriptCache()
+    {
+        return contentScriptCache;
+    }
+
+    public void setContentScriptCache(final ScriptCacheConfiguration contentScriptCache)
+    {
+        this.contentScriptCache = contentScriptCache;
+    }
+
+    public String getCodeCacheDirectory()
+    {
+        return codeCacheDirectory;
+    }
+
+    public void setCodeCacheDirectory(final String codeCacheDirectory)
+    {
+        this.codeCacheDirectory = codeCacheDirectory;
+    }
+
+    public List<DocumentWorkerScript> getWarmUpScripts()
+    {
+        return warmUpScripts;
+    }
+
+    public void setWarmUpScripts(final List<DocumentWorkerScript> warmUpScripts)
+    {
+        this.warmUpScripts = warmUpScripts;
+    }
 }
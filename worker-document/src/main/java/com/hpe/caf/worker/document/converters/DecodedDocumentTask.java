@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.converters;
+
+import com.hpe.caf.worker.document.DocumentWorkerDocumentTask;
+import jakarta.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * A decoded document task together with the encoded form of the parts of the message which are normally passed through to the result
+ * unchanged, so that they can be copied to the result rather than being encoded again.
+ */
+public final class DecodedDocumentTask
+{
+    private final DocumentWorkerDocumentTask task;
+    private final RawJson encodedDocument;
+    private final RawJson encodedChangeLogEntries;
+    private final List<RawJson> encodedChangeLog;
+
+    DecodedDocumentTask(
+        final DocumentWorkerDocumentTask task,
+        final RawJson encodedDocument,
+        final RawJson encodedChangeLogEntries,
+        final List<RawJson> encodedChangeLog
+    )
+    {
+        this.task = task;
+        this.encodedDocument = encodedDocument;
+        this.encodedChangeLogEntries = encodedChangeLogEntries;
+        this.encodedChangeLog = encodedChangeLog;
+    }
+
+    @Nonnull
+    public DocumentWorkerDocumentTask getTask()
+    {
+        return task;
+    }
+
+    /**
+     * Returns the base document as it was received.
+     *
+     * @return the encoded document, or null if the task does not have a base document
+     */
+    public RawJson getEncodedDocument()
+    {
+        return encodedDocument;
+    }
+
+    /**
+     * Returns the entries of the change log as they were received, without the enclosing brackets.
+     *
+     * @return the encoded change log entries, or null if the task does not have any
+     */
+    public RawJson getEncodedChangeLogEntries()
+    {
+        return encodedChangeLogEntries;
+    }
+
+    /**
+     * Returns each entry of the change log as it was received.
+     *
+     * @return the encoded change log entries, in the same order as the decoded change log, or null if the task does not have a change
+     * log
+     */
+    public List<RawJson> getEncodedChangeLog()
+    {
+        return encodedChangeLog;
+    }
+}
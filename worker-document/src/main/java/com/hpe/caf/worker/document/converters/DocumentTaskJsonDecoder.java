@@ -0,0 +1,477 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.converters;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.hpe.caf.worker.document.DocumentWorkerChangeLogEntry;
+import com.hpe.caf.worker.document.DocumentWorkerDocument;
+import com.hpe.caf.worker.document.DocumentWorkerDocumentTask;
+import com.hpe.caf.worker.document.DocumentWorkerFailure;
+import com.hpe.caf.worker.document.DocumentWorkerFieldEncoding;
+import com.hpe.caf.worker.document.DocumentWorkerFieldValue;
+import com.hpe.caf.worker.document.DocumentWorkerScript;
+import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decodes JSON document task messages using the Jackson streaming parser.
+ * <p>
+ * The document tree, which is usually the bulk of the message, is read directly from the parser in a single pass. The field lists are
+ * sized to the number of values that they contain, and field names are interned by the parser so that names which are repeated across
+ * subdocuments share the same string. The smaller parts of the message (the change log, custom data, and scripts) are read using
+ * data binding. As with the strict JSON codec, unrecognised properties cause the message to be rejected.
+ */
+public final class DocumentTaskJsonDecoder
+{
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true)
+        .configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, true);
+
+    private static final ObjectReader CHANGE_LOG_ENTRY_READER
+        = MAPPER.readerFor(DocumentWorkerChangeLogEntry.class);
+
+    private static final ObjectReader CUSTOM_DATA_READER
+        = MAPPER.readerFor(new TypeReference<Map<String, String>>() {});
+
+    private static final ObjectReader SCRIPTS_READER
+        = MAPPER.readerFor(new TypeReference<List<DocumentWorkerScript>>() {});
+
+    private static final ObjectReader FAILURES_READER
+        = MAPPER.readerFor(new TypeReference<List<DocumentWorkerFailure>>() {});
+
+    private DocumentTaskJsonDecoder()
+    {
+    }
+
+    /**
+     * Decodes a document task message.
+     *
+     * @param data the JSON message
+     * @return the decoded task, or null if the message is the JSON null literal
+     * @throws IOException if the message is not valid JSON or does not match the structure of a document task
+     */
+    public static DocumentWorkerDocumentTask decode(final byte[] data) throws IOException
+    {
+        return decode(data, null);
+    }
+
+    /**
+     * Decodes a document task message, only decoding the values of the specified fields.
+     * <p>
+     * The values of other fields are checked but are not decoded. They are kept in their encoded form, in a {@link RawFieldValueList},
+     * and are decoded if they are accessed.
+     *
+     * @param data the JSON message
+     * @param projectedFieldNames the names of the fields whose values should be decoded, or null if all field values should be decoded
+     * @return the decoded task, or null if the message is the JSON null literal
+     * @throws IOException if the message is not valid JSON or does not match the structure of a document task
+     */
+    public static DocumentWorkerDocumentTask decode(final byte[] data, final Set<String> projectedFieldNames) throws IOException
+    {
+        final DecodedDocumentTask decodedTask = decodeRetainingSource(data, projectedFieldNames);
+        return decodedTask == null ? null : decodedTask.getTask();
+    }
+
+    /**
+     * Decodes a document task message, only decoding the values of the specified fields, and keeps the encoded form of the base
+     * document and of the change log entries so that they can be copied to the result message as they are.
+     *
+     * @param data the JSON message
+     * @param projectedFieldNames the names of the fields whose values should be decoded, or null if all field values should be decoded
+     * @return the decoded task, or null if the message is the JSON null literal
+     * @throws IOException if the message is not valid JSON or does not match the structure of a document task
+     */
+    public static DecodedDocumentTask decodeRetainingSource(final byte[] data, final Set<String> projectedFieldNames)
+        throws IOException
+    {
+        try (final JsonParser parser = MAPPER.getFactory().createParser(data)) {
+            final JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw MismatchedInputException.from(parser, DocumentWorkerDocumentTask.class, "No content to decode");
+            }
+
+            final DecodedDocumentTask decodedTask = (token == JsonToken.VALUE_NULL)
+                ? null
+                : readTask(parser, new FieldProjection(data, projectedFieldNames));
+
+            if (parser.nextToken() != null) {
+                throw MismatchedInputException.from(parser, DocumentWorkerDocumentTask.class, "Unexpected content after the task");
+            }
+
+            return decodedTask;
+        }
+    }
+
+    /**
+     * Decodes a list of field values which was skipped over when the message was decoded.
+     */
+    static List<DocumentWorkerFieldValue> decodeFieldValues(final byte[] data, final int offset, final int length) throws IOException
+    {
+        try (final JsonParser parser = MAPPER.getFactory().createParser(data, offset, length)) {
+            parser.nextToken();
+            return readFieldValues(parser);
+        }
+    }
+
+    @Nonnull
+    private static DecodedDocumentTask readTask(final JsonParser parser, final FieldProjection projection) throws IOException
+    {
+        expectToken(parser, JsonToken.START_OBJECT, DocumentWorkerDocumentTask.class);
+
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        RawJson encodedDocument = null;
+        RawJson encodedChangeLogEntries = null;
+        List<RawJson> encodedChangeLog = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String propertyName = parser.currentName();
+            parser.nextToken();
+
+            final int startOffset = getTokenOffset(parser);
+            switch (propertyName) {
+                case "document":
+                    task.document = readDocument(parser, projection);
+                    encodedDocument = (task.document == null)
+                        ? null
+                        : new RawJson(projection.data, startOffset, getEndOffset(parser) - startOffset);
+                    break;
+                case "changeLog":
+                    final List<RawJson> encodedEntries = new ArrayList<>();
+                    task.changeLog = readChangeLog(parser, projection.data, encodedEntries);
+                    encodedChangeLog = (task.changeLog == null) ? null : encodedEntries;
+                    encodedChangeLogEntries = (task.changeLog == null)
+                        ? null
+                        : getArrayContents(projection.data, startOffset, getEndOffset(parser));
+                    break;
+                case "customData":
+                    task.customData = CUSTOM_DATA_READER.readValue(parser);
+                    break;
+                case "scripts":
+                    task.scripts = SCRIPTS_READER.readValue(parser);
+                    break;
+                default:
+                    throw UnrecognizedPropertyException.from(parser, task, propertyName, null);
+            }
+        }
+
+        return new DecodedDocumentTask(task, encodedDocument, encodedChangeLogEntries, encodedChangeLog);
+    }
+
+    /**
+     * Reads the change log, adding the encoded form of each entry to the specified list as it is read.
+     */
+    private static List<DocumentWorkerChangeLogEntry> readChangeLog(
+        final JsonParser parser,
+        final byte[] data,
+        final List<RawJson> encodedChangeLog
+    ) throws IOException
+    {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectToken(parser, JsonToken.START_ARRAY, List.class);
+
+        final List<DocumentWorkerChangeLogEntry> changeLog = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            final int startOffset = getTokenOffset(parser);
+            changeLog.add(CHANGE_LOG_ENTRY_READER.readValue(parser));
+            encodedChangeLog.add(new RawJson(data, startOffset, getEndOffset(parser) - startOffset));
+        }
+
+        return changeLog;
+    }
+
+    /**
+     * Returns the elements of an encoded array without the brackets and the surrounding whitespace, or null if the array is empty.
+     */
+    private static RawJson getArrayContents(final byte[] data, final int arrayStartOffset, final int arrayEndOffset)
+    {
+        int startOffset = arrayStartOffset + 1;
+        int endOffset = arrayEndOffset - 1;
+        while (startOffset < endOffset && isWhitespace(data[startOffset])) {
+            startOffset++;
+        }
+        while (endOffset > startOffset && isWhitespace(data[endOffset - 1])) {
+            endOffset--;
+        }
+        return startOffset == endOffset ? null : new RawJson(data, startOffset, endOffset - startOffset);
+    }
+
+    private static boolean isWhitespace(final byte b)
+    {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static int getTokenOffset(final JsonParser parser)
+    {
+        return (int) parser.currentTokenLocation().getByteOffset();
+    }
+
+    private static int getEndOffset(final JsonParser parser)
+    {
+        return (int) parser.currentLocation().getByteOffset();
+    }
+
+    private static DocumentWorkerDocument readDocument(final JsonParser parser, final FieldProjection projection) throws IOException
+    {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectToken(parser, JsonToken.START_OBJECT, DocumentWorkerDocument.class);
+
+        final DocumentWorkerDocument document = new DocumentWorkerDocument();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String propertyName = parser.currentName();
+            parser.nextToken();
+
+            switch (propertyName) {
+                case "reference":
+                    document.reference = readString(parser, DocumentWorkerDocument.class);
+                    break;
+                case "fields":
+                    document.fields = readFields(parser, projection);
+                    break;
+                case "failures":
+                    document.failures = FAILURES_READER.readValue(parser);
+                    break;
+                case "subdocuments":
+                    document.subdocuments = readSubdocuments(parser, projection);
+                    break;
+                default:
+                    throw UnrecognizedPropertyException.from(parser, document, propertyName, null);
+            }
+        }
+
+        return document;
+    }
+
+    private static Map<String, List<DocumentWorkerFieldValue>> readFields(final JsonParser parser, final FieldProjection projection)
+        throws IOException
+    {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectToken(parser, JsonToken.START_OBJECT, Map.class);
+
+        final Map<String, List<DocumentWorkerFieldValue>> fields = new LinkedHashMap<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            // The parser interns the field names
+            final String fieldName = parser.currentName();
+            parser.nextToken();
+
+            fields.put(fieldName, projection.includes(fieldName)
+                       ? readFieldValues(parser)
+                       : skipFieldValues(parser, projection.data));
+        }
+
+        return fields;
+    }
+
+    private static List<DocumentWorkerFieldValue> readFieldValues(final JsonParser parser) throws IOException
+    {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectToken(parser, JsonToken.START_ARRAY, List.class);
+
+        // Most fields only have a single value
+        if (parser.nextToken() == JsonToken.END_ARRAY) {
+            return new ArrayList<>(0);
+        }
+        final DocumentWorkerFieldValue firstFieldValue = readFieldValue(parser);
+        if (parser.nextToken() == JsonToken.END_ARRAY) {
+            final ArrayList<DocumentWorkerFieldValue> fieldValues = new ArrayList<>(1);
+            fieldValues.add(firstFieldValue);
+            return fieldValues;
+        }
+
+        final ArrayList<DocumentWorkerFieldValue> fieldValues = new ArrayList<>();
+        fieldValues.add(firstFieldValue);
+        do {
+            fieldValues.add(readFieldValue(parser));
+        } while (parser.nextToken() != JsonToken.END_ARRAY);
+        fieldValues.trimToSize();
+
+        return fieldValues;
+    }
+
+    private static DocumentWorkerFieldValue readFieldValue(final JsonParser parser) throws IOException
+    {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectToken(parser, JsonToken.START_OBJECT, DocumentWorkerFieldValue.class);
+
+        final DocumentWorkerFieldValue fieldValue = new DocumentWorkerFieldValue();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String propertyName = parser.currentName();
+            parser.nextToken();
+
+            switch (propertyName) {
+                case "data":
+                    fieldValue.data = readString(parser, DocumentWorkerFieldValue.class);
+                    break;
+                case "encoding":
+                    fieldValue.encoding = readEncoding(parser);
+                    break;
+                default:
+                    throw UnrecognizedPropertyException.from(parser, fieldValue, propertyName, null);
+            }
+        }
+
+        return fieldValue;
+    }
+
+    /**
+     * Checks the field values without decoding them, and returns a list which refers to their encoded form.
+     */
+    private static List<DocumentWorkerFieldValue> skipFieldValues(final JsonParser parser, final byte[] data) throws IOException
+    {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectToken(parser, JsonToken.START_ARRAY, List.class);
+
+        final int startOffset = getTokenOffset(parser);
+        int size = 0;
+        boolean containsNull = false;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            containsNull |= (parser.currentToken() == JsonToken.VALUE_NULL);
+            skipFieldValue(parser);
+            size++;
+        }
+        final int endOffset = getEndOffset(parser);
+
+        return new RawFieldValueList(data, startOffset, endOffset - startOffset, size, containsNull);
+    }
+
+    private static void skipFieldValue(final JsonParser parser) throws IOException
+    {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expectToken(parser, JsonToken.START_OBJECT, DocumentWorkerFieldValue.class);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String propertyName = parser.currentName();
+            final JsonToken token = parser.nextToken();
+
+            switch (propertyName) {
+                case "data":
+                    // The data is not read, so that the parser can skip over it without decoding it
+                    if (!token.isScalarValue()) {
+                        throw MismatchedInputException.from(parser, DocumentWorkerFieldValue.class,
+                                                            "Expected a string but found " + token);
+                    }
+                    break;
+                case "encoding":
+                    readEncoding(parser);
+                    break;
+                default:
+                    throw UnrecognizedPropertyException.from(parser, DocumentWorkerFieldValue.class, propertyName, null);
+            }
+        }
+    }
+
+    private static DocumentWorkerFieldEncoding readEncoding(final JsonParser parser) throws IOException
+    {
+        final String encoding = readString(parser, DocumentWorkerFieldEncoding.class);
+        if (encoding == null) {
+            return null;
+        }
+
+        try {
+            return DocumentWorkerFieldEncoding.valueOf(encoding);
+        } catch (final IllegalArgumentException ex) {
+            throw InvalidFormatException.from(parser, "Unrecognised encoding", encoding, DocumentWorkerFieldEncoding.class);
+        }
+    }
+
+    private static List<DocumentWorkerDocument> readSubdocuments(final JsonParser parser, final FieldProjection projection)
+        throws IOException
+    {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectToken(parser, JsonToken.START_ARRAY, List.class);
+
+        if (parser.nextToken() == JsonToken.END_ARRAY) {
+            return new ArrayList<>(0);
+        }
+
+        final ArrayList<DocumentWorkerDocument> subdocuments = new ArrayList<>();
+        do {
+            subdocuments.add(readDocument(parser, projection));
+        } while (parser.nextToken() != JsonToken.END_ARRAY);
+        subdocuments.trimToSize();
+
+        return subdocuments;
+    }
+
+    private static String readString(final JsonParser parser, final Class<?> targetType) throws IOException
+    {
+        final JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw MismatchedInputException.from(parser, targetType, "Expected a string but found " + token);
+        }
+        return parser.getText();
+    }
+
+    private static void expectToken(final JsonParser parser, final JsonToken expectedToken, final Class<?> targetType)
+        throws IOException
+    {
+        final JsonToken token = parser.currentToken();
+        if (token != expectedToken) {
+            throw MismatchedInputException.from(parser, targetType, "Expected " + expectedToken + " but found " + token);
+        }
+    }
+
+    private static final class FieldProjection
+    {
+        public final byte[] data;
+        private final Set<String> projectedFieldNames;
+
+        public FieldProjection(final byte[] data, final Set<String> projectedFieldNames)
+        {
+            this.data = data;
+            this.projectedFieldNames = projectedFieldNames;
+        }
+
+        public boolean includes(final String fieldName)
+        {
+            return projectedFieldNames == null || projectedFieldNames.contains(fieldName);
+        }
+    }
+}
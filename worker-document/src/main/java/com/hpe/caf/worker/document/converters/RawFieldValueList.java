@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.converters;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.hpe.caf.worker.document.DocumentWorkerFieldValue;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An unmodifiable list of field values which is backed by the JSON that they were received in.
+ * <p>
+ * The values are only decoded if the list is accessed. The number of values, and whether any of them are null, are known up-front, so
+ * the list can be sized and checked for nulls without decoding it. When the list is written out using a JSON generator the original JSON is copied to the output as it is.
+ */
+public final class RawFieldValueList extends AbstractList<DocumentWorkerFieldValue> implements RandomAccess
+{
+    private final byte[] source;
+    private final int offset;
+    private final int length;
+    private final int size;
+    private final boolean containsNull;
+    private volatile List<DocumentWorkerFieldValue> values;
+
+    RawFieldValueList(final byte[] source, final int offset, final int length, final int size, final boolean containsNull)
+    {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.size = size;
+        this.containsNull = containsNull;
+        this.values = null;
+    }
+
+    @Override
+    public DocumentWorkerFieldValue get(final int index)
+    {
+        return getValues().get(index);
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean contains(final Object o)
+    {
+        return (o == null)
+            ? containsNull
+            : getValues().contains(o);
+    }
+
+    /**
+     * Returns whether the values have been decoded.
+     *
+     * @return true if the list has been accessed and the values have been decoded
+     */
+    public boolean isDecoded()
+    {
+        return values != null;
+    }
+
+    /**
+     * Writes the values to the specified generator in the form that they were received in.
+     *
+     * @param generator the generator to write the values to
+     * @throws IOException if the values could not be written
+     */
+    public void writeTo(final JsonGenerator generator) throws IOException
+    {
+        generator.writeRawValue(new RawJson(source, offset, length));
+    }
+
+    private List<DocumentWorkerFieldValue> getValues()
+    {
+        List<DocumentWorkerFieldValue> decodedValues = values;
+        if (decodedValues == null) {
+            synchronized (this) {
+                decodedValues = values;
+                if (decodedValues == null) {
+                    try {
+                        decodedValues = DocumentTaskJsonDecoder.decodeFieldValues(source, offset, length);
+                    } catch (final IOException ex) {
+                        // The values were checked when the message was decoded
+                        throw new UncheckedIOException(ex);
+                    }
+                    values = decodedValues;
+                }
+            }
+        }
+        return decodedValues;
+    }
+}
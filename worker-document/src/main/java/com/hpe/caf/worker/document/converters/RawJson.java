@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.converters;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.google.common.hash.PrimitiveSink;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A section of a JSON message which can be written by a generator exactly as it was received, without being decoded and re-encoded.
+ * Only the unquoted forms are supported, as raw values are never quoted.
+ */
+public final class RawJson implements SerializableString
+{
+    private final byte[] source;
+    private final int offset;
+    private final int length;
+
+    RawJson(final byte[] source, final int offset, final int length)
+    {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns the length of the encoded section in bytes.
+     *
+     * @return the number of bytes in the encoded section
+     */
+    public int getByteLength()
+    {
+        return length;
+    }
+
+    /**
+     * Writes the encoded section to the specified sink, such as a hasher, without copying it.
+     *
+     * @param sink the sink to write the encoded section to
+     */
+    public void putBytes(final PrimitiveSink sink)
+    {
+        sink.putBytes(source, offset, length);
+    }
+
+    @Override
+    public String getValue()
+    {
+        return new String(source, offset, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int charLength()
+    {
+        return getValue().length();
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8()
+    {
+        return Arrays.copyOfRange(source, offset, offset + length);
+    }
+
+    @Override
+    public int appendUnquotedUTF8(final byte[] buffer, final int bufferOffset)
+    {
+        if (length > buffer.length - bufferOffset) {
+            return -1;
+        }
+        System.arraycopy(source, offset, buffer, bufferOffset, length);
+        return length;
+    }
+
+    @Override
+    public int appendUnquoted(final char[] buffer, final int bufferOffset)
+    {
+        // Let the generator fall back to using the string value
+        return -1;
+    }
+
+    @Override
+    public int writeUnquotedUTF8(final OutputStream out) throws IOException
+    {
+        out.write(source, offset, length);
+        return length;
+    }
+
+    @Override
+    public int putUnquotedUTF8(final ByteBuffer buffer)
+    {
+        if (length > buffer.remaining()) {
+            return -1;
+        }
+        buffer.put(source, offset, length);
+        return length;
+    }
+
+    @Override
+    public char[] asQuotedChars()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public byte[] asQuotedUTF8()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int appendQuotedUTF8(final byte[] buffer, final int bufferOffset)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int appendQuoted(final char[] buffer, final int bufferOffset)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int writeQuotedUTF8(final OutputStream out)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int putQuotedUTF8(final ByteBuffer buffer)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return getValue();
+    }
+}
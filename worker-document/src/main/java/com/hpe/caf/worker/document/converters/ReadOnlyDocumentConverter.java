@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.converters;
+
+import com.hpe.caf.worker.document.DocumentWorkerDocument;
+import com.hpe.caf.worker.document.DocumentWorkerFailure;
+import com.hpe.caf.worker.document.DocumentWorkerFieldEncoding;
+import com.hpe.caf.worker.document.DocumentWorkerFieldValue;
+import com.hpe.caf.worker.document.views.ReadOnlyDocument;
+import com.hpe.caf.worker.document.views.ReadOnlyFailure;
+import com.hpe.caf.worker.document.views.ReadOnlyFieldValue;
+import jakarta.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * This is a utility class which can be used for constructing {@link DocumentWorkerDocument} POJO objects, which can be easily serialised
+ * to JSON, from {@link ReadOnlyDocument} objects.
+ */
+public final class ReadOnlyDocumentConverter
+{
+    private ReadOnlyDocumentConverter()
+    {
+    }
+
+    @Nonnull
+    public static DocumentWorkerDocument convert(final ReadOnlyDocument document)
+    {
+        final DocumentWorkerDocument documentOut = new DocumentWorkerDocument();
+        documentOut.reference = document.getReference();
+        documentOut.fields = convertFields(document.getFields());
+        documentOut.failures = convertFailures(document.getFailures());
+        documentOut.subdocuments = convertSubdocuments(document.getSubdocuments());
+
+        return documentOut;
+    }
+
+    private static Map<String, List<DocumentWorkerFieldValue>> convertFields(final Map<String, List<ReadOnlyFieldValue>> fields)
+    {
+        final Map<String, List<DocumentWorkerFieldValue>> fieldsOut = fields.entrySet().stream()
+            .filter(field -> !field.getValue().isEmpty())
+            .collect(Collectors.toMap(Map.Entry::getKey,
+                                      field -> field.getValue().stream()
+                                          .map(ReadOnlyDocumentConverter::convert)
+                                          .collect(Collectors.toList()),
+                                      (a, b) -> a,
+                                      LinkedHashMap::new));
+
+        return fieldsOut.isEmpty()
+            ? null
+            : fieldsOut;
+    }
+
+    @Nonnull
+    private static DocumentWorkerFieldValue convert(final ReadOnlyFieldValue fieldValue)
+    {
+        final DocumentWorkerFieldEncoding encoding = fieldValue.getEncoding();
+
+        final DocumentWorkerFieldValue fieldValueOut = new DocumentWorkerFieldValue();
+        fieldValueOut.data = fieldValue.getData();
+        fieldValueOut.encoding = (encoding == DocumentWorkerFieldEncoding.utf8) ? null : encoding;
+
+        return fieldValueOut;
+    }
+
+    private static List<DocumentWorkerFailure> convertFailures(final List<ReadOnlyFailure> failures)
+    {
+        return failures.isEmpty()
+            ? null
+            : failures.stream().map(ReadOnlyDocumentConverter::convert).collect(Collectors.toList());
+    }
+
+    @Nonnull
+    private static DocumentWorkerFailure convert(final ReadOnlyFailure failure)
+    {
+        final DocumentWorkerFailure failureOut = new DocumentWorkerFailure();
+        failureOut.failureId = failure.getFailureId();
+        failureOut.failureMessage = failure.getFailureMessage();
+        failureOut.failureStack = failure.getFailureStack();
+
+        return failureOut;
+    }
+
+    private static List<DocumentWorkerDocument> convertSubdocuments(final List<ReadOnlyDocument> subdocuments)
+    {
+        return subdocuments.isEmpty() ? null : subdocuments
+            .stream()
+            .map(ReadOnlyDocumentConverter::convert)
+            .collect(Collectors.toList());
+    }
+}
@@ -22,9 +22,12 @@ import com.hpe.caf.worker.document.model.Field;
 import com.hpe.caf.worker.document.model.FieldValue;
 import com.hpe.caf.worker.document.views.ReadOnlyFieldValue;
 import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.nio.charset.CharacterCodingException;
+import java.nio.CharBuffer;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
@@ -62,6 +65,8 @@ public abstract class AbstractFieldValue extends DocumentWorkerObjectImpl implem
         }
     }
 
+    private static final int VALIDATION_BUFFER_SIZE = 8192;
+
     private final Field field;
 
     public AbstractFieldValue(final ApplicationImpl application, final Field field)
@@ -89,14 +94,76 @@ public abstract class AbstractFieldValue extends DocumentWorkerObjectImpl implem
     @Override
     public boolean isStringValue()
     {
-        final ByteBuffer byteBuffer = ByteBuffer.wrap(getValue());
+        return isUtf8(getValue());
+    }
+
+    /**
+     * Checks whether the specified data is valid UTF-8, without decoding all of it into memory.
+     *
+     * @param data the data to check
+     * @return true if the data is valid UTF-8
+     */
+    protected static boolean isUtf8(final byte[] data)
+    {
         final CharsetDecoder utfDecoder = StandardCharsets.UTF_8.newDecoder();
+        final CharBuffer charBuffer = CharBuffer.allocate(VALIDATION_BUFFER_SIZE);
+
+        return decodeUtf8(utfDecoder, ByteBuffer.wrap(data), charBuffer, true)
+            && flushUtf8(utfDecoder, charBuffer);
+    }
 
-        try {
-            utfDecoder.decode(byteBuffer);
-            return true;
-        } catch (final CharacterCodingException ex) {
-            return false;
+    /**
+     * Checks whether the data read from the specified stream is valid UTF-8, without reading all of it into memory.
+     *
+     * @param stream the stream to check
+     * @return true if the data is valid UTF-8
+     * @throws IOException if the stream cannot be read
+     */
+    protected static boolean isUtf8(final InputStream stream) throws IOException
+    {
+        final CharsetDecoder utfDecoder = StandardCharsets.UTF_8.newDecoder();
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(VALIDATION_BUFFER_SIZE);
+        final CharBuffer charBuffer = CharBuffer.allocate(VALIDATION_BUFFER_SIZE);
+
+        int bytesRead;
+        while ((bytesRead = stream.read(byteBuffer.array(), byteBuffer.position(), byteBuffer.remaining())) != -1) {
+            byteBuffer.position(byteBuffer.position() + bytesRead);
+            byteBuffer.flip();
+            if (!decodeUtf8(utfDecoder, byteBuffer, charBuffer, false)) {
+                return false;
+            }
+            // Keep any incomplete character for the next read
+            byteBuffer.compact();
         }
+
+        byteBuffer.flip();
+        return decodeUtf8(utfDecoder, byteBuffer, charBuffer, true)
+            && flushUtf8(utfDecoder, charBuffer);
+    }
+
+    private static boolean decodeUtf8(
+        final CharsetDecoder utfDecoder,
+        final ByteBuffer byteBuffer,
+        final CharBuffer charBuffer,
+        final boolean endOfInput
+    )
+    {
+        while (true) {
+            final CoderResult result = utfDecoder.decode(byteBuffer, charBuffer, endOfInput);
+            if (result.isError()) {
+                return false;
+            }
+            if (!result.isOverflow()) {
+                return true;
+            }
+            // The decoded characters are not needed so the buffer can be reused
+            charBuffer.clear();
+        }
+    }
+
+    private static boolean flushUtf8(final CharsetDecoder utfDecoder, final CharBuffer charBuffer)
+    {
+        charBuffer.clear();
+        return !utfDecoder.flush(charBuffer).isError();
     }
 }
@@ -18,23 +18,54 @@ package com.hpe.caf.worker.document.fieldvalues;
 import com.hpe.caf.worker.document.impl.ApplicationImpl;
 import com.hpe.caf.worker.document.model.Field;
 import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.io.input.CharSequenceInputStream;
 
 public final class Base64FieldValue extends NonReferenceFieldValue
 {
-    private final byte[] data;
+    private final String data;
 
     public Base64FieldValue(final ApplicationImpl application, final Field field, final String data)
     {
         super(application, field);
-        this.data = Base64.decodeBase64(Objects.requireNonNull(data));
+        this.data = Objects.requireNonNull(data);
     }
 
     @Nonnull
     @Override
     public byte[] getValue()
     {
-        return data;
+        // The decoded data is not kept, so that large values are only held in their encoded form; callers which only need to read the
+        // data should use openInputStream() instead
+        return Base64.decodeBase64(data);
+    }
+
+    @Override
+    public boolean isStringValue()
+    {
+        // Check the data as it is decoded rather than decoding all of it into memory
+        try (final InputStream stream = openInputStream()) {
+            return isUtf8(stream);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public InputStream openInputStream()
+    {
+        // Decode directly from the string rather than decoding all of the data first
+        return new Base64InputStream(
+            CharSequenceInputStream.builder()
+                .setCharSequence(data)
+                .setCharset(StandardCharsets.US_ASCII)
+                .get());
     }
 }
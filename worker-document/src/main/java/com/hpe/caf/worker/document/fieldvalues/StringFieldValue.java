@@ -18,8 +18,10 @@ package com.hpe.caf.worker.document.fieldvalues;
 import com.hpe.caf.worker.document.impl.ApplicationImpl;
 import com.hpe.caf.worker.document.model.Field;
 import jakarta.annotation.Nonnull;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import org.apache.commons.io.input.CharSequenceInputStream;
 
 public final class StringFieldValue extends NonReferenceFieldValue
 {
@@ -42,9 +44,21 @@ public final class StringFieldValue extends NonReferenceFieldValue
     @Override
     public byte[] getValue()
     {
+        // The encoded string is not cached, as the caller is free to modify the array that it is given
         return data.getBytes(StandardCharsets.UTF_8);
     }
 
+    @Nonnull
+    @Override
+    public InputStream openInputStream()
+    {
+        // Encode the string as it is read rather than encoding all of it first
+        return CharSequenceInputStream.builder()
+            .setCharSequence(data)
+            .setCharset(StandardCharsets.UTF_8)
+            .get();
+    }
+
     @Override
     public boolean isStringValue()
     {
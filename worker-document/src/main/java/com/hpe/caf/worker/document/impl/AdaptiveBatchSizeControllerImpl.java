@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.impl;
+
+import com.hpe.caf.worker.document.config.AdaptiveBatchSizingConfiguration;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import static com.hpe.caf.worker.document.util.ObjectFunctions.coalesce;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A batch size controller which adjusts the batch size towards a target processing time.
+ * <p>
+ * The configured maximum batch size and batch time are treated as upper limits. Whenever a batch takes longer than the target time to
+ * process the batch size is reduced multiplicatively, and whenever a full batch is processed within the target time it is increased
+ * additively. The batch time is scaled in proportion to the batch size so that small batches are not held open for as long as large ones.
+ * <p>
+ * A smoothed average of the time taken per document is used to predict how many documents can be processed within the target time. A
+ * reduction goes straight down to the predicted size if that is smaller, and an increase does not go beyond it.
+ */
+public final class AdaptiveBatchSizeControllerImpl extends BatchSizeControllerImpl
+{
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveBatchSizeControllerImpl.class);
+
+    private static final long DEFAULT_TARGET_BATCH_PROCESSING_TIME = 10000;
+    private static final int DEFAULT_MINIMUM_BATCH_SIZE = 1;
+    private static final int DEFAULT_BATCH_SIZE_INCREMENT = 1;
+    private static final double DEFAULT_BATCH_SIZE_DECREASE_FACTOR = 0.5;
+
+    /**
+     * The weight given to the latest batch when updating the average document processing time.
+     */
+    private static final double AVERAGE_SMOOTHING_FACTOR = 0.2;
+
+    private final long targetBatchProcessingTime;
+    private final int minBatchSize;
+    private final int batchSizeIncrement;
+    private final double batchSizeDecreaseFactor;
+
+    private volatile int currentBatchSize;
+    private volatile long currentBatchTime;
+    private double averageDocumentProcessingTime;
+
+    public AdaptiveBatchSizeControllerImpl(
+        final ApplicationImpl application,
+        final DocumentWorkerConfiguration configuration,
+        final AdaptiveBatchSizingConfiguration adaptiveConfiguration
+    )
+    {
+        super(application, configuration);
+
+        final long targetTime = coalesce(adaptiveConfiguration.getTargetBatchProcessingTime(), DEFAULT_TARGET_BATCH_PROCESSING_TIME);
+        final int minSize = coalesce(adaptiveConfiguration.getMinBatchSize(), DEFAULT_MINIMUM_BATCH_SIZE);
+        final int increment = coalesce(adaptiveConfiguration.getBatchSizeIncrement(), DEFAULT_BATCH_SIZE_INCREMENT);
+        final double decreaseFactor = coalesce(adaptiveConfiguration.getBatchSizeDecreaseFactor(), DEFAULT_BATCH_SIZE_DECREASE_FACTOR);
+
+        this.targetBatchProcessingTime = (targetTime > 0) ? targetTime : DEFAULT_TARGET_BATCH_PROCESSING_TIME;
+        this.minBatchSize = (minSize > 0) ? minSize : DEFAULT_MINIMUM_BATCH_SIZE;
+        this.batchSizeIncrement = (increment > 0) ? increment : DEFAULT_BATCH_SIZE_INCREMENT;
+        this.batchSizeDecreaseFactor = (decreaseFactor > 0 && decreaseFactor < 1) ? decreaseFactor : DEFAULT_BATCH_SIZE_DECREASE_FACTOR;
+        this.currentBatchSize = super.getMaximumBatchSize();
+        this.currentBatchTime = super.getMaximumBatchTime();
+        this.averageDocumentProcessingTime = 0;
+    }
+
+    @Override
+    public int getMaximumBatchSize()
+    {
+        return currentBatchSize;
+    }
+
+    @Override
+    public long getMaximumBatchTime()
+    {
+        return currentBatchTime;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The specified value becomes the upper limit for the batch size, and adjustment restarts from it.
+     */
+    @Override
+    public synchronized void setMaximumBatchSize(final int maxBatchSize)
+    {
+        super.setMaximumBatchSize(maxBatchSize);
+        updateBatchLimits(super.getMaximumBatchSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The specified value becomes the upper limit for the batch time, which is then scaled in proportion to the current batch size.
+     */
+    @Override
+    public synchronized void setMaximumBatchTime(final long maxBatchTime)
+    {
+        super.setMaximumBatchTime(maxBatchTime);
+        updateBatchLimits(currentBatchSize);
+    }
+
+    @Override
+    public synchronized void recordBatchProcessingTime(final int batchSize, final long processingTime)
+    {
+        if (batchSize <= 0) {
+            return;
+        }
+
+        // Keep a smoothed record of the time taken per document
+        final double documentProcessingTime = (double) processingTime / batchSize;
+        averageDocumentProcessingTime = (averageDocumentProcessingTime == 0)
+            ? documentProcessingTime
+            : AVERAGE_SMOOTHING_FACTOR * documentProcessingTime + (1 - AVERAGE_SMOOTHING_FACTOR) * averageDocumentProcessingTime;
+
+        final int previousBatchSize = currentBatchSize;
+        final int predictedBatchSize = getPredictedBatchSize();
+        final int newBatchSize;
+        if (processingTime > targetBatchProcessingTime) {
+            // The batch took too long so reduce the size based on the size of the batch that was actually processed, or to the size that
+            // the per-document time predicts will fit within the target time if that is smaller
+            newBatchSize = Math.min((int) (Math.min(batchSize, previousBatchSize) * batchSizeDecreaseFactor), predictedBatchSize);
+        } else if (batchSize >= previousBatchSize) {
+            // A full batch was processed within the target time so try a slightly larger batch, unless the per-document time predicts
+            // that it would not fit within the target time
+            newBatchSize = Math.max(previousBatchSize, Math.min(previousBatchSize + batchSizeIncrement, predictedBatchSize));
+        } else {
+            // The batch was not full so there is nothing to be learned about larger batches
+            return;
+        }
+
+        updateBatchLimits(newBatchSize);
+
+        LOG.debug("Batch of {} documents processed in {} ms (average {} ms per document); maximum batch size changed from {} to {}",
+                  batchSize, processingTime, averageDocumentProcessingTime, previousBatchSize, currentBatchSize);
+    }
+
+    /**
+     * Returns the number of documents that the average time per document predicts can be processed within the target time.
+     */
+    private int getPredictedBatchSize()
+    {
+        return (averageDocumentProcessingTime <= 0)
+            ? Integer.MAX_VALUE
+            : (int) Math.min(Integer.MAX_VALUE, targetBatchProcessingTime / averageDocumentProcessingTime);
+    }
+
+    private void updateBatchLimits(final int batchSize)
+    {
+        final int upperBatchSize = super.getMaximumBatchSize();
+        final long upperBatchTime = super.getMaximumBatchTime();
+        final int newBatchSize = Math.max(Math.min(batchSize, upperBatchSize), Math.min(minBatchSize, upperBatchSize));
+
+        currentBatchSize = newBatchSize;
+        currentBatchTime = Math.max(1, upperBatchTime * newBatchSize / upperBatchSize);
+    }
+}
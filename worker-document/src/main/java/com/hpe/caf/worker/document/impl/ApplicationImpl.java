@@ -22,23 +22,42 @@ import com.hpe.caf.api.ConfigurationSource;
 import com.hpe.caf.api.worker.DataStore;
 import com.hpe.caf.api.worker.TaskFailedException;
 import com.hpe.caf.api.worker.WorkerException;
+import com.hpe.caf.worker.document.DocumentWorkerScript;
+import com.hpe.caf.worker.document.changelog.EffectiveDocumentCache;
+import com.hpe.caf.worker.document.codec.CborCodec;
+import com.hpe.caf.worker.document.config.AdaptiveBatchSizingConfiguration;
 import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.config.EffectiveDocumentCacheConfiguration;
+import com.hpe.caf.worker.document.config.ScriptCachingConfiguration;
+import com.hpe.caf.worker.document.exceptions.InvalidScriptException;
 import com.hpe.caf.worker.document.model.Application;
 import com.hpe.caf.worker.document.model.ServiceLocator;
 import com.hpe.caf.worker.document.scripting.JavaScriptManager;
+import com.hpe.caf.worker.document.scripting.specs.AbstractScriptSpec;
+import com.hpe.caf.worker.document.util.BooleanFunctions;
 import jakarta.annotation.Nonnull;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.script.ScriptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ApplicationImpl implements Application
 {
+    private static final Logger LOG = LoggerFactory.getLogger(ApplicationImpl.class);
+
     private final ServiceLocatorImpl serviceLocator;
     private final ConfigurationSource configSource;
     private final DataStore dataStore;
     private final Codec codec;
+    private final CborCodec cborCodec;
     private final DocumentWorkerConfiguration configuration;
     private final BatchSizeControllerImpl batchSizeController;
     private final InputMessageProcessorImpl inputMessageProcessor;
     private final JavaScriptManager javaScriptManager;
+    private final FieldValueSpiller fieldValueSpiller;
+    private final EffectiveDocumentCache effectiveDocumentCache;
     private final String successQueue;
     private final String failureQueue;
 
@@ -49,10 +68,13 @@ public class ApplicationImpl implements Application
         this.configSource = Objects.requireNonNull(configSource);
         this.dataStore = Objects.requireNonNull(dataStore);
         this.codec = Objects.requireNonNull(codec);
+        this.cborCodec = new CborCodec();
         this.configuration = getConfiguration(configSource);
-        this.batchSizeController = new BatchSizeControllerImpl(this, configuration);
+        this.batchSizeController = createBatchSizeController(this, configuration);
         this.inputMessageProcessor = new InputMessageProcessorImpl(this, configuration.getInputMessageProcessing());
         this.javaScriptManager = new JavaScriptManager(configuration.getScriptCaching());
+        this.fieldValueSpiller = new FieldValueSpiller(dataStore, configuration.getFieldValueSpilling());
+        this.effectiveDocumentCache = createEffectiveDocumentCache(codec, configuration);
         this.successQueue = configuration.getOutputQueue();
         this.failureQueue = getFailureQueue(configuration);
 
@@ -126,6 +148,17 @@ public class ApplicationImpl implements Application
         return codec;
     }
 
+    /**
+     * Returns the codec used for messages which are encoded using CBOR rather than the worker's codec.
+     *
+     * @return the CBOR codec
+     */
+    @Nonnull
+    public CborCodec getCborCodec()
+    {
+        return cborCodec;
+    }
+
     @Nonnull
     public DocumentWorkerConfiguration getConfiguration()
     {
@@ -138,6 +171,22 @@ public class ApplicationImpl implements Application
         return javaScriptManager;
     }
 
+    @Nonnull
+    public FieldValueSpiller getFieldValueSpiller()
+    {
+        return fieldValueSpiller;
+    }
+
+    /**
+     * Returns the cache of documents produced by applying change logs, or null if it is not enabled.
+     *
+     * @return the cache of effective documents, or null if it is not enabled
+     */
+    public EffectiveDocumentCache getEffectiveDocumentCache()
+    {
+        return effectiveDocumentCache;
+    }
+
     public String getSuccessQueue()
     {
         return successQueue;
@@ -148,6 +197,52 @@ public class ApplicationImpl implements Application
         return failureQueue;
     }
 
+    /**
+     * Creates the script engine and compiles the scripts listed in the script caching configuration, so that the first tasks which
+     * use them are not delayed. It does nothing if no warm-up scripts are configured.
+     * <p>
+     * The scripts are compiled through the same caches that tasks use, so a task which uses one of them is given the compiled script
+     * whose source has already been parsed on the shared engine.
+     *
+     * @throws WorkerException if one of the warm-up scripts is not valid
+     */
+    public void warmUpScripts() throws WorkerException
+    {
+        final ScriptCachingConfiguration scriptCaching = configuration.getScriptCaching();
+        final List<DocumentWorkerScript> warmUpScripts = (scriptCaching == null) ? null : scriptCaching.getWarmUpScripts();
+        if (warmUpScripts == null) {
+            return;
+        }
+
+        final long startTime = System.nanoTime();
+        javaScriptManager.warmUpEngine();
+
+        int compiledScripts = 0;
+        for (final DocumentWorkerScript script : warmUpScripts) {
+            final AbstractScriptSpec scriptSpec;
+            try {
+                scriptSpec = AbstractScriptSpec.create(this, script);
+            } catch (final InvalidScriptException ex) {
+                throw new WorkerException("Invalid warm-up script: " + script.name, ex);
+            }
+
+            if (scriptSpec == null) {
+                throw new WorkerException("Warm-up script has no script, storage reference, or url: " + script.name);
+            }
+
+            // Scripts which cannot be compiled now will be compiled again when they are needed, so don't stop the worker starting
+            try {
+                javaScriptManager.getObjectCode(script.name, scriptSpec);
+                compiledScripts++;
+            } catch (final ScriptException | RuntimeException ex) {
+                LOG.warn("Failed to compile warm-up script: {}", script.name, ex);
+            }
+        }
+
+        LOG.info("Script warm-up completed in {} ms: {} of {} scripts compiled",
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), compiledScripts, warmUpScripts.size());
+    }
+
     public <T> byte[] serialiseResult(final T result)
     {
         try {
@@ -157,6 +252,15 @@ public class ApplicationImpl implements Application
         }
     }
 
+    public <T> byte[] serialiseCborResult(final T result)
+    {
+        try {
+            return cborCodec.serialise(result);
+        } catch (final CodecException e) {
+            throw new TaskFailedException("Failed to serialise result", e);
+        }
+    }
+
     /**
      * This method retrieves the DocumentWorkerConfiguration or throws an exception.
      *
@@ -174,6 +278,31 @@ public class ApplicationImpl implements Application
         }
     }
 
+    @Nonnull
+    private static BatchSizeControllerImpl createBatchSizeController(
+        final ApplicationImpl application,
+        final DocumentWorkerConfiguration configuration
+    )
+    {
+        final AdaptiveBatchSizingConfiguration adaptiveBatchSizing = configuration.getAdaptiveBatchSizing();
+
+        return (adaptiveBatchSizing != null && BooleanFunctions.valueOf(adaptiveBatchSizing.getEnabled(), false))
+            ? new AdaptiveBatchSizeControllerImpl(application, configuration, adaptiveBatchSizing)
+            : new BatchSizeControllerImpl(application, configuration);
+    }
+
+    private static EffectiveDocumentCache createEffectiveDocumentCache(
+        final Codec codec,
+        final DocumentWorkerConfiguration configuration
+    )
+    {
+        final EffectiveDocumentCacheConfiguration effectiveDocumentCache = configuration.getEffectiveDocumentCache();
+
+        return (effectiveDocumentCache == null)
+            ? null
+            : new EffectiveDocumentCache(codec, effectiveDocumentCache);
+    }
+
     private static String getFailureQueue(final DocumentWorkerConfiguration configuration)
     {
         final String failureQueue = configuration.getFailureQueue();
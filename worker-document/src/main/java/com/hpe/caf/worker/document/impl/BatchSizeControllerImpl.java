@@ -18,7 +18,7 @@ package com.hpe.caf.worker.document.impl;
 import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
 import com.hpe.caf.worker.document.model.BatchSizeController;
 
-public final class BatchSizeControllerImpl extends DocumentWorkerObjectImpl implements BatchSizeController
+public class BatchSizeControllerImpl extends DocumentWorkerObjectImpl implements BatchSizeController
 {
     private static final int DEFAULT_MAXIMUM_BATCH_SIZE = 100;
 
@@ -32,8 +32,8 @@ public final class BatchSizeControllerImpl extends DocumentWorkerObjectImpl impl
     {
         super(application);
 
-        setMaximumBatchSize(configuration.getMaxBatchSize());
-        setMaximumBatchTime(configuration.getMaxBatchTime());
+        this.maxBatchSize = getValidBatchSize(configuration.getMaxBatchSize());
+        this.maxBatchTime = getValidBatchTime(configuration.getMaxBatchTime());
     }
 
     @Override
@@ -51,12 +51,34 @@ public final class BatchSizeControllerImpl extends DocumentWorkerObjectImpl impl
     @Override
     public void setMaximumBatchSize(final int maxBatchSize)
     {
-        this.maxBatchSize = (maxBatchSize > 0) ? maxBatchSize : DEFAULT_MAXIMUM_BATCH_SIZE;
+        this.maxBatchSize = getValidBatchSize(maxBatchSize);
     }
 
     @Override
     public void setMaximumBatchTime(final long maxBatchTime)
     {
-        this.maxBatchTime = (maxBatchTime > 0) ? maxBatchTime : DEFAULT_MAXIMUM_BATCH_TIME;
+        this.maxBatchTime = getValidBatchTime(maxBatchTime);
+    }
+
+    /**
+     * Records how long the worker took to process a batch of documents, excluding the time spent retrieving and preparing the documents.
+     * <p>
+     * The batch limits are fixed unless they are explicitly set, so this implementation does nothing.
+     *
+     * @param batchSize the number of documents that were in the batch
+     * @param processingTime the length of time (in milliseconds) that the worker took to process the batch
+     */
+    public void recordBatchProcessingTime(final int batchSize, final long processingTime)
+    {
+    }
+
+    private static int getValidBatchSize(final int maxBatchSize)
+    {
+        return (maxBatchSize > 0) ? maxBatchSize : DEFAULT_MAXIMUM_BATCH_SIZE;
+    }
+
+    private static long getValidBatchTime(final long maxBatchTime)
+    {
+        return (maxBatchTime > 0) ? maxBatchTime : DEFAULT_MAXIMUM_BATCH_TIME;
     }
 }
@@ -54,6 +54,12 @@ public final class FieldImpl extends DocumentWorkerObjectImpl implements Field
     @Override
     public void add(final String data)
     {
+        final String dataRef = application.getFieldValueSpiller().spill(data);
+        if (dataRef != null) {
+            addReference(dataRef);
+            return;
+        }
+
         final DocumentWorkerFieldValue fieldValue = new DocumentWorkerFieldValue();
         fieldValue.data = data;
 
@@ -63,6 +69,12 @@ public final class FieldImpl extends DocumentWorkerObjectImpl implements Field
     @Override
     public void add(final byte[] data)
     {
+        final String dataRef = application.getFieldValueSpiller().spill(data);
+        if (dataRef != null) {
+            addReference(dataRef);
+            return;
+        }
+
         final DocumentWorkerFieldValue fieldValue = new DocumentWorkerFieldValue();
         fieldValue.data = Base64.encodeBase64String(data);
         fieldValue.encoding = DocumentWorkerFieldEncoding.base64;
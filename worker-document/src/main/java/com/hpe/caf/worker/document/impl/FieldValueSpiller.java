@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.impl;
+
+import com.hpe.caf.api.worker.DataStore;
+import com.hpe.caf.api.worker.DataStoreException;
+import com.hpe.caf.worker.document.config.FieldValueSpillingConfiguration;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import org.apache.commons.io.input.CharSequenceInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores field values which are larger than the configured threshold in the data store, so that only a reference to them needs to
+ * be held in memory and sent in the response.
+ */
+public final class FieldValueSpiller
+{
+    private static final Logger LOG = LoggerFactory.getLogger(FieldValueSpiller.class);
+
+    private final DataStore dataStore;
+    private final long threshold;
+    private final String partialReference;
+
+    public FieldValueSpiller(final DataStore dataStore, final FieldValueSpillingConfiguration configuration)
+    {
+        this.dataStore = Objects.requireNonNull(dataStore);
+        this.threshold = getThreshold(configuration);
+        this.partialReference = (configuration == null) ? null : configuration.getPartialReference();
+    }
+
+    /**
+     * Stores the string in the data store, encoded as UTF-8, if its encoded size is larger than the threshold.
+     *
+     * @param data the field value
+     * @return the data store reference, or null if the value should be held in memory
+     */
+    public String spill(final String data)
+    {
+        if (data == null || !isUtf8LengthOverThreshold(data)) {
+            return null;
+        }
+
+        try (final InputStream stream = CharSequenceInputStream.builder()
+            .setCharSequence(data)
+            .setCharset(StandardCharsets.UTF_8)
+            .get()) {
+            return dataStore.store(stream, partialReference);
+        } catch (final DataStoreException | IOException ex) {
+            LOG.warn("Failed to store field value of {} characters; it will be held in memory", data.length(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the data in the data store if it is larger than the threshold.
+     *
+     * @param data the field value
+     * @return the data store reference, or null if the value should be held in memory
+     */
+    public String spill(final byte[] data)
+    {
+        if (data == null || data.length <= threshold) {
+            return null;
+        }
+
+        try {
+            return dataStore.store(data, partialReference);
+        } catch (final DataStoreException ex) {
+            LOG.warn("Failed to store field value of {} bytes; it will be held in memory", data.length, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the string is larger than the threshold when it is encoded as UTF-8, without encoding it.
+     */
+    private boolean isUtf8LengthOverThreshold(final String data)
+    {
+        // Each character takes at least one byte and at most three
+        final int length = data.length();
+        if (length > threshold) {
+            return true;
+        }
+        if ((long) length * 3 <= threshold) {
+            return false;
+        }
+
+        long utf8Length = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = data.charAt(i);
+            if (c < 0x80) {
+                utf8Length++;
+            } else if (c < 0x800) {
+                utf8Length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(data.charAt(i + 1))) {
+                utf8Length += 4;
+                i++;
+            } else {
+                utf8Length += 3;
+            }
+        }
+        return utf8Length > threshold;
+    }
+
+    private static long getThreshold(final FieldValueSpillingConfiguration configuration)
+    {
+        final Long threshold = (configuration == null) ? null : configuration.getThreshold();
+
+        return (threshold == null || threshold <= 0)
+            ? Long.MAX_VALUE
+            : threshold;
+    }
+}
@@ -18,24 +18,35 @@ package com.hpe.caf.worker.document.impl;
 import com.hpe.caf.api.Codec;
 import com.hpe.caf.api.CodecException;
 import com.hpe.caf.api.DecodeMethod;
+import com.hpe.caf.api.worker.DataStoreException;
 import com.hpe.caf.api.worker.InvalidTaskException;
+import com.hpe.caf.api.worker.ReferenceNotFoundException;
 import com.hpe.caf.api.worker.TaskRejectedException;
 import com.hpe.caf.api.worker.WorkerTaskData;
 import com.hpe.caf.worker.document.DocumentWorkerConstants;
 import com.hpe.caf.worker.document.DocumentWorkerDocumentTask;
+import com.hpe.caf.worker.document.DocumentWorkerMultiDocumentTask;
 import com.hpe.caf.worker.document.DocumentWorkerTask;
 import com.hpe.caf.worker.document.config.InputMessageConfiguration;
+import com.hpe.caf.worker.document.converters.DecodedDocumentTask;
+import com.hpe.caf.worker.document.converters.DocumentTaskJsonDecoder;
 import com.hpe.caf.worker.document.exceptions.InvalidChangeLogException;
 import com.hpe.caf.worker.document.exceptions.InvalidScriptException;
 import com.hpe.caf.worker.document.model.InputMessageProcessor;
 import com.hpe.caf.worker.document.tasks.AbstractTask;
 import com.hpe.caf.worker.document.tasks.DocumentTask;
 import com.hpe.caf.worker.document.tasks.FieldEnrichmentTask;
+import com.hpe.caf.worker.document.tasks.MultiDocumentTask;
 import com.hpe.caf.worker.document.util.BooleanFunctions;
+import com.hpe.caf.worker.document.util.DataStoreFunctions;
 import jakarta.annotation.Nonnull;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,10 +58,13 @@ public class InputMessageProcessorImpl extends DocumentWorkerObjectImpl implemen
     private static final boolean DEFAULT_DOCUMENT_TASKS_ACCEPTED = true;
     private static final boolean DEFAULT_FIELD_ENRICHMENT_TASKS_ACCEPTED = true;
     private static final boolean DEFAULT_PROCESS_SUBDOCUMENTS_SEPARATELY = true;
+    private static final boolean DEFAULT_STREAMING_JSON_DECODER_ENABLED = false;
 
     private boolean documentTasksAccepted;
     private boolean fieldEnrichmentTasksAccepted;
     private boolean processSubdocumentsSeparately;
+    private final boolean streamingJsonDecoderEnabled;
+    private volatile Set<String> projectedFieldNames;
 
     public InputMessageProcessorImpl(
         final ApplicationImpl application,
@@ -70,6 +84,10 @@ public class InputMessageProcessorImpl extends DocumentWorkerObjectImpl implemen
         this.processSubdocumentsSeparately = (configuration == null)
             ? DEFAULT_PROCESS_SUBDOCUMENTS_SEPARATELY
             : BooleanFunctions.valueOf(configuration.getProcessSubdocumentsSeparately(), DEFAULT_PROCESS_SUBDOCUMENTS_SEPARATELY);
+
+        this.streamingJsonDecoderEnabled = (configuration == null)
+            ? DEFAULT_STREAMING_JSON_DECODER_ENABLED
+            : BooleanFunctions.valueOf(configuration.getStreamingJsonDecoderEnabled(), DEFAULT_STREAMING_JSON_DECODER_ENABLED);
     }
 
     @Override
@@ -108,6 +126,17 @@ public class InputMessageProcessorImpl extends DocumentWorkerObjectImpl implemen
         this.processSubdocumentsSeparately = processSubdocumentsSeparately;
     }
 
+    /**
+     * Sets the names of the fields whose values are decoded up-front when the streaming JSON decoder is used. The values of other fields
+     * are only decoded if they are accessed.
+     *
+     * @param projectedFieldNames the names of the fields that the worker reads, or null if all of the field values should be decoded
+     */
+    public void setProjectedFieldNames(final Set<String> projectedFieldNames)
+    {
+        this.projectedFieldNames = (projectedFieldNames == null) ? null : Collections.unmodifiableSet(new HashSet<>(projectedFieldNames));
+    }
+
     /**
      * Verify that the specified worker task is supported and is a version that can be handled, and de-serialises it if it is.
      *
@@ -120,29 +149,62 @@ public class InputMessageProcessorImpl extends DocumentWorkerObjectImpl implemen
     public AbstractTask createTask(final WorkerTaskData workerTask)
         throws InvalidTaskException, TaskRejectedException
     {
-        // Get the encoding scheme to use to decode the DocumentWorkerTask
-        final Codec codec = application.getCodec();
-
         // Reject tasks of the wrong type and tasks that require a newer version
         final String workerName = DocumentWorkerConstants.WORKER_NAME;
         final String classifier = workerTask.getClassifier();
 
         if (fieldEnrichmentTasksAccepted && workerName.equals(classifier)) {
-            final byte[] data = validateVersionAndData(workerTask, DocumentWorkerConstants.WORKER_API_VER);
+            final byte[] data = validateVersionAndData(workerTask, DocumentWorkerConstants.WORKER_CBOR_API_VER);
+            final Codec codec = getCodec(workerTask, DocumentWorkerConstants.WORKER_CBOR_API_VER);
             final DocumentWorkerTask documentWorkerTask
                 = TaskValidator.deserialiseAndValidateTask(codec, DocumentWorkerTask.class, data);
             return FieldEnrichmentTask.create(application, workerTask, documentWorkerTask);
         } else if (documentTasksAccepted && DocumentWorkerConstants.DOCUMENT_TASK_NAME.equals(classifier)) {
-            final byte[] data = validateVersionAndData(workerTask, DocumentWorkerConstants.DOCUMENT_TASK_API_VER);
-            final DocumentWorkerDocumentTask documentWorkerDocumentTask
-                = TaskValidator.deserialiseAndValidateTask(codec, DocumentWorkerDocumentTask.class, data);
+            final byte[] taskData = validateVersionAndData(workerTask, DocumentWorkerConstants.DOCUMENT_TASK_CBOR_API_VER);
+            // Only messages of the claim check version can be claim checks
+            final String claimCheckReference = (workerTask.getVersion() < DocumentWorkerConstants.DOCUMENT_TASK_CLAIM_CHECK_API_VER)
+                ? null
+                : DataStoreFunctions.getClaimCheckReference(taskData);
+            final byte[] data = (claimCheckReference == null) ? taskData : retrieveClaimCheckedData(claimCheckReference);
+            final Codec codec = getCodec(workerTask, DocumentWorkerConstants.DOCUMENT_TASK_CBOR_API_VER);
+            final DocumentTask documentTask;
             try {
-                return DocumentTask.create(application, workerTask, documentWorkerDocumentTask);
+                if (streamingJsonDecoderEnabled && workerTask.getVersion() < DocumentWorkerConstants.DOCUMENT_TASK_CBOR_API_VER) {
+                    // The streaming decoder also keeps the encoded form of the parts of the task that are passed through unchanged
+                    documentTask = DocumentTask.create(application, workerTask,
+                                                       TaskValidator.decodeAndValidateDocumentTask(data, projectedFieldNames));
+                } else {
+                    documentTask = DocumentTask.create(application, workerTask, TaskValidator.deserialiseAndValidateTask(
+                        codec, DocumentWorkerDocumentTask.class, data));
+                }
             } catch (final InvalidChangeLogException ex) {
                 throw new InvalidTaskException("Invalid change log", ex);
             } catch (InvalidScriptException ex) {
                 throw new InvalidTaskException("Invalid script", ex);
             }
+            // A claim checked message is measured by the size of the message that was retrieved rather than the size of the reference
+            documentTask.setPayloadSize(data.length);
+            return documentTask;
+        } else if (documentTasksAccepted && DocumentWorkerConstants.MULTI_DOCUMENT_TASK_NAME.equals(classifier)) {
+            final byte[] data = validateVersionAndData(workerTask, DocumentWorkerConstants.MULTI_DOCUMENT_TASK_CBOR_API_VER);
+            final Codec codec = getCodec(workerTask, DocumentWorkerConstants.MULTI_DOCUMENT_TASK_CBOR_API_VER);
+            final DocumentWorkerMultiDocumentTask multiDocumentTask
+                = TaskValidator.deserialiseAndValidateTask(codec, DocumentWorkerMultiDocumentTask.class, data);
+            if (multiDocumentTask.documents == null || multiDocumentTask.documents.isEmpty()
+                || multiDocumentTask.documents.contains(null)) {
+                throw new InvalidTaskException("Invalid input message: documents not specified");
+            }
+            final MultiDocumentTask task;
+            try {
+                task = MultiDocumentTask.create(application, workerTask, multiDocumentTask);
+            } catch (final InvalidChangeLogException ex) {
+                throw new InvalidTaskException("Invalid change log", ex);
+            } catch (final InvalidScriptException ex) {
+                throw new InvalidTaskException("Invalid script", ex);
+            }
+            // Record the size of the message that was decoded, in the same way as for single document tasks
+            task.setPayloadSize(data.length);
+            return task;
         } else {
             throw new InvalidTaskException("Task of type " + classifier + " found on queue for " + workerName);
         }
@@ -165,6 +227,35 @@ public class InputMessageProcessorImpl extends DocumentWorkerObjectImpl implemen
         return data;
     }
 
+    /**
+     * Returns the codec to decode the specified task with. Messages of the CBOR version, or of any later version, are CBOR encoded.
+     */
+    @Nonnull
+    private Codec getCodec(final WorkerTaskData workerTask, final int cborVersion)
+    {
+        return (workerTask.getVersion() >= cborVersion)
+            ? application.getCborCodec()
+            : application.getCodec();
+    }
+
+    /**
+     * Reads the task which a claim check refers to from the data store.
+     * <p>
+     * A reference which is not found makes the task invalid, but other failures might be transient so the task is rejected, in order
+     * that it can be retried.
+     */
+    @Nonnull
+    private byte[] retrieveClaimCheckedData(final String reference) throws InvalidTaskException, TaskRejectedException
+    {
+        try (final InputStream stream = application.getDataStore().retrieve(reference)) {
+            return stream.readAllBytes();
+        } catch (final ReferenceNotFoundException ex) {
+            throw new InvalidTaskException("Task data not found in the data store: " + reference, ex);
+        } catch (final DataStoreException | IOException ex) {
+            throw new TaskRejectedException("Failed to retrieve task data from the data store: " + reference, ex);
+        }
+    }
+
     /**
      * The purpose of this static nested class is just to delay the creation of the validator object until it is required.
      */
@@ -189,6 +280,31 @@ public class InputMessageProcessorImpl extends DocumentWorkerObjectImpl implemen
                 throw new InvalidTaskException("Invalid input message", e);
             }
 
+            return validateTask(taskType, documentWorkerTask);
+        }
+
+        /**
+         * Decode the given JSON data using the streaming decoder, and validate that any constraints specified have been met.
+         */
+        @Nonnull
+        public static DecodedDocumentTask decodeAndValidateDocumentTask(final byte[] data, final Set<String> projectedFieldNames)
+            throws InvalidTaskException
+        {
+            final DecodedDocumentTask decodedTask;
+            try {
+                decodedTask = DocumentTaskJsonDecoder.decodeRetainingSource(data, projectedFieldNames);
+            } catch (final IOException e) {
+                throw new InvalidTaskException("Invalid input message", e);
+            }
+
+            validateTask(DocumentWorkerDocumentTask.class, decodedTask == null ? null : decodedTask.getTask());
+            return decodedTask;
+        }
+
+        @Nonnull
+        private static <T> T validateTask(final Class<T> taskType, final T documentWorkerTask)
+            throws InvalidTaskException
+        {
             if (documentWorkerTask == null) {
                 throw new InvalidTaskException("Invalid input message: no result from deserialisation");
             }
@@ -21,6 +21,7 @@ import com.hpe.caf.worker.document.model.Script;
 import com.hpe.caf.worker.document.model.ScriptEngineType;
 import com.hpe.caf.worker.document.model.Task;
 import com.hpe.caf.worker.document.scripting.JavaScriptManager;
+import com.hpe.caf.worker.document.scripting.events.ScriptEvent;
 import com.hpe.caf.worker.document.scripting.specs.AbstractScriptSpec;
 import com.hpe.caf.worker.document.scripting.specs.InlineScriptSpec;
 import com.hpe.caf.worker.document.scripting.specs.StorageRefScriptSpec;
@@ -30,11 +31,13 @@ import jakarta.annotation.Nonnull;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.Function;
 import javax.script.Bindings;
 import javax.script.CompiledScript;
 import javax.script.ScriptException;
+import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +46,38 @@ public final class ScriptImpl extends DocumentWorkerObjectImpl implements Script
 {
     private static final Logger LOG = LoggerFactory.getLogger(ScriptImpl.class);
 
+    private static final String[] HANDLER_NAMES = Arrays.stream(ScriptEvent.getAll())
+        .map(ScriptEvent::getHandlerName)
+        .toArray(String[]::new);
+
+    /**
+     * Replaces the script's assignable event handler globals with accessors which record when they are written to, and returns the
+     * object which the writes are recorded in. Globals which the script has declared as functions, or has defined its own accessors
+     * for, cannot be replaced and are left as they are.
+     */
+    private static final Source WATCH_HANDLER_WRITES = Source.create("js",
+        "(function (names) {\n"
+        + "    var writes = { changed: false };\n"
+        + "    for (var i = 0; i < names.length; i++) {\n"
+        + "        watch(names[i]);\n"
+        + "    }\n"
+        + "    return writes;\n"
+        + "\n"
+        + "    function watch(name) {\n"
+        + "        var descriptor = Object.getOwnPropertyDescriptor(globalThis, name);\n"
+        + "        if (descriptor !== undefined && !(descriptor.configurable && descriptor.writable)) {\n"
+        + "            return;\n"
+        + "        }\n"
+        + "        var value = (descriptor === undefined) ? undefined : descriptor.value;\n"
+        + "        Object.defineProperty(globalThis, name, {\n"
+        + "            configurable: true,\n"
+        + "            enumerable: (descriptor === undefined) || descriptor.enumerable,\n"
+        + "            get: function () { return value; },\n"
+        + "            set: function (newValue) { value = newValue; writes.changed = true; }\n"
+        + "        });\n"
+        + "    }\n"
+        + "})");
+
     private final AbstractTask task;
 
     private int lastKnownIndex;
@@ -50,6 +85,9 @@ public final class ScriptImpl extends DocumentWorkerObjectImpl implements Script
     private AbstractScriptSpec scriptSpec;
     private boolean isInstalled;
     private Bindings loadedScriptBindings;
+    private Value[] eventHandlers;
+    private Value handlerWrites;
+    private int handlerMask;
 
     public ScriptImpl(
         final ApplicationImpl application,
@@ -63,6 +101,9 @@ public final class ScriptImpl extends DocumentWorkerObjectImpl implements Script
         this.scriptSpec = null;
         this.isInstalled = false;
         this.loadedScriptBindings = null;
+        this.eventHandlers = null;
+        this.handlerWrites = null;
+        this.handlerMask = 0;
     }
 
     public ScriptImpl(
@@ -167,11 +208,18 @@ public final class ScriptImpl extends DocumentWorkerObjectImpl implements Script
             // Execute the script in the new context created for it
             scriptObjectCode.eval(newGlobal);
 
+            // Watch for the script assigning event handlers after it has been loaded
+            handlerWrites = watchHandlerWrites(newGlobal);
+
         } catch (final Exception ex) {
             // If there is an exception then unload the script before propagating the exception
+            handlerWrites = null;
             unloadScriptBindings();
             throw ex;
         }
+
+        // Look up the event handlers that the script defines
+        resolveEventHandlers();
     }
 
     @Override
@@ -223,6 +271,13 @@ public final class ScriptImpl extends DocumentWorkerObjectImpl implements Script
     public void unload()
     {
         unloadScriptBindings();
+
+        eventHandlers = null;
+        handlerWrites = null;
+        if (handlerMask != 0) {
+            handlerMask = 0;
+            task.getScripts().updateHandlerMask();
+        }
     }
 
     private void unloadScriptBindings() {
@@ -238,6 +293,54 @@ public final class ScriptImpl extends DocumentWorkerObjectImpl implements Script
         loadedScriptBindings = null;
     }
 
+    /**
+     * Returns a mask of the events that the script handles, as a combination of {@link ScriptEvent#getMask()} values.
+     *
+     * @return the mask of the handled events, which is zero if the script is not loaded
+     */
+    public int getHandlerMask()
+    {
+        return handlerMask;
+    }
+
+    @Override
+    public void refreshHandlers()
+    {
+        resolveEventHandlers();
+    }
+
+    /**
+     * Looks up the loaded script's event handlers, and updates the task's aggregate mask if the events handled have changed.
+     * <p>
+     * This is done when the script is loaded, after any of its event handlers assigns one of the event handler globals, and when the
+     * script asks for it to be done. Otherwise the handlers that were looked up before are used.
+     */
+    private void resolveEventHandlers()
+    {
+        final Bindings bindings = loadedScriptBindings;
+        if (bindings == null) {
+            return;
+        }
+
+        final ScriptEvent[] events = ScriptEvent.getAll();
+        final Value[] newEventHandlers = new Value[events.length];
+        int newHandlerMask = 0;
+
+        for (final ScriptEvent event : events) {
+            final Value eventHandler = getEventHandler(bindings.get(event.getHandlerName()));
+            if (eventHandler != null) {
+                newEventHandlers[event.ordinal()] = eventHandler;
+                newHandlerMask |= event.getMask();
+            }
+        }
+
+        eventHandlers = newEventHandlers;
+        if (newHandlerMask != handlerMask) {
+            handlerMask = newHandlerMask;
+            task.getScripts().updateHandlerMask();
+        }
+    }
+
     /**
      * Raises the specified event in this script if it is currently loaded.
      * <p>
@@ -246,37 +349,67 @@ public final class ScriptImpl extends DocumentWorkerObjectImpl implements Script
      * @param event the event to raise
      * @param args the arguments to be passed to the event
      */
-    public void raiseEvent(final String event, final Object... args)
+    public void raiseEvent(final ScriptEvent event, final Object... args)
     {
-        // Check that the script is loaded
-        final Bindings bindings = loadedScriptBindings;
-        if (bindings == null) {
+        // Check that the script is loaded and has a handler for the event
+        if ((handlerMask & event.getMask()) == 0) {
             return;
         }
 
-        // Check if there is a JavaScript function event handler for the event
-        final Object eventHandler = bindings.get(event);
-        if (scriptSpec.getEngineType() == ScriptEngineType.GRAAL_JS) {
-            graalHandleEvent(eventHandler, args);
-        } else {
+        final Value eventHandler = eventHandlers[event.ordinal()];
+        if (scriptSpec.getEngineType() != ScriptEngineType.GRAAL_JS) {
             throw new RuntimeException("Logic error: The scripting engine is not recognized.");
         }
+
+        try {
+            graalHandleEvent(eventHandler, args);
+        } finally {
+            // The handler may have defined or removed event handlers
+            if (takeHandlerWrites()) {
+                resolveEventHandlers();
+            }
+        }
     }
 
-    private static void graalHandleEvent(final Object eventHandler, final Object[] args)
+    @Nonnull
+    private static Value watchHandlerWrites(final Bindings bindings)
+    {
+        return Value.asValue(bindings.get("globalThis")).getContext()
+            .eval(WATCH_HANDLER_WRITES)
+            .execute((Object) HANDLER_NAMES);
+    }
+
+    /**
+     * Returns whether the script has assigned any of its event handler globals since this was last called.
+     */
+    private boolean takeHandlerWrites()
+    {
+        final Value writes = handlerWrites;
+        if (writes == null || !writes.getMember("changed").asBoolean()) {
+            return false;
+        }
+
+        writes.putMember("changed", false);
+        return true;
+    }
+
+    private static Value getEventHandler(final Object eventHandler)
     {
         if (!(eventHandler instanceof Function)) {
-            return;
+            return null;
         }
 
         final Value jsEventHandler = Value.asValue(eventHandler);
-        if (!jsEventHandler.canExecute()) {
-            return;
-        }
+        return jsEventHandler.canExecute()
+            ? jsEventHandler
+            : null;
+    }
 
+    private static void graalHandleEvent(final Value eventHandler, final Object[] args)
+    {
         // Call the JavaScript function with the specified arguments
         // Graal automatically wraps checked exceptions in a PolyglotException
-        jsEventHandler.executeVoid(args);
+        eventHandler.executeVoid(args);
     }
 
     public boolean shouldIncludeInResponse()
@@ -20,6 +20,7 @@ import com.hpe.caf.worker.document.exceptions.InvalidScriptException;
 import com.hpe.caf.worker.document.model.Script;
 import com.hpe.caf.worker.document.model.Scripts;
 import com.hpe.caf.worker.document.model.Task;
+import com.hpe.caf.worker.document.scripting.events.ScriptEvent;
 import com.hpe.caf.worker.document.tasks.AbstractTask;
 import jakarta.annotation.Nonnull;
 import java.util.ArrayList;
@@ -37,6 +38,8 @@ public final class ScriptsImpl extends DocumentWorkerObjectImpl implements Scrip
 
     private final ArrayList<ScriptImpl> scripts;
 
+    private int handlerMask;
+
     public ScriptsImpl(
         final ApplicationImpl application,
         final AbstractTask task
@@ -45,6 +48,7 @@ public final class ScriptsImpl extends DocumentWorkerObjectImpl implements Scrip
         super(application);
         this.task = Objects.requireNonNull(task);
         this.scripts = createEmptyScriptList();
+        this.handlerMask = 0;
     }
 
     public ScriptsImpl(
@@ -56,6 +60,7 @@ public final class ScriptsImpl extends DocumentWorkerObjectImpl implements Scrip
         super(application);
         this.task = Objects.requireNonNull(task);
         this.scripts = createScriptList(application, task, scripts);
+        this.handlerMask = 0;
     }
 
     @Nonnull
@@ -168,6 +173,30 @@ public final class ScriptsImpl extends DocumentWorkerObjectImpl implements Scrip
         scripts.forEach(Script::unload);
     }
 
+    /**
+     * Returns whether any of the loaded scripts has a handler for the specified event.
+     *
+     * @param event the event to check for
+     * @return true if raising the event would call at least one event handler
+     */
+    public boolean hasHandler(final ScriptEvent event)
+    {
+        return (handlerMask & event.getMask()) != 0;
+    }
+
+    /**
+     * Recalculates the aggregate mask of the events handled by the loaded scripts. This is called by the scripts when they are loaded
+     * or unloaded, or when the events that they handle change.
+     */
+    public void updateHandlerMask()
+    {
+        int newHandlerMask = 0;
+        for (final ScriptImpl script : scripts) {
+            newHandlerMask |= script.getHandlerMask();
+        }
+        handlerMask = newHandlerMask;
+    }
+
     /**
      * Raises the specified event in all loaded scripts.
      *
@@ -175,7 +204,7 @@ public final class ScriptsImpl extends DocumentWorkerObjectImpl implements Scrip
      * @param useReverseOrder controls the order in which the loaded scripts are called
      * @param args the arguments to be passed to the specified event
      */
-    public void raiseEvent(final String event, final boolean useReverseOrder, final Object... args)
+    public void raiseEvent(final ScriptEvent event, final boolean useReverseOrder, final Object... args)
     {
         raiseEventUntil(event, useReverseOrder, () -> false, args);
     }
@@ -188,7 +217,7 @@ public final class ScriptsImpl extends DocumentWorkerObjectImpl implements Scrip
      * @param condition a condition which causes the event to stop being raised in the remaining scripts
      * @param args the arguments to be passed to the specified event
      */
-    public void raiseEventUntil(final String event, final boolean useReverseOrder, final BooleanSupplier condition, final Object... args)
+    public void raiseEventUntil(final ScriptEvent event, final boolean useReverseOrder, final BooleanSupplier condition, final Object... args)
     {
         final Consumer<ScriptImpl> raiseEventAction = script -> {
             script.raiseEvent(event, args);
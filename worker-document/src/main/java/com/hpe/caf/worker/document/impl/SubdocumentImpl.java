@@ -48,7 +48,7 @@ public final class SubdocumentImpl extends DocumentImpl implements Subdocument
     @Override
     public Document getRootDocument()
     {
-        return super.getTask().getDocument();
+        return parent.getDocument().getRootDocument();
     }
 
     @Override
@@ -23,6 +23,7 @@ import com.hpe.caf.worker.document.DocumentWorkerFieldChanges;
 import com.hpe.caf.worker.document.DocumentWorkerFieldValue;
 import jakarta.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -54,57 +55,7 @@ public class ChangeLogBuilder implements ChangesJournal
     @Override
     public void addFieldChanges(final Map<String, DocumentWorkerFieldChanges> fieldChangesMap)
     {
-        // Just return if there are no changes
-        if (fieldChangesMap == null || fieldChangesMap.isEmpty()) {
-            return;
-        }
-
-        // Split out the fields between those to be added, removed, and updated
-        final Map<String, List<DocumentWorkerFieldValue>> addFields = new HashMap<>();
-        final Map<String, List<DocumentWorkerFieldValue>> setFields = new HashMap<>();
-        final List<String> removeFields = new ArrayList<>();
-
-        for (final Map.Entry<String, DocumentWorkerFieldChanges> fieldChangesEntry : fieldChangesMap.entrySet()) {
-            final String fieldName = fieldChangesEntry.getKey();
-            final DocumentWorkerFieldChanges fieldChanges = fieldChangesEntry.getValue();
-            final DocumentWorkerAction action = nullToAdd(fieldChanges.action);
-            final List<DocumentWorkerFieldValue> values = fieldChanges.values;
-            final boolean hasValues = (values != null) && (!values.isEmpty());
-
-            switch (action) {
-                case add:
-                    if (hasValues) {
-                        addFields.put(fieldName, values);
-                    }
-                    break;
-                case replace:
-                    if (hasValues) {
-                        setFields.put(fieldName, values);
-                    } else {
-                        removeFields.add(fieldName);
-                    }
-                    break;
-                default:
-                    throw new RuntimeException("Logical error: the action is not recognised");
-            }
-        }
-
-        // Add change objects for each type of field change
-        if (!removeFields.isEmpty()) {
-            final DocumentWorkerChange change = new DocumentWorkerChange();
-            change.removeFields = removeFields;
-            changeSuppliers.add(() -> change);
-        }
-
-        if (!addFields.isEmpty()) {
-            final DocumentWorkerChange change = new DocumentWorkerChange();
-            change.addFields = addFields;
-            changeSuppliers.add(() -> change);
-        }
-
-        if (!setFields.isEmpty()) {
-            final DocumentWorkerChange change = new DocumentWorkerChange();
-            change.setFields = setFields;
+        for (final DocumentWorkerChange change : createFieldChanges(fieldChangesMap)) {
             changeSuppliers.add(() -> change);
         }
     }
@@ -203,6 +154,74 @@ public class ChangeLogBuilder implements ChangesJournal
             .collect(Collectors.toList());
     }
 
+    /**
+     * Converts the specified field changes into the change log changes that represent them.
+     *
+     * @param fieldChangesMap the changes made to each of the fields
+     * @return the changes to add to the change log, in the order that they should be added
+     */
+    @Nonnull
+    static List<DocumentWorkerChange> createFieldChanges(final Map<String, DocumentWorkerFieldChanges> fieldChangesMap)
+    {
+        // Just return if there are no changes
+        if (fieldChangesMap == null || fieldChangesMap.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Split out the fields between those to be added, removed, and updated
+        final Map<String, List<DocumentWorkerFieldValue>> addFields = new HashMap<>();
+        final Map<String, List<DocumentWorkerFieldValue>> setFields = new HashMap<>();
+        final List<String> removeFields = new ArrayList<>();
+
+        for (final Map.Entry<String, DocumentWorkerFieldChanges> fieldChangesEntry : fieldChangesMap.entrySet()) {
+            final String fieldName = fieldChangesEntry.getKey();
+            final DocumentWorkerFieldChanges fieldChanges = fieldChangesEntry.getValue();
+            final DocumentWorkerAction action = nullToAdd(fieldChanges.action);
+            final List<DocumentWorkerFieldValue> values = fieldChanges.values;
+            final boolean hasValues = (values != null) && (!values.isEmpty());
+
+            switch (action) {
+                case add:
+                    if (hasValues) {
+                        addFields.put(fieldName, values);
+                    }
+                    break;
+                case replace:
+                    if (hasValues) {
+                        setFields.put(fieldName, values);
+                    } else {
+                        removeFields.add(fieldName);
+                    }
+                    break;
+                default:
+                    throw new RuntimeException("Logical error: the action is not recognised");
+            }
+        }
+
+        // Add change objects for each type of field change
+        final List<DocumentWorkerChange> changes = new ArrayList<>(3);
+
+        if (!removeFields.isEmpty()) {
+            final DocumentWorkerChange change = new DocumentWorkerChange();
+            change.removeFields = removeFields;
+            changes.add(change);
+        }
+
+        if (!addFields.isEmpty()) {
+            final DocumentWorkerChange change = new DocumentWorkerChange();
+            change.addFields = addFields;
+            changes.add(change);
+        }
+
+        if (!setFields.isEmpty()) {
+            final DocumentWorkerChange change = new DocumentWorkerChange();
+            change.setFields = setFields;
+            changes.add(change);
+        }
+
+        return changes;
+    }
+
     private static DocumentWorkerAction nullToAdd(final DocumentWorkerAction action)
     {
         return (action != null) ? action : DocumentWorkerAction.add;
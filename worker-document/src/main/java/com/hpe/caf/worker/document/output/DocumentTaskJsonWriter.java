@@ -0,0 +1,270 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.output;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.hpe.caf.worker.document.DocumentWorkerChange;
+import com.hpe.caf.worker.document.DocumentWorkerChangeLogEntry;
+import com.hpe.caf.worker.document.DocumentWorkerDocument;
+import com.hpe.caf.worker.document.DocumentWorkerScript;
+import com.hpe.caf.worker.document.converters.RawFieldValueList;
+import com.hpe.caf.worker.document.converters.RawJson;
+import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a document task result message as JSON directly into a pooled buffer.
+ * <p>
+ * The parts of the message are written in the order in which they appear in the message. The new change log entry is written by
+ * passing the journal returned from {@link #startChangeLogEntry} to the document's {@code recordChanges()} method, so the changes are
+ * written as they are recorded rather than first being collected into a change log. The output is identical to serialising the
+ * equivalent {@code DocumentWorkerDocumentTask} object using the JSON codec, except that field values which were not decoded from the
+ * input message are copied to the output as they were received. The base document and the existing change log entries can also be
+ * supplied in their encoded form, in which case they are copied to the output without being encoded again.
+ */
+public final class DocumentTaskJsonWriter implements AutoCloseable
+{
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .registerModule(new SimpleModule().addSerializer(RawFieldValueList.class, new RawFieldValueListSerializer()));
+
+    private static final ObjectWriter DOCUMENT_WRITER = MAPPER.writerFor(DocumentWorkerDocument.class);
+    private static final ObjectWriter CHANGE_LOG_ENTRY_WRITER = MAPPER.writerFor(DocumentWorkerChangeLogEntry.class);
+    private static final ObjectWriter CHANGE_WRITER = MAPPER.writerFor(DocumentWorkerChange.class);
+
+    private final ResponseBuffer buffer;
+    private final JsonGenerator generator;
+    private JsonChangesJournal changeLogEntryJournal;
+
+    public DocumentTaskJsonWriter() throws IOException
+    {
+        this.buffer = ResponseBuffer.acquire();
+        this.generator = MAPPER.getFactory().createGenerator(buffer, JsonEncoding.UTF8)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.changeLogEntryJournal = null;
+
+        generator.writeStartObject();
+    }
+
+    /**
+     * Writes the base document of the task.
+     *
+     * @param document the document, or null to omit it
+     * @throws IOException if the document could not be written
+     */
+    public void writeDocument(final DocumentWorkerDocument document) throws IOException
+    {
+        if (document != null) {
+            generator.writeFieldName("document");
+            DOCUMENT_WRITER.writeValue(generator, document);
+        }
+    }
+
+    /**
+     * Writes the base document of the task in the form that it was received in.
+     *
+     * @param encodedDocument the encoded document
+     * @throws IOException if the document could not be written
+     */
+    public void writeDocument(@Nonnull final RawJson encodedDocument) throws IOException
+    {
+        generator.writeFieldName("document");
+        writeRawValue(encodedDocument);
+    }
+
+    /**
+     * Starts the change log, writing the entries which were already present, and then starts a new entry.
+     *
+     * @param changeLog the existing change log entries, which may be null
+     * @param name the name of the new change log entry
+     * @return the journal which the changes of the new entry should be recorded into
+     * @throws IOException if the change log could not be written
+     */
+    @Nonnull
+    public ChangesJournal startChangeLogEntry(final List<DocumentWorkerChangeLogEntry> changeLog, final String name)
+        throws IOException
+    {
+        startChangeLog();
+
+        if (changeLog != null) {
+            for (final DocumentWorkerChangeLogEntry changeLogEntry : changeLog) {
+                CHANGE_LOG_ENTRY_WRITER.writeValue(generator, changeLogEntry);
+            }
+        }
+
+        return startNewChangeLogEntry(name);
+    }
+
+    /**
+     * Starts the change log, copying the entries which were already present in the form that they were received in, and then starts a
+     * new entry.
+     *
+     * @param encodedChangeLogEntries the existing change log entries without the enclosing brackets, or null if there are none
+     * @param name the name of the new change log entry
+     * @return the journal which the changes of the new entry should be recorded into
+     * @throws IOException if the change log could not be written
+     */
+    @Nonnull
+    public ChangesJournal startChangeLogEntry(final RawJson encodedChangeLogEntries, final String name) throws IOException
+    {
+        startChangeLog();
+
+        // The entries are written as a single raw value so that the generator adds the separator before the new entry
+        if (encodedChangeLogEntries != null) {
+            writeRawValue(encodedChangeLogEntries);
+        }
+
+        return startNewChangeLogEntry(name);
+    }
+
+    /**
+     * Copies an encoded value straight into the buffer. The generator would take a copy of any value which does not fit into its own
+     * buffer, so it is only used to write the separator before the value, and is then flushed so that the value can follow it.
+     */
+    private void writeRawValue(final RawJson value) throws IOException
+    {
+        generator.writeRawValue("");
+        generator.flush();
+        value.writeUnquotedUTF8(buffer);
+    }
+
+    private void startChangeLog() throws IOException
+    {
+        if (changeLogEntryJournal != null) {
+            throw new IllegalStateException("The change log entry has already been started");
+        }
+
+        generator.writeFieldName("changeLog");
+        generator.writeStartArray();
+    }
+
+    @Nonnull
+    private ChangesJournal startNewChangeLogEntry(final String name) throws IOException
+    {
+        generator.writeStartObject();
+        if (name != null) {
+            generator.writeStringField("name", name);
+        }
+
+        changeLogEntryJournal = new JsonChangesJournal(generator, CHANGE_WRITER);
+        return changeLogEntryJournal;
+    }
+
+    /**
+     * Completes the new change log entry and the change log.
+     *
+     * @return true if the changes recorded into the new entry include any failures
+     * @throws IOException if the change log could not be written
+     */
+    public boolean endChangeLogEntry() throws IOException
+    {
+        if (changeLogEntryJournal == null) {
+            throw new IllegalStateException("The change log entry has not been started");
+        }
+
+        changeLogEntryJournal.finish();
+
+        generator.writeEndObject();
+        generator.writeEndArray();
+
+        return changeLogEntryJournal.hasFailures();
+    }
+
+    /**
+     * Writes the custom data of the response.
+     *
+     * @param customData the custom data, or null to omit it
+     * @throws IOException if the custom data could not be written
+     */
+    public void writeCustomData(final Map<String, String> customData) throws IOException
+    {
+        if (customData != null) {
+            generator.writeFieldName("customData");
+            MAPPER.writeValue(generator, customData);
+        }
+    }
+
+    /**
+     * Writes the scripts to be included in the response.
+     *
+     * @param scripts the scripts, or null to omit them
+     * @throws IOException if the scripts could not be written
+     */
+    public void writeScripts(final List<DocumentWorkerScript> scripts) throws IOException
+    {
+        if (scripts != null) {
+            generator.writeFieldName("scripts");
+            MAPPER.writeValue(generator, scripts);
+        }
+    }
+
+    /**
+     * Completes the message and returns it.
+     *
+     * @return the encoded message
+     * @throws IOException if the message could not be completed
+     */
+    @Nonnull
+    public byte[] toByteArray() throws IOException
+    {
+        generator.writeEndObject();
+        generator.flush();
+
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Releases the buffer which the message was written to.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try {
+            generator.close();
+        } finally {
+            buffer.close();
+        }
+    }
+
+    /**
+     * Copies field values which have not been decoded straight to the output.
+     */
+    private static final class RawFieldValueListSerializer extends StdSerializer<RawFieldValueList>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public RawFieldValueListSerializer()
+        {
+            super(RawFieldValueList.class);
+        }
+
+        @Override
+        public void serialize(final RawFieldValueList value, final JsonGenerator gen, final SerializerProvider provider)
+            throws IOException
+        {
+            value.writeTo(gen);
+        }
+    }
+}
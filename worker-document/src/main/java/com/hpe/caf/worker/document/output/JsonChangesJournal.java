@@ -0,0 +1,289 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.output;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hpe.caf.worker.document.DocumentWorkerChange;
+import com.hpe.caf.worker.document.DocumentWorkerDocument;
+import com.hpe.caf.worker.document.DocumentWorkerFailure;
+import com.hpe.caf.worker.document.DocumentWorkerFieldChanges;
+import com.hpe.caf.worker.document.changelog.ChangeLogFunctions;
+import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes the changes directly to a JSON generator as they are recorded, producing the same output as serialising the changes
+ * collected by a {@link ChangeLogBuilder}.
+ * <p>
+ * The opening of the changes array, and of an {@code updateSubdocument} change, is deferred until the first change is written to it,
+ * so that nothing is written for subdocuments which have not been changed. Failure changes are held back until another type of change
+ * is recorded so that they can still be replaced by a call to {@link #setFailures}.
+ */
+final class JsonChangesJournal implements ChangesJournal
+{
+    private final JsonGenerator generator;
+    private final ObjectWriter changeWriter;
+    private final JsonChangesJournal parent;
+    private final int subdocumentIndex;
+    private final String subdocumentReference;
+
+    private final List<DocumentWorkerChange> pendingFailureChanges;
+    private boolean hasWrittenFailureChanges;
+    private boolean hasDirectFailures;
+    private boolean hasSubdocumentFailures;
+    private boolean isStarted;
+    private boolean isFinished;
+    private JsonChangesJournal openSubdocumentJournal;
+
+    public JsonChangesJournal(final JsonGenerator generator, final ObjectWriter changeWriter)
+    {
+        this(generator, changeWriter, null, 0, null);
+    }
+
+    private JsonChangesJournal(
+        final JsonGenerator generator,
+        final ObjectWriter changeWriter,
+        final JsonChangesJournal parent,
+        final int subdocumentIndex,
+        final String subdocumentReference
+    )
+    {
+        this.generator = Objects.requireNonNull(generator);
+        this.changeWriter = Objects.requireNonNull(changeWriter);
+        this.parent = parent;
+        this.subdocumentIndex = subdocumentIndex;
+        this.subdocumentReference = subdocumentReference;
+        this.pendingFailureChanges = new ArrayList<>(0);
+    }
+
+    @Override
+    public void setReference(final String reference)
+    {
+        final DocumentWorkerChange change = new DocumentWorkerChange();
+        change.setReference = new DocumentWorkerChange.SetReferenceParams();
+        change.setReference.value = reference;
+
+        writeChange(change);
+    }
+
+    @Override
+    public void addFieldChanges(final Map<String, DocumentWorkerFieldChanges> fieldChangesMap)
+    {
+        for (final DocumentWorkerChange change : ChangeLogBuilder.createFieldChanges(fieldChangesMap)) {
+            writeChange(change);
+        }
+    }
+
+    @Override
+    public void addFailure(final DocumentWorkerFailure failure)
+    {
+        final DocumentWorkerChange change = new DocumentWorkerChange();
+        change.addFailure = failure;
+
+        addFailureChange(change);
+        hasDirectFailures = true;
+    }
+
+    @Override
+    public void addFailures(final Iterable<DocumentWorkerFailure> failures)
+    {
+        if (failures != null) {
+            for (final DocumentWorkerFailure failure : failures) {
+                addFailure(failure);
+            }
+        }
+    }
+
+    @Override
+    public void setFailures(final List<DocumentWorkerFailure> failures)
+    {
+        Objects.requireNonNull(failures);
+
+        // Any failures already written out can no longer be removed
+        if (hasWrittenFailureChanges) {
+            throw new IllegalStateException("The failures cannot be set after other changes have been recorded following failures");
+        }
+
+        pendingFailureChanges.clear();
+
+        final DocumentWorkerChange change = new DocumentWorkerChange();
+        change.setFailures = failures;
+
+        addFailureChange(change);
+        hasDirectFailures = !failures.isEmpty();
+    }
+
+    @Override
+    public void addSubdocument(final DocumentWorkerDocument subdocument)
+    {
+        final DocumentWorkerChange change = new DocumentWorkerChange();
+        change.addSubdocument = subdocument;
+
+        writeChange(change);
+
+        if (ChangeLogFunctions.hasFailures(Collections.singletonList(change))) {
+            hasSubdocumentFailures = true;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public ChangesJournal updateSubdocument(final int index, final String reference)
+    {
+        prepareToWrite();
+
+        final JsonChangesJournal subdocumentJournal = new JsonChangesJournal(generator, changeWriter, this, index, reference);
+        openSubdocumentJournal = subdocumentJournal;
+
+        return subdocumentJournal;
+    }
+
+    @Override
+    public void removeSubdocument(final int index, final String reference)
+    {
+        final DocumentWorkerChange change = new DocumentWorkerChange();
+        change.removeSubdocument = new DocumentWorkerChange.RemoveSubdocumentParams();
+        change.removeSubdocument.index = index;
+        change.removeSubdocument.reference = reference;
+
+        writeChange(change);
+    }
+
+    /**
+     * Writes out any changes which are still being held back and closes the changes array if it was opened.
+     *
+     * @return true if any changes were written
+     */
+    public boolean finish()
+    {
+        if (!isFinished) {
+            prepareToWrite();
+            isFinished = true;
+
+            if (isStarted) {
+                try {
+                    generator.writeEndArray();
+                    if (parent != null) {
+                        generator.writeEndObject();
+                        generator.writeEndObject();
+                    }
+                } catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+
+        return isStarted;
+    }
+
+    /**
+     * Returns whether the recorded changes include any failures, using the same rules as {@link ChangeLogFunctions#hasFailures}.
+     *
+     * @return true if the changes add any failures
+     */
+    public boolean hasFailures()
+    {
+        return hasDirectFailures || hasSubdocumentFailures;
+    }
+
+    private void addFailureChange(final DocumentWorkerChange change)
+    {
+        checkNotFinished();
+        closeOpenSubdocumentJournal();
+        pendingFailureChanges.add(change);
+    }
+
+    private void writeChange(final DocumentWorkerChange change)
+    {
+        prepareToWrite();
+        writeChangeImpl(change);
+    }
+
+    private void prepareToWrite()
+    {
+        checkNotFinished();
+        closeOpenSubdocumentJournal();
+
+        if (!pendingFailureChanges.isEmpty()) {
+            for (final DocumentWorkerChange failureChange : pendingFailureChanges) {
+                writeChangeImpl(failureChange);
+            }
+            pendingFailureChanges.clear();
+            hasWrittenFailureChanges = true;
+        }
+    }
+
+    private void writeChangeImpl(final DocumentWorkerChange change)
+    {
+        try {
+            start();
+            changeWriter.writeValue(generator, change);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void start() throws IOException
+    {
+        if (isStarted) {
+            return;
+        }
+
+        if (parent == null) {
+            generator.writeFieldName("changes");
+        } else {
+            parent.start();
+            generator.writeStartObject();
+            generator.writeFieldName("updateSubdocument");
+            generator.writeStartObject();
+            generator.writeNumberField("index", subdocumentIndex);
+            if (subdocumentReference != null) {
+                generator.writeStringField("reference", subdocumentReference);
+            }
+            generator.writeFieldName("changes");
+        }
+
+        generator.writeStartArray();
+        isStarted = true;
+    }
+
+    private void closeOpenSubdocumentJournal()
+    {
+        final JsonChangesJournal subdocumentJournal = openSubdocumentJournal;
+        if (subdocumentJournal != null) {
+            openSubdocumentJournal = null;
+            subdocumentJournal.finish();
+
+            if (subdocumentJournal.hasFailures()) {
+                hasSubdocumentFailures = true;
+            }
+        }
+    }
+
+    private void checkNotFinished()
+    {
+        if (isFinished) {
+            throw new IllegalStateException("The journal has been finished");
+        }
+    }
+}
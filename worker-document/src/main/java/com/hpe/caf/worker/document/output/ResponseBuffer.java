@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.output;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable in-memory output stream whose backing array is returned to a per-thread pool when it is closed, so that the next
+ * response which is written on the same thread can reuse it rather than growing a new array from scratch.
+ */
+final class ResponseBuffer extends OutputStream
+{
+    private static final int INITIAL_CAPACITY = 8192;
+
+    /**
+     * Arrays larger than this are not kept after use so that occasional very large responses do not pin memory.
+     */
+    private static final int MAXIMUM_POOLED_CAPACITY = 4 * 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> POOL = new ThreadLocal<>();
+
+    private byte[] buffer;
+    private int count;
+
+    private ResponseBuffer(final byte[] buffer)
+    {
+        this.buffer = buffer;
+        this.count = 0;
+    }
+
+    /**
+     * Creates a buffer, reusing the array that was last released on the current thread if there is one.
+     *
+     * @return an empty buffer
+     */
+    public static ResponseBuffer acquire()
+    {
+        final byte[] pooledBuffer = POOL.get();
+        if (pooledBuffer == null) {
+            return new ResponseBuffer(new byte[INITIAL_CAPACITY]);
+        }
+
+        POOL.remove();
+        return new ResponseBuffer(pooledBuffer);
+    }
+
+    @Override
+    public void write(final int b)
+    {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len)
+    {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Returns a copy of the bytes that have been written.
+     *
+     * @return an array containing exactly the bytes written to the buffer
+     */
+    public byte[] toByteArray()
+    {
+        return Arrays.copyOf(getBuffer(), count);
+    }
+
+    /**
+     * Releases the backing array back to the pool. The buffer must not be used after it has been closed.
+     */
+    @Override
+    public void close()
+    {
+        final byte[] releasedBuffer = buffer;
+        if (releasedBuffer != null) {
+            buffer = null;
+            if (releasedBuffer.length <= MAXIMUM_POOLED_CAPACITY) {
+                POOL.set(releasedBuffer);
+            }
+        }
+    }
+
+    private void ensureCapacity(final int minCapacity)
+    {
+        final byte[] currentBuffer = getBuffer();
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Response too large");
+        }
+        if (minCapacity > currentBuffer.length) {
+            final int newCapacity = Math.max(minCapacity, currentBuffer.length << 1);
+            buffer = Arrays.copyOf(currentBuffer, newCapacity < 0 ? Integer.MAX_VALUE - 8 : newCapacity);
+        }
+    }
+
+    private byte[] getBuffer()
+    {
+        if (buffer == null) {
+            throw new IllegalStateException("The buffer has been closed");
+        }
+        return buffer;
+    }
+}
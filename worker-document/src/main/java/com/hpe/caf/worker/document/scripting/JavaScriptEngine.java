@@ -18,39 +18,80 @@ package com.hpe.caf.worker.document.scripting;
 import com.hpe.caf.worker.document.scripting.specs.AbstractScriptSpec;
 import com.oracle.truffle.js.scriptengine.GraalJSScriptEngine;
 import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import javax.script.Bindings;
-import javax.script.Compilable;
 import javax.script.CompiledScript;
-import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.HostAccess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public final class JavaScriptEngine implements ObjectCodeProvider
+public final class JavaScriptEngine implements ObjectCodeProvider, AutoCloseable
 {
+    private static final Logger LOG = LoggerFactory.getLogger(JavaScriptEngine.class);
+
+    private static final String CODE_CACHE_FILE_NAME = "scripts.cache";
+
+    private final Engine engine;
     private final ScriptEngine scriptEngine;
-    private final Bindings scriptEngineBindings;
-    private final Object scriptEngineBindingsLock;
+    private final ParseContextPool parseContexts;
 
-    public JavaScriptEngine()
+    public JavaScriptEngine(final Path codeCacheDirectory)
     {
-        this.scriptEngine = createScriptEngine();
-        this.scriptEngineBindings = scriptEngine.getBindings(ScriptContext.ENGINE_SCOPE);
-        this.scriptEngineBindingsLock = new Object();
+        this.engine = createEngine(codeCacheDirectory);
+        final Context.Builder contextBuilder = createContextBuilder();
+        // The script engine adds its own options and the engine to the context builder, so the builder then creates contexts that
+        // are configured in the same way as the script engine's contexts
+        this.scriptEngine = GraalJSScriptEngine.create(engine, contextBuilder);
+        this.parseContexts = new ParseContextPool(contextBuilder);
     }
 
+    /**
+     * Creates the polyglot engine that all script contexts run on, so that parsed and compiled code is shared between them.
+     * <p>
+     * If a code cache directory is specified then the engine code cache is loaded from it if it has previously been stored, and
+     * otherwise it is stored there when the engine is closed. Not all runtimes support persisting the code cache, so if the
+     * options are rejected then the engine is created without them.
+     */
     @Nonnull
-    private static ScriptEngine createScriptEngine()
+    private static Engine createEngine(final Path codeCacheDirectory)
     {
-        return GraalJSScriptEngine.create(
-            null,
-            Context.newBuilder("js")
-                .allowExperimentalOptions(true) // Needed for loading from classpath
-                .allowHostAccess(HostAccess.ALL) // Allow JS access to public Java methods/members
-                .allowHostClassLookup(s -> true) // Allow JS access to public Java classes
-                .option("js.load-from-classpath", "true")
-        );
+        final Engine.Builder engineBuilder = Engine.newBuilder()
+            .allowExperimentalOptions(true);
+
+        if (codeCacheDirectory == null) {
+            return engineBuilder.build();
+        }
+
+        final Path codeCacheFile = codeCacheDirectory.resolve(CODE_CACHE_FILE_NAME);
+        try {
+            if (Files.exists(codeCacheFile)) {
+                LOG.info("Loading JavaScript code cache from {}", codeCacheFile);
+                engineBuilder.option("engine.CacheLoad", codeCacheFile.toString());
+            } else {
+                Files.createDirectories(codeCacheDirectory);
+                engineBuilder.option("engine.CacheStore", codeCacheFile.toString());
+            }
+            return engineBuilder.build();
+        } catch (final IOException | IllegalArgumentException ex) {
+            LOG.warn("Unable to use the JavaScript code cache directory {}; continuing without it", codeCacheDirectory, ex);
+            return createEngine(null);
+        }
+    }
+
+    @Nonnull
+    private static Context.Builder createContextBuilder()
+    {
+        return Context.newBuilder("js")
+            .allowExperimentalOptions(true) // Needed for loading from classpath
+            .allowHostAccess(HostAccess.ALL) // Allow JS access to public Java methods/members
+            .allowHostClassLookup(s -> true) // Allow JS access to public Java classes
+            .option("js.load-from-classpath", "true");
     }
 
     @Nonnull
@@ -63,25 +104,14 @@ public final class JavaScriptEngine implements ObjectCodeProvider
     @Override
     public CompiledScript getObjectCode(final String name, final AbstractScriptSpec scriptSpec) throws ScriptException
     {
-        // Synchronize compilations so that the correct filename is set whilst the compilation is occurring
-        synchronized (scriptEngineBindingsLock) {
-
-            // Set the name of the script to be compiled
-            // Unfortunately it seems that it has to be put into the script engine context
-            if (name != null) {
-                scriptEngineBindings.put(ScriptEngine.FILENAME, name);
-            }
-
-            try {
-                // Compile the script
-                return scriptSpec.compile((Compilable) scriptEngine);
+        return scriptSpec.compile(new NamedScriptCompiler(scriptEngine, parseContexts, name));
+    }
 
-            } finally {
-                // Reset the script name
-                if (name != null) {
-                    scriptEngineBindings.remove(ScriptEngine.FILENAME);
-                }
-            }
-        }
+    @Override
+    public void close()
+    {
+        parseContexts.close();
+        // Closing the engine stores the code cache if it is configured to, so any contexts still open are cancelled
+        engine.close(true);
     }
 }
@@ -19,17 +19,32 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.hpe.caf.worker.document.scripting.specs.AbstractScriptSpec;
 import jakarta.annotation.Nonnull;
+import java.nio.file.Path;
 import javax.script.Bindings;
 import javax.script.CompiledScript;
 import javax.script.ScriptException;
 
-public final class JavaScriptEngineLazy implements ObjectCodeProvider
+public final class JavaScriptEngineLazy implements ObjectCodeProvider, AutoCloseable
 {
     private final Supplier<JavaScriptEngine> scriptEngine;
+    private volatile JavaScriptEngine createdScriptEngine;
 
-    public JavaScriptEngineLazy()
+    public JavaScriptEngineLazy(final Path codeCacheDirectory)
     {
-        this.scriptEngine = Suppliers.memoize(JavaScriptEngine::new);
+        this.scriptEngine = Suppliers.memoize(() -> {
+            final JavaScriptEngine newScriptEngine = new JavaScriptEngine(codeCacheDirectory);
+            createdScriptEngine = newScriptEngine;
+            return newScriptEngine;
+        });
+        this.createdScriptEngine = null;
+    }
+
+    /**
+     * Creates the engine now rather than waiting until it is first needed.
+     */
+    public void initialize()
+    {
+        scriptEngine.get();
     }
 
     @Nonnull
@@ -44,4 +59,14 @@ public final class JavaScriptEngineLazy implements ObjectCodeProvider
     {
         return scriptEngine.get().getObjectCode(name, scriptSpec);
     }
+
+    @Override
+    public void close()
+    {
+        // Only close the engine if it has been created
+        final JavaScriptEngine engine = createdScriptEngine;
+        if (engine != null) {
+            engine.close();
+        }
+    }
 }
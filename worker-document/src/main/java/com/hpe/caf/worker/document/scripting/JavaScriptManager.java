@@ -15,38 +15,80 @@
  */
 package com.hpe.caf.worker.document.scripting;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hpe.caf.worker.document.config.ScriptCacheConfiguration;
 import com.hpe.caf.worker.document.config.ScriptCachingConfiguration;
 import com.hpe.caf.worker.document.model.ScriptEngineType;
 import com.hpe.caf.worker.document.scripting.specs.AbstractScriptSpec;
 import jakarta.annotation.Nonnull;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.script.Bindings;
 import javax.script.CompiledScript;
 import javax.script.ScriptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public final class JavaScriptManager implements ObjectCodeProvider
+public final class JavaScriptManager implements ObjectCodeProvider, AutoCloseable
 {
+    private static final Logger LOG = LoggerFactory.getLogger(JavaScriptManager.class);
+
     private static final long DEFAULT_SCRIPT_CACHE_SIZE = 50;
     private static final long DEFAULT_STATIC_SCRIPT_CACHE_DURATION = 30 * 60;   // 30 minutes
     private static final long DEFAULT_DYNAMIC_SCRIPT_CACHE_DURATION = 30 * 60;  // 30 minutes
+    private static final int DEFAULT_SCRIPT_CACHE_CONCURRENCY_LEVEL = 4;
 
     private final JavaScriptEngineLazy scriptEngine;
     private final ScriptCache staticScriptCache;
     private final ScriptCache dynamicScriptCache;
+    private final ScriptContentCache contentScriptCache;
+    private final ExecutorService scriptRefreshExecutor;
 
     public JavaScriptManager(final ScriptCachingConfiguration scriptCachingConfig)
     {
-        final JavaScriptEngineLazy javaScriptEngine = new JavaScriptEngineLazy();
+        final JavaScriptEngineLazy javaScriptEngine = new JavaScriptEngineLazy(getCodeCacheDirectory(scriptCachingConfig));
+
+        final ScriptCacheConfiguration contentScriptCacheConfig
+            = (scriptCachingConfig == null) ? null : scriptCachingConfig.getContentScriptCache();
+
+        // The content cache is optional, and if it is configured then it sits between the other caches and the engine
+        final ScriptContentCache contentScriptCache = (contentScriptCacheConfig == null)
+            ? null
+            : new ScriptContentCache(contentScriptCacheConfig, getDefaultContentScriptCacheConfig(), javaScriptEngine);
+        final ObjectCodeProvider compiler = (contentScriptCache == null)
+            ? javaScriptEngine
+            : contentScriptCache;
+
+        // Dynamic scripts are revalidated in the background, so that tasks continue to use the cached script while it is happening
+        final ExecutorService scriptRefreshExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("ScriptRefresh-%d")
+                .setDaemon(true)
+                .build());
 
         this.scriptEngine = javaScriptEngine;
         this.staticScriptCache = new ScriptCache(
             (scriptCachingConfig == null) ? null : scriptCachingConfig.getStaticScriptCache(),
             getDefaultStaticScriptCacheConfig(),
-            javaScriptEngine);
+            compiler);
         this.dynamicScriptCache = new ScriptCache(
             (scriptCachingConfig == null) ? null : scriptCachingConfig.getDynamicScriptCache(),
             getDefaultDynamicScriptCacheConfig(),
-            javaScriptEngine);
+            compiler,
+            scriptRefreshExecutor);
+        this.contentScriptCache = contentScriptCache;
+        this.scriptRefreshExecutor = scriptRefreshExecutor;
+    }
+
+    /**
+     * Creates the script engine now rather than waiting until the first script is loaded.
+     */
+    public void warmUpEngine()
+    {
+        scriptEngine.initialize();
     }
 
     @Nonnull
@@ -72,12 +114,68 @@ public final class JavaScriptManager implements ObjectCodeProvider
         return scriptCache.getObjectCode(name, scriptSpec);
     }
 
+    @Nonnull
+    public CacheStats getStaticScriptCacheStats()
+    {
+        return staticScriptCache.getStats();
+    }
+
+    @Nonnull
+    public CacheStats getDynamicScriptCacheStats()
+    {
+        return dynamicScriptCache.getStats();
+    }
+
+    /**
+     * Returns the statistics for the content script cache.
+     *
+     * @return the cache statistics, or {@code null} if the content script cache is not configured
+     */
+    public CacheStats getContentScriptCacheStats()
+    {
+        return (contentScriptCache == null)
+            ? null
+            : contentScriptCache.getStats();
+    }
+
+    @Override
+    public void close()
+    {
+        LOG.info("Static script cache statistics: {}", staticScriptCache.getStats());
+        LOG.info("Dynamic script cache statistics: {}", dynamicScriptCache.getStats());
+        if (contentScriptCache != null) {
+            LOG.info("Content script cache statistics: {}", contentScriptCache.getStats());
+        }
+        scriptRefreshExecutor.shutdown();
+        scriptEngine.close();
+    }
+
+    private static Path getCodeCacheDirectory(final ScriptCachingConfiguration scriptCachingConfig)
+    {
+        final String codeCacheDirectory = (scriptCachingConfig == null) ? null : scriptCachingConfig.getCodeCacheDirectory();
+
+        return (codeCacheDirectory == null || codeCacheDirectory.isEmpty())
+            ? null
+            : Paths.get(codeCacheDirectory);
+    }
+
     @Nonnull
     private static ScriptCacheConfiguration getDefaultStaticScriptCacheConfig()
     {
         final ScriptCacheConfiguration cacheConfig = new ScriptCacheConfiguration();
         cacheConfig.setMaximumSize(DEFAULT_SCRIPT_CACHE_SIZE);
         cacheConfig.setExpireAfterAccess(DEFAULT_STATIC_SCRIPT_CACHE_DURATION);
+        cacheConfig.setConcurrencyLevel(DEFAULT_SCRIPT_CACHE_CONCURRENCY_LEVEL);
+        return cacheConfig;
+    }
+
+    @Nonnull
+    private static ScriptCacheConfiguration getDefaultContentScriptCacheConfig()
+    {
+        final ScriptCacheConfiguration cacheConfig = new ScriptCacheConfiguration();
+        cacheConfig.setMaximumSize(DEFAULT_SCRIPT_CACHE_SIZE);
+        cacheConfig.setExpireAfterAccess(DEFAULT_STATIC_SCRIPT_CACHE_DURATION);
+        cacheConfig.setConcurrencyLevel(DEFAULT_SCRIPT_CACHE_CONCURRENCY_LEVEL);
         return cacheConfig;
     }
 
@@ -86,7 +184,9 @@ public final class JavaScriptManager implements ObjectCodeProvider
     {
         final ScriptCacheConfiguration cacheConfig = new ScriptCacheConfiguration();
         cacheConfig.setMaximumSize(DEFAULT_SCRIPT_CACHE_SIZE);
-        cacheConfig.setExpireAfterWrite(DEFAULT_DYNAMIC_SCRIPT_CACHE_DURATION);
+        cacheConfig.setRefreshAfterWrite(DEFAULT_DYNAMIC_SCRIPT_CACHE_DURATION);
+        cacheConfig.setExpireAfterAccess(DEFAULT_DYNAMIC_SCRIPT_CACHE_DURATION);
+        cacheConfig.setConcurrencyLevel(DEFAULT_SCRIPT_CACHE_CONCURRENCY_LEVEL);
         return cacheConfig;
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.scripting;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+/**
+ * A compiled script which is evaluated with its own name, without relying on the name being set in the script engine's bindings.
+ * <p>
+ * The source that was built when the script was compiled is evaluated directly in the polyglot context behind the bindings, so it
+ * is not rebuilt each time the script is evaluated, and the code that the engine parsed for it is reused.
+ */
+public final class NamedCompiledScript extends CompiledScript
+{
+    private final ScriptEngine scriptEngine;
+    private final String name;
+    private final Source source;
+
+    public NamedCompiledScript(final ScriptEngine scriptEngine, final String name, final Source source)
+    {
+        this.scriptEngine = scriptEngine;
+        this.name = name;
+        this.source = source;
+    }
+
+    @Override
+    public Object eval(final ScriptContext context) throws ScriptException
+    {
+        final Context polyglotContext = getPolyglotContext(context.getBindings(ScriptContext.ENGINE_SCOPE));
+        try {
+            return polyglotContext.eval(source).as(Object.class);
+        } catch (final PolyglotException ex) {
+            throw NamedScriptCompiler.toScriptException(ex, name);
+        }
+    }
+
+    @Override
+    public ScriptEngine getEngine()
+    {
+        return scriptEngine;
+    }
+
+    /**
+     * Gets the polyglot context that the bindings were created in, from the bindings' global object.
+     */
+    private static Context getPolyglotContext(final Bindings bindings)
+    {
+        return Value.asValue(bindings.get("globalThis")).getContext();
+    }
+}
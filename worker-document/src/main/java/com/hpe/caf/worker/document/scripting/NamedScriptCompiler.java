@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.scripting;
+
+import jakarta.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import org.apache.commons.io.IOUtils;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.SourceSection;
+
+/**
+ * Compiles a single named script.
+ * <p>
+ * The script name is passed with the script rather than through the script engine's bindings, and the syntax is checked in one of
+ * the shared engine's parse contexts rather than in the script engine's own context, so separate compilations can run concurrently.
+ */
+public final class NamedScriptCompiler implements Compilable
+{
+    private final ScriptEngine scriptEngine;
+    private final ParseContextPool parseContexts;
+    private final String name;
+
+    public NamedScriptCompiler(final ScriptEngine scriptEngine, final ParseContextPool parseContexts, final String name)
+    {
+        this.scriptEngine = scriptEngine;
+        this.parseContexts = parseContexts;
+        this.name = name;
+    }
+
+    @Nonnull
+    @Override
+    public CompiledScript compile(final String script) throws ScriptException
+    {
+        final Source source = createSource(script);
+        checkSyntax(source);
+        return new NamedCompiledScript(scriptEngine, name, source);
+    }
+
+    @Nonnull
+    @Override
+    public CompiledScript compile(final Reader script) throws ScriptException
+    {
+        final String scriptText;
+        try {
+            scriptText = IOUtils.toString(script);
+        } catch (final IOException ex) {
+            throw new ScriptException(ex);
+        }
+        return compile(scriptText);
+    }
+
+    /**
+     * Creates the source in the same way that the script engine does when the script is evaluated, so that the parsed source is
+     * shared with the contexts that the script is evaluated in.
+     */
+    @Nonnull
+    private Source createSource(final String script) throws ScriptException
+    {
+        if (name == null) {
+            return Source.newBuilder("js", script, "<eval>").buildLiteral();
+        }
+
+        try {
+            return Source.newBuilder("js", new File(name)).content(script).build();
+        } catch (final IOException ex) {
+            throw new ScriptException(ex);
+        }
+    }
+
+    private void checkSyntax(final Source source) throws ScriptException
+    {
+        try {
+            parseContexts.parse(source);
+        } catch (final PolyglotException ex) {
+            throw toScriptException(ex, name);
+        }
+    }
+
+    /**
+     * Converts an exception raised by a script in the same way that the script engine does, so that an exception thrown by Java
+     * code that the script called is still available as the cause of the script exception.
+     */
+    @Nonnull
+    static ScriptException toScriptException(final PolyglotException ex, final String name)
+    {
+        if (ex.isHostException() && ex.asHostException() instanceof Exception hostException) {
+            final ScriptException scriptException = new ScriptException(hostException);
+            scriptException.setStackTrace(ex.getStackTrace());
+            return scriptException;
+        }
+
+        final SourceSection location = ex.getSourceLocation();
+        final ScriptException scriptException = (location == null)
+            ? new ScriptException(ex.getMessage())
+            : new ScriptException(ex.getMessage(), name, location.getStartLine(), location.getStartColumn());
+        scriptException.initCause(ex);
+        return scriptException;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.scripting;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+
+/**
+ * The contexts that scripts are parsed in to check their syntax when they are compiled.
+ * <p>
+ * Parsing a script does not run any of it, so a context can be reused to parse any number of scripts. The contexts are created on
+ * the shared engine, so the code that is parsed in them is reused by the contexts that the scripts are later evaluated in. A context
+ * is only used by one thread at a time, so a new one is only created when all of the existing ones are in use.
+ */
+public final class ParseContextPool implements AutoCloseable
+{
+    private final Context.Builder contextBuilder;
+    private final Queue<Context> idleContexts;
+    private final Set<Context> allContexts;
+    private volatile boolean isClosed;
+
+    public ParseContextPool(final Context.Builder contextBuilder)
+    {
+        this.contextBuilder = contextBuilder;
+        this.idleContexts = new ConcurrentLinkedQueue<>();
+        this.allContexts = ConcurrentHashMap.newKeySet();
+        this.isClosed = false;
+    }
+
+    /**
+     * Parses the specified source without evaluating it.
+     *
+     * @param source the source to parse
+     * @throws PolyglotException if the source is not valid
+     */
+    public void parse(final Source source)
+    {
+        final Context context = takeContext();
+        try {
+            context.parse(source);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    private Context takeContext()
+    {
+        final Context idleContext = idleContexts.poll();
+        if (idleContext != null) {
+            return idleContext;
+        }
+
+        final Context context;
+        // The context builder is not thread-safe
+        synchronized (contextBuilder) {
+            context = contextBuilder.build();
+        }
+        allContexts.add(context);
+        return context;
+    }
+
+    private void releaseContext(final Context context)
+    {
+        if (isClosed) {
+            context.close();
+        } else {
+            idleContexts.add(context);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        isClosed = true;
+        idleContexts.clear();
+        for (final Context context : allContexts) {
+            context.close(true);
+        }
+        allContexts.clear();
+    }
+}
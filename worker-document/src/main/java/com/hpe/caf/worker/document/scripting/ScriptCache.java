@@ -17,20 +17,27 @@ package com.hpe.caf.worker.document.scripting;
 
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.hpe.caf.worker.document.config.ScriptCacheConfiguration;
 import com.hpe.caf.worker.document.scripting.specs.AbstractScriptSpec;
+import com.hpe.caf.worker.document.scripting.specs.InlineScriptSpec;
 import static com.hpe.caf.worker.document.util.ObjectFunctions.coalesce;
 import jakarta.annotation.Nonnull;
+import java.io.IOException;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import javax.script.CompiledScript;
 import javax.script.ScriptException;
 
 public final class ScriptCache implements ObjectCodeProvider
 {
-    private final LoadingCache<ScriptCacheKey, CompiledScript> cache;
+    private final LoadingCache<ScriptCacheKey, CachedScript> cache;
 
     public ScriptCache(
         final ScriptCacheConfiguration config,
@@ -38,7 +45,18 @@ public final class ScriptCache implements ObjectCodeProvider
         final ObjectCodeProvider compiler
     )
     {
-        this.cache = createCacheBuilder(config, defaultConfig).build(createCacheLoader(compiler));
+        this(config, defaultConfig, compiler, MoreExecutors.directExecutor());
+    }
+
+    public ScriptCache(
+        final ScriptCacheConfiguration config,
+        final ScriptCacheConfiguration defaultConfig,
+        final ObjectCodeProvider compiler,
+        final Executor refreshExecutor
+    )
+    {
+        this.cache = createCacheBuilder(config, defaultConfig)
+            .build(CacheLoader.asyncReloading(createCacheLoader(compiler), refreshExecutor));
     }
 
     @Nonnull
@@ -50,7 +68,7 @@ public final class ScriptCache implements ObjectCodeProvider
 
         // Retrieve the compiled script from the cache (unwrapping the exception if one was thrown)
         try {
-            return cache.get(key);
+            return cache.get(key).objectCode;
         } catch (final ExecutionException ex) {
             final Throwable cause = ex.getCause();
 
@@ -62,8 +80,22 @@ public final class ScriptCache implements ObjectCodeProvider
         }
     }
 
+    /**
+     * Returns the hit, miss, load time and eviction counters for the cache.
+     * <p>
+     * Concurrent requests for a script that is not in the cache wait for a single compilation of it, so they are counted as one
+     * load and as one miss for each request.
+     *
+     * @return a snapshot of the cache statistics
+     */
     @Nonnull
-    private static CacheBuilder<Object, Object> createCacheBuilder(
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+
+    @Nonnull
+    static CacheBuilder<Object, Object> createCacheBuilder(
         final ScriptCacheConfiguration config,
         final ScriptCacheConfiguration defaultConfig
     )
@@ -71,36 +103,60 @@ public final class ScriptCache implements ObjectCodeProvider
         Objects.requireNonNull(defaultConfig);
 
         final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
-            .concurrencyLevel(1);
+            .recordStats();
 
         if (config == null) {
             setMaximumSize(cacheBuilder, defaultConfig.getMaximumSize());
             setExpireAfterAccess(cacheBuilder, defaultConfig.getExpireAfterAccess());
             setExpireAfterWrite(cacheBuilder, defaultConfig.getExpireAfterWrite());
+            setRefreshAfterWrite(cacheBuilder, defaultConfig.getRefreshAfterWrite());
+            setConcurrencyLevel(cacheBuilder, defaultConfig.getConcurrencyLevel());
         } else {
             setMaximumSize(cacheBuilder, coalesce(config.getMaximumSize(), defaultConfig.getMaximumSize()));
             setExpireAfterAccess(cacheBuilder, coalesce(config.getExpireAfterAccess(), defaultConfig.getExpireAfterAccess()));
             setExpireAfterWrite(cacheBuilder, coalesce(config.getExpireAfterWrite(), defaultConfig.getExpireAfterWrite()));
+            setRefreshAfterWrite(cacheBuilder, coalesce(config.getRefreshAfterWrite(), defaultConfig.getRefreshAfterWrite()));
+            setConcurrencyLevel(cacheBuilder, coalesce(config.getConcurrencyLevel(), defaultConfig.getConcurrencyLevel()));
         }
 
         return cacheBuilder;
     }
 
     @Nonnull
-    private static CacheLoader<ScriptCacheKey, CompiledScript> createCacheLoader(final ObjectCodeProvider compiler)
+    private static CacheLoader<ScriptCacheKey, CachedScript> createCacheLoader(final ObjectCodeProvider compiler)
     {
         Objects.requireNonNull(compiler);
 
-        return new CacheLoader<ScriptCacheKey, CompiledScript>()
+        return new CacheLoader<ScriptCacheKey, CachedScript>()
         {
             @Nonnull
             @Override
-            public CompiledScript load(final ScriptCacheKey key) throws ScriptException
+            public CachedScript load(final ScriptCacheKey key) throws ScriptException
             {
                 final String name = key.getName();
                 final AbstractScriptSpec scriptSpec = key.getScriptSpec();
 
-                return compiler.getObjectCode(name, scriptSpec);
+                return new CachedScript(compiler.getObjectCode(name, scriptSpec), scriptSpec);
+            }
+
+            @Nonnull
+            @Override
+            public ListenableFuture<CachedScript> reload(final ScriptCacheKey key, final CachedScript oldValue)
+                throws IOException, ScriptException
+            {
+                // Use the specification that the cached script was retrieved through, as it knows which version was retrieved
+                final AbstractScriptSpec scriptSpec = oldValue.scriptSpec;
+
+                // Keep the existing compiled script if the script has not changed
+                final String changedScript = scriptSpec.getScriptIfChanged();
+                if (changedScript == null) {
+                    return Futures.immediateFuture(oldValue);
+                }
+
+                // Otherwise compile the script that has already been retrieved
+                final InlineScriptSpec changedScriptSpec = new InlineScriptSpec(changedScript, scriptSpec.getEngineType());
+                final CompiledScript objectCode = compiler.getObjectCode(key.getName(), changedScriptSpec);
+                return Futures.immediateFuture(new CachedScript(objectCode, scriptSpec));
             }
         };
     }
@@ -125,4 +181,30 @@ public final class ScriptCache implements ObjectCodeProvider
             cacheBuilder.expireAfterWrite(expireAfterWrite, TimeUnit.SECONDS);
         }
     }
+
+    private static void setRefreshAfterWrite(final CacheBuilder<Object, Object> cacheBuilder, final Long refreshAfterWrite)
+    {
+        if (refreshAfterWrite != null) {
+            cacheBuilder.refreshAfterWrite(refreshAfterWrite, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void setConcurrencyLevel(final CacheBuilder<Object, Object> cacheBuilder, final Integer concurrencyLevel)
+    {
+        if (concurrencyLevel != null) {
+            cacheBuilder.concurrencyLevel(concurrencyLevel);
+        }
+    }
+
+    private static final class CachedScript
+    {
+        public final CompiledScript objectCode;
+        public final AbstractScriptSpec scriptSpec;
+
+        public CachedScript(final CompiledScript objectCode, final AbstractScriptSpec scriptSpec)
+        {
+            this.objectCode = objectCode;
+            this.scriptSpec = scriptSpec;
+        }
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.scripting;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.hpe.caf.worker.document.config.ScriptCacheConfiguration;
+import com.hpe.caf.worker.document.model.ScriptEngineType;
+import com.hpe.caf.worker.document.scripting.specs.AbstractScriptSpec;
+import com.hpe.caf.worker.document.scripting.specs.InlineScriptSpec;
+import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+
+/**
+ * A second level cache which is keyed on the content of the scripts rather than on where they are retrieved from, so that the same
+ * script supplied inline, by storage reference, or by URL is only compiled once.
+ */
+public final class ScriptContentCache implements ObjectCodeProvider
+{
+    private final Cache<ScriptContentCacheKey, CompiledScript> cache;
+    private final ObjectCodeProvider compiler;
+
+    public ScriptContentCache(
+        final ScriptCacheConfiguration config,
+        final ScriptCacheConfiguration defaultConfig,
+        final ObjectCodeProvider compiler
+    )
+    {
+        this.cache = ScriptCache.createCacheBuilder(config, defaultConfig).build();
+        this.compiler = Objects.requireNonNull(compiler);
+    }
+
+    @Nonnull
+    @Override
+    public CompiledScript getObjectCode(final String name, final AbstractScriptSpec scriptSpec) throws ScriptException
+    {
+        // Retrieve the script content so that it can be hashed
+        final ScriptEngineType engineType = scriptSpec.getEngineType();
+        final String script;
+        final HashCode contentHash;
+        if (scriptSpec instanceof InlineScriptSpec inlineScriptSpec) {
+            script = inlineScriptSpec.getScript();
+            contentHash = inlineScriptSpec.getContentHash();
+        } else {
+            try {
+                script = scriptSpec.getScript();
+            } catch (final IOException ex) {
+                throw new ScriptException(ex);
+            }
+            contentHash = AbstractScriptSpec.hashScript(script);
+        }
+
+        // Retrieve the compiled script from the cache, compiling the retrieved content rather than retrieving it again if it is
+        // not already there
+        final ScriptContentCacheKey key = new ScriptContentCacheKey(name, contentHash, engineType);
+        try {
+            return cache.get(key, () -> compiler.getObjectCode(name, new InlineScriptSpec(script, engineType)));
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+
+            if (cause instanceof ScriptException scriptException) {
+                throw scriptException;
+            } else {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    @Nonnull
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+}
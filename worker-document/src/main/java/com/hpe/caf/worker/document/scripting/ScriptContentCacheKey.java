@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.scripting;
+
+import com.google.common.hash.HashCode;
+import com.hpe.caf.worker.document.model.ScriptEngineType;
+import java.util.Objects;
+
+public final class ScriptContentCacheKey
+{
+    private final String name;
+    private final HashCode contentHash;
+    private final ScriptEngineType engineType;
+
+    public ScriptContentCacheKey(final String name, final HashCode contentHash, final ScriptEngineType engineType)
+    {
+        this.name = name;
+        this.contentHash = Objects.requireNonNull(contentHash);
+        this.engineType = Objects.requireNonNull(engineType);
+    }
+
+    @Override
+    public boolean equals(final Object obj)
+    {
+        if (!(obj instanceof ScriptContentCacheKey)) {
+            return false;
+        }
+
+        final ScriptContentCacheKey other = (ScriptContentCacheKey) obj;
+
+        return Objects.equals(this.name, other.name)
+            && contentHash.equals(other.contentHash)
+            && engineType.equals(other.engineType);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 7;
+        hash = 97 * hash + Objects.hashCode(name);
+        hash = 97 * hash + contentHash.hashCode();
+        hash = 97 * hash + engineType.hashCode();
+        return hash;
+    }
+}
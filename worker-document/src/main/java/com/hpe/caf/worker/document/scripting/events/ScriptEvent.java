@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.scripting.events;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * The events that can be raised in customization scripts.
+ * <p>
+ * Each event has a bit in an event mask, so that the set of events that a script handles can be recorded and checked cheaply.
+ */
+public enum ScriptEvent
+{
+    PROCESS_TASK("onProcessTask"),
+    BEFORE_PROCESS_DOCUMENT("onBeforeProcessDocument"),
+    PROCESS_DOCUMENT("onProcessDocument"),
+    AFTER_PROCESS_DOCUMENT("onAfterProcessDocument"),
+    AFTER_PROCESS_TASK("onAfterProcessTask"),
+    ERROR("onError");
+
+    private static final ScriptEvent[] VALUES = values();
+
+    private final String handlerName;
+    private final int mask;
+
+    ScriptEvent(final String handlerName)
+    {
+        this.handlerName = handlerName;
+        this.mask = 1 << ordinal();
+    }
+
+    /**
+     * Returns the name of the global function which handles the event.
+     *
+     * @return the name of the event handler function
+     */
+    @Nonnull
+    public String getHandlerName()
+    {
+        return handlerName;
+    }
+
+    /**
+     * Returns the bit which represents the event in an event mask.
+     *
+     * @return the event's mask bit
+     */
+    public int getMask()
+    {
+        return mask;
+    }
+
+    /**
+     * Returns all of the events, without allocating a new array on each call.
+     *
+     * @return all of the events; the array must not be modified
+     */
+    @Nonnull
+    public static ScriptEvent[] getAll()
+    {
+        return VALUES;
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.hpe.caf.worker.document.scripting.specs;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.hpe.caf.worker.document.DocumentWorkerScript;
 import com.hpe.caf.worker.document.exceptions.InvalidScriptException;
 import com.hpe.caf.worker.document.impl.ApplicationImpl;
@@ -24,6 +26,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
@@ -117,6 +120,21 @@ public abstract class AbstractScriptSpec
     @Nonnull
     public abstract String getScript() throws IOException;
 
+    /**
+     * Returns the script represented by this specification if it might have changed since it was last retrieved through this
+     * specification.
+     * <p>
+     * By default the script is always retrieved again. Specifications which can cheaply check whether the script has changed should
+     * override this.
+     *
+     * @return the script represented by this specification, or {@code null} if it has not changed since it was last retrieved
+     * @throws IOException if the script could not be retrieved
+     */
+    public String getScriptIfChanged() throws IOException
+    {
+        return getScript();
+    }
+
     /**
      * Returns whether the script specification represents a script that is static (i.e. it is always the same each time it is retrieved),
      * as opposed to one which is dynamic (i.e. it references a script which might change).
@@ -150,6 +168,18 @@ public abstract class AbstractScriptSpec
      */
     protected abstract void setScriptSpecField(DocumentWorkerScript script);
 
+    /**
+     * Returns a hash of the specified script text, which can be used to identify scripts with the same content.
+     *
+     * @param script the script text
+     * @return the hash of the script text
+     */
+    @Nonnull
+    public static HashCode hashScript(final String script)
+    {
+        return Hashing.sha256().hashString(script, StandardCharsets.UTF_8);
+    }
+
     /**
      * Returns a count of the script specifications set on the specified object.
      * <p>
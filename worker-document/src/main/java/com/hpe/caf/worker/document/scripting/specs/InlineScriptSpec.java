@@ -15,6 +15,7 @@
  */
 package com.hpe.caf.worker.document.scripting.specs;
 
+import com.google.common.hash.HashCode;
 import com.hpe.caf.worker.document.DocumentWorkerScript;
 import com.hpe.caf.worker.document.model.ScriptEngineType;
 import jakarta.annotation.Nonnull;
@@ -26,11 +27,13 @@ import javax.script.ScriptException;
 public final class InlineScriptSpec extends AbstractScriptSpec
 {
     private final String script;
+    private HashCode contentHash;
 
     public InlineScriptSpec(final String script, final ScriptEngineType engineType)
     {
         super(engineType);
         this.script = Objects.requireNonNull(script);
+        this.contentHash = null;
     }
 
     @Nonnull
@@ -52,6 +55,26 @@ public final class InlineScriptSpec extends AbstractScriptSpec
         return script.equals(other.script) && engineType.equals(other.engineType);
     }
 
+    /**
+     * Returns a hash of the script text, which is used to look the script up in the content-keyed script cache.
+     * <p>
+     * The hash is only calculated when it is first requested. It is not used to compare inline scripts, as the script text's own hash
+     * code is cached by the string and is much cheaper to calculate.
+     *
+     * @return the hash of the script text
+     */
+    @Nonnull
+    public HashCode getContentHash()
+    {
+        // The hash is immutable, so it doesn't matter if it is calculated more than once by concurrent callers
+        HashCode hash = contentHash;
+        if (hash == null) {
+            hash = hashScript(script);
+            contentHash = hash;
+        }
+        return hash;
+    }
+
     @Nonnull
     @Override
     public String getScript()
@@ -52,7 +52,9 @@ public abstract class RemoteScriptSpec extends AbstractScriptSpec
     @Override
     public String getScript() throws IOException
     {
-        return IOUtils.toString(openReader());
+        try (final Reader reader = openReader()) {
+            return IOUtils.toString(reader);
+        }
     }
 
     @Nonnull
@@ -15,16 +15,19 @@
  */
 package com.hpe.caf.worker.document.scripting.specs;
 
+import com.google.common.hash.HashCode;
 import com.hpe.caf.worker.document.DocumentWorkerScript;
 import com.hpe.caf.worker.document.model.ScriptEngineType;
 import jakarta.annotation.Nonnull;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
@@ -32,12 +35,14 @@ public final class UrlScriptSpec extends RemoteScriptSpec
 {
     private final URL url;
     private final URI uri;
+    private volatile ScriptVersion lastRetrievedVersion;
 
     public UrlScriptSpec(final URL url, final ScriptEngineType engineType) throws URISyntaxException
     {
         super(engineType);
         this.url = Objects.requireNonNull(url);
         this.uri = url.toURI();
+        this.lastRetrievedVersion = null;
     }
 
     @Override
@@ -67,11 +72,64 @@ public final class UrlScriptSpec extends RemoteScriptSpec
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * For HTTP URLs a conditional request is made using the entity tag and last modified date returned when the script was last
+     * retrieved, so the script is not downloaded again if the server reports that it has not changed. Otherwise, and for other types
+     * of URL, the script is retrieved and its content hash compared with the last retrieved version.
+     */
+    @Override
+    public String getScriptIfChanged() throws IOException
+    {
+        return retrieveScript(lastRetrievedVersion);
+    }
+
     @Nonnull
     @Override
     protected Reader openReader() throws IOException
     {
-        return new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8));
+        return new StringReader(retrieveScript(null));
+    }
+
+    /**
+     * Retrieves the script and records the version retrieved.
+     *
+     * @param knownVersion the version of the script that has already been retrieved, or {@code null} to unconditionally retrieve it
+     * @return the script, or {@code null} if it is the same as the known version
+     */
+    private String retrieveScript(final ScriptVersion knownVersion) throws IOException
+    {
+        final URLConnection connection = url.openConnection();
+
+        if (knownVersion != null && connection instanceof HttpURLConnection httpConnection) {
+            if (knownVersion.entityTag != null) {
+                httpConnection.setRequestProperty("If-None-Match", knownVersion.entityTag);
+            }
+            if (knownVersion.lastModified != null) {
+                httpConnection.setRequestProperty("If-Modified-Since", knownVersion.lastModified);
+            }
+            if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                httpConnection.disconnect();
+                return null;
+            }
+        }
+
+        final String script;
+        try (final InputStream inputStream = connection.getInputStream()) {
+            script = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        final ScriptVersion retrievedVersion = new ScriptVersion(
+            connection.getHeaderField("ETag"),
+            connection.getHeaderField("Last-Modified"),
+            hashScript(script));
+
+        lastRetrievedVersion = retrievedVersion;
+
+        return (knownVersion != null && knownVersion.contentHash.equals(retrievedVersion.contentHash))
+            ? null
+            : script;
     }
 
     @Override
@@ -79,4 +137,18 @@ public final class UrlScriptSpec extends RemoteScriptSpec
     {
         script.url = url.toString();
     }
+
+    private static final class ScriptVersion
+    {
+        public final String entityTag;
+        public final String lastModified;
+        public final HashCode contentHash;
+
+        public ScriptVersion(final String entityTag, final String lastModified, final HashCode contentHash)
+        {
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+        }
+    }
 }
@@ -15,15 +15,21 @@
  */
 package com.hpe.caf.worker.document.tasks;
 
+import com.hpe.caf.api.worker.DataStoreException;
+import com.hpe.caf.api.worker.TaskStatus;
 import com.hpe.caf.api.worker.WorkerResponse;
 import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.worker.document.DocumentWorkerConstants;
 import com.hpe.caf.worker.document.DocumentWorkerScript;
+import com.hpe.caf.worker.document.config.ClaimCheckConfiguration;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
 import com.hpe.caf.worker.document.exceptions.DocumentWorkerTransientException;
 import com.hpe.caf.worker.document.exceptions.InvalidScriptException;
 import com.hpe.caf.worker.document.impl.ApplicationImpl;
 import com.hpe.caf.worker.document.impl.DocumentImpl;
 import com.hpe.caf.worker.document.impl.DocumentWorkerObjectImpl;
 import com.hpe.caf.worker.document.impl.ResponseImpl;
+import com.hpe.caf.worker.document.impl.ScriptImpl;
 import com.hpe.caf.worker.document.impl.ScriptsImpl;
 import com.hpe.caf.worker.document.model.Document;
 import com.hpe.caf.worker.document.model.Response;
@@ -31,23 +37,35 @@ import com.hpe.caf.worker.document.model.Task;
 import com.hpe.caf.worker.document.scripting.events.CancelableDocumentEventObject;
 import com.hpe.caf.worker.document.scripting.events.DocumentEventObject;
 import com.hpe.caf.worker.document.scripting.events.ErrorEventObject;
+import com.hpe.caf.worker.document.scripting.events.ScriptEvent;
 import com.hpe.caf.worker.document.scripting.events.TaskEventObject;
+import com.hpe.caf.worker.document.util.DataStoreFunctions;
+import com.hpe.caf.worker.document.util.DocumentFunctions;
+import com.hpe.caf.worker.document.util.ListFunctions;
 import com.hpe.caf.worker.document.views.ReadOnlyDocument;
 import jakarta.annotation.Nonnull;
 import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
 import javax.script.ScriptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public abstract class AbstractTask extends DocumentWorkerObjectImpl implements Task
 {
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractTask.class);
+
     private final WorkerTaskData workerTask;
     protected final DocumentImpl document;
     protected final ResponseImpl response;
     private final Map<String, String> customData;
     protected final ScriptsImpl scripts;
+    private long payloadSize;
 
     protected AbstractTask(
         final ApplicationImpl application,
@@ -61,6 +79,7 @@ public abstract class AbstractTask extends DocumentWorkerObjectImpl implements T
         this.document = new DocumentImpl(application, this, effectiveDocument);
         this.response = new ResponseImpl(application, this);
         this.customData = customData;
+        this.payloadSize = getDataLength(workerTask);
         this.scripts = new ScriptsImpl(application, this);
     }
 
@@ -77,6 +96,7 @@ public abstract class AbstractTask extends DocumentWorkerObjectImpl implements T
         this.document = new DocumentImpl(application, this, effectiveDocument);
         this.response = new ResponseImpl(application, this);
         this.customData = customData;
+        this.payloadSize = getDataLength(workerTask);
         this.scripts = new ScriptsImpl(application, this, scripts);
     }
 
@@ -87,6 +107,45 @@ public abstract class AbstractTask extends DocumentWorkerObjectImpl implements T
         return document;
     }
 
+    /**
+     * Returns the root documents of the task. Most tasks only have a single root document, which is the one returned by
+     * {@link #getDocument()}, but a multi-document task has several, and in that case {@link #getDocument()} returns the first of them.
+     *
+     * @return the root documents of the task
+     */
+    @Nonnull
+    public List<DocumentImpl> getDocuments()
+    {
+        return Collections.singletonList(document);
+    }
+
+    /**
+     * Returns the size of the task's encoded message. This is the size of the task data, unless the message was retrieved from elsewhere,
+     * such as when the task data is a claim check.
+     *
+     * @return the size of the task's encoded message in bytes
+     */
+    public final long getPayloadSize()
+    {
+        return payloadSize;
+    }
+
+    /**
+     * Records the size of the task's encoded message, if it was not received directly in the task data.
+     *
+     * @param payloadSize the size of the task's encoded message in bytes
+     */
+    public final void setPayloadSize(final long payloadSize)
+    {
+        this.payloadSize = payloadSize;
+    }
+
+    private static long getDataLength(final WorkerTaskData workerTask)
+    {
+        final byte[] data = workerTask.getData();
+        return (data == null) ? 0 : data.length;
+    }
+
     @Override
     public final String getCustomData(final String dataKey)
     {
@@ -123,7 +182,7 @@ public abstract class AbstractTask extends DocumentWorkerObjectImpl implements T
     @Nonnull
     public final WorkerResponse createWorkerResponse()
     {
-        return createWorkerResponseImpl();
+        return claimCheckLargeResponse(createWorkerResponseImpl());
     }
 
     @Nonnull
@@ -185,43 +244,67 @@ public abstract class AbstractTask extends DocumentWorkerObjectImpl implements T
 
     public void raiseProcessTaskEvent() throws DocumentWorkerTransientException, InterruptedException
     {
-        raiseScriptEvents("onProcessTask", false, new TaskEventObject(this));
+        if (!scripts.hasHandler(ScriptEvent.PROCESS_TASK)) {
+            return;
+        }
+
+        raiseScriptEvents(ScriptEvent.PROCESS_TASK, false, new TaskEventObject(this));
     }
 
     public boolean raiseBeforeProcessDocumentEvent(final Document document) throws DocumentWorkerTransientException, InterruptedException
     {
+        if (!scripts.hasHandler(ScriptEvent.BEFORE_PROCESS_DOCUMENT)) {
+            return false;
+        }
+
         final CancelableDocumentEventObject documentEventObj = new CancelableDocumentEventObject(document);
 
-        raiseScriptEventsUntil("onBeforeProcessDocument", false, () -> documentEventObj.cancel, documentEventObj);
+        raiseScriptEventsUntil(ScriptEvent.BEFORE_PROCESS_DOCUMENT, false, () -> documentEventObj.cancel, documentEventObj);
 
         return documentEventObj.cancel;
     }
 
     public void raiseProcessDocumentEvent(final Document document) throws DocumentWorkerTransientException, InterruptedException
     {
-        raiseScriptEvents("onProcessDocument", false, new DocumentEventObject(document));
+        if (!scripts.hasHandler(ScriptEvent.PROCESS_DOCUMENT)) {
+            return;
+        }
+
+        raiseScriptEvents(ScriptEvent.PROCESS_DOCUMENT, false, new DocumentEventObject(document));
     }
 
     public void raiseAfterProcessDocumentEvent(final Document document) throws DocumentWorkerTransientException, InterruptedException
     {
-        raiseScriptEvents("onAfterProcessDocument", true, new DocumentEventObject(document));
+        if (!scripts.hasHandler(ScriptEvent.AFTER_PROCESS_DOCUMENT)) {
+            return;
+        }
+
+        raiseScriptEvents(ScriptEvent.AFTER_PROCESS_DOCUMENT, true, new DocumentEventObject(document));
     }
 
     public void raiseAfterProcessTaskEvent() throws DocumentWorkerTransientException, InterruptedException
     {
-        raiseScriptEvents("onAfterProcessTask", true, new TaskEventObject(this));
+        if (!scripts.hasHandler(ScriptEvent.AFTER_PROCESS_TASK)) {
+            return;
+        }
+
+        raiseScriptEvents(ScriptEvent.AFTER_PROCESS_TASK, true, new TaskEventObject(this));
     }
 
     public boolean raiseOnErrorEvent(final RuntimeException ex) throws DocumentWorkerTransientException, InterruptedException
     {
+        if (!scripts.hasHandler(ScriptEvent.ERROR)) {
+            return false;
+        }
+
         final ErrorEventObject errorEventObj = new ErrorEventObject(this, ex);
 
-        raiseScriptEventsUntil("onError", true, () -> errorEventObj.handled, errorEventObj);
+        raiseScriptEventsUntil(ScriptEvent.ERROR, true, () -> errorEventObj.handled, errorEventObj);
 
         return errorEventObj.handled;
     }
 
-    private void raiseScriptEvents(final String event, final boolean useReverseOrder, final Object... args)
+    private void raiseScriptEvents(final ScriptEvent event, final boolean useReverseOrder, final Object... args)
         throws DocumentWorkerTransientException, InterruptedException
     {
         unwrapCheckedExceptions(() -> {
@@ -230,7 +313,7 @@ public abstract class AbstractTask extends DocumentWorkerObjectImpl implements T
     }
 
     private void raiseScriptEventsUntil(
-        final String event,
+        final ScriptEvent event,
         final boolean useReverseOrder,
         final BooleanSupplier condition,
         final Object... args
@@ -257,4 +340,90 @@ public abstract class AbstractTask extends DocumentWorkerObjectImpl implements T
             }
         }
     }
+
+    /**
+     * Returns the installed scripts which should be included in the response, or null if there are none.
+     */
+    protected final List<DocumentWorkerScript> getInstalledScripts()
+    {
+        final List<DocumentWorkerScript> installedScripts = scripts.streamImpls()
+            .filter(ScriptImpl::shouldIncludeInResponse)
+            .map(ScriptImpl::toDocumentWorkerScript)
+            .collect(Collectors.toList());
+
+        return ListFunctions.emptyToNull(installedScripts);
+    }
+
+    /**
+     * Returns the response which reports the failures that have been added to the task's documents, for use when the framework is
+     * configured to return a RESULT_EXCEPTION rather than adding the failures to the change log.
+     */
+    @Nonnull
+    protected final WorkerResponse createFailureResponse(final String outputQueue)
+    {
+        final String failures = getDocuments().stream()
+            .flatMap(DocumentFunctions::documentNodes)
+            .flatMap(d -> d.getFailures().stream())
+            .map(f -> f.getFailureId() + ": " + f.getFailureMessage())
+            .collect(Collectors.joining("\n"));
+
+        return new WorkerResponse(outputQueue,
+                                  TaskStatus.RESULT_EXCEPTION,
+                                  failures.getBytes(StandardCharsets.UTF_8),
+                                  "DocumentWorkerException",
+                                  1,
+                                  null);
+    }
+
+    @Nonnull
+    protected final String getChangeLogEntryName()
+    {
+        final DocumentWorkerConfiguration config = application.getConfiguration();
+        final String changeLogEntryName = config.getWorkerName() + ":" + config.getWorkerVersion();
+
+        return changeLogEntryName;
+    }
+
+    /**
+     * Stores composite document results which are larger than the configured threshold in the data store, and returns a response which
+     * only holds the data store reference to them.
+     * <p>
+     * The response is given at least the claim check message version, so that workers which cannot retrieve claim checked messages
+     * reject it rather than failing it.
+     */
+    @Nonnull
+    private WorkerResponse claimCheckLargeResponse(final WorkerResponse response)
+    {
+        final ClaimCheckConfiguration claimCheckConfig = application.getConfiguration().getClaimCheck();
+        final Long threshold = (claimCheckConfig == null) ? null : claimCheckConfig.getThreshold();
+        if (threshold == null || threshold <= 0) {
+            return response;
+        }
+
+        // Only composite document results can be claim checked
+        final byte[] data = response.getData();
+        if (response.getTaskStatus() != TaskStatus.RESULT_SUCCESS
+            || !DocumentWorkerConstants.DOCUMENT_TASK_NAME.equals(response.getMessageType())
+            || response.getApiVersion() > DocumentWorkerConstants.DOCUMENT_TASK_CBOR_API_VER
+            || data == null
+            || data.length <= threshold) {
+            return response;
+        }
+
+        final String reference;
+        try {
+            reference = application.getDataStore().store(data, claimCheckConfig.getPartialReference());
+        } catch (final DataStoreException ex) {
+            LOG.warn("Failed to store response of {} bytes; it will be sent on the message queue", data.length, ex);
+            return response;
+        }
+
+        return new WorkerResponse(response.getQueueReference(),
+                                  response.getTaskStatus(),
+                                  DataStoreFunctions.createClaimCheck(reference),
+                                  response.getMessageType(),
+                                  Math.max(response.getApiVersion(), DocumentWorkerConstants.DOCUMENT_TASK_CLAIM_CHECK_API_VER),
+                                  response.getContext(),
+                                  response.getTrackTo());
+    }
 }
@@ -15,36 +15,49 @@
  */
 package com.hpe.caf.worker.document.tasks;
 
+import com.hpe.caf.api.CodecException;
+import com.hpe.caf.api.worker.TaskFailedException;
 import com.hpe.caf.api.worker.TaskStatus;
 import com.hpe.caf.api.worker.WorkerResponse;
 import com.hpe.caf.api.worker.WorkerTaskData;
 import com.hpe.caf.worker.document.DocumentWorkerChange;
 import com.hpe.caf.worker.document.DocumentWorkerChangeLogEntry;
 import com.hpe.caf.worker.document.DocumentWorkerConstants;
+import com.hpe.caf.worker.document.DocumentWorkerDocument;
 import com.hpe.caf.worker.document.DocumentWorkerDocumentTask;
 import com.hpe.caf.worker.document.DocumentWorkerScript;
 import com.hpe.caf.worker.document.changelog.ChangeLogFunctions;
+import com.hpe.caf.worker.document.changelog.EffectiveDocumentCache;
 import com.hpe.caf.worker.document.changelog.MutableDocument;
 import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.converters.DecodedDocumentTask;
+import com.hpe.caf.worker.document.converters.RawJson;
+import com.hpe.caf.worker.document.converters.ReadOnlyDocumentConverter;
 import com.hpe.caf.worker.document.exceptions.InvalidChangeLogException;
 import com.hpe.caf.worker.document.exceptions.InvalidScriptException;
 import com.hpe.caf.worker.document.impl.ApplicationImpl;
-import com.hpe.caf.worker.document.impl.ScriptImpl;
 import com.hpe.caf.worker.document.output.ChangeLogBuilder;
-import com.hpe.caf.worker.document.util.DocumentFunctions;
+import com.hpe.caf.worker.document.output.ChangesJournal;
+import com.hpe.caf.worker.document.output.DocumentTaskJsonWriter;
 import com.hpe.caf.worker.document.util.ListFunctions;
 import com.hpe.caf.worker.document.util.MapFunctions;
 import com.hpe.caf.worker.document.views.ReadOnlyDocument;
 import jakarta.annotation.Nonnull;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public final class DocumentTask extends AbstractTask
 {
+    private static final Logger LOG = LoggerFactory.getLogger(DocumentTask.class);
+
     private final DocumentWorkerDocumentTask documentTask;
+    private final RawJson encodedDocument;
+    private final RawJson encodedChangeLogEntries;
 
     @Nonnull
     public static DocumentTask create(
@@ -55,34 +68,88 @@ public final class DocumentTask extends AbstractTask
     {
         Objects.requireNonNull(documentTask);
 
-        return new DocumentTask(application, workerTask, documentTask);
+        return new DocumentTask(application, workerTask, documentTask, null, null, null);
+    }
+
+    @Nonnull
+    public static DocumentTask create(
+        final ApplicationImpl application,
+        final WorkerTaskData workerTask,
+        final DecodedDocumentTask decodedTask
+    ) throws InvalidChangeLogException, InvalidScriptException
+    {
+        Objects.requireNonNull(decodedTask);
+
+        return new DocumentTask(application,
+                                workerTask,
+                                decodedTask.getTask(),
+                                decodedTask.getEncodedDocument(),
+                                decodedTask.getEncodedChangeLogEntries(),
+                                decodedTask.getEncodedChangeLog());
     }
 
     private DocumentTask(
         final ApplicationImpl application,
         final WorkerTaskData workerTask,
-        final DocumentWorkerDocumentTask documentTask
+        final DocumentWorkerDocumentTask documentTask,
+        final RawJson encodedDocument,
+        final RawJson encodedChangeLogEntries,
+        final List<RawJson> encodedChangeLog
     ) throws InvalidChangeLogException, InvalidScriptException
     {
         super(application,
               workerTask,
-              createEffectiveDocument(documentTask),
+              createEffectiveDocument(application, documentTask.document, documentTask.changeLog, encodedDocument, encodedChangeLog),
               documentTask.customData,
               documentTask.scripts);
 
         this.documentTask = documentTask;
+        this.encodedDocument = encodedDocument;
+        this.encodedChangeLogEntries = encodedChangeLogEntries;
     }
 
+    /**
+     * Creates the document that results from applying the change log to the base document.
+     */
     @Nonnull
-    private static ReadOnlyDocument createEffectiveDocument(final DocumentWorkerDocumentTask documentTask)
-        throws InvalidChangeLogException
+    static ReadOnlyDocument createEffectiveDocument(
+        final ApplicationImpl application,
+        final DocumentWorkerDocument document,
+        final List<DocumentWorkerChangeLogEntry> changeLog
+    ) throws InvalidChangeLogException
     {
-        Objects.requireNonNull(documentTask);
+        return createEffectiveDocument(application, document, changeLog, null, null);
+    }
+
+    /**
+     * Creates the document that results from applying the change log to the base document, using the encoded form in which they were
+     * received, if it was retained, to look the document up in the effective document cache.
+     */
+    @Nonnull
+    private static ReadOnlyDocument createEffectiveDocument(
+        final ApplicationImpl application,
+        final DocumentWorkerDocument document,
+        final List<DocumentWorkerChangeLogEntry> changeLog,
+        final RawJson encodedDocument,
+        final List<RawJson> encodedChangeLog
+    ) throws InvalidChangeLogException
+    {
+        final EffectiveDocumentCache effectiveDocumentCache = application.getEffectiveDocumentCache();
+        if (effectiveDocumentCache != null && encodedDocument != null && encodedChangeLog != null) {
+            return effectiveDocumentCache.getEffectiveDocument(document, changeLog, encodedDocument, encodedChangeLog);
+        }
+        if (effectiveDocumentCache != null) {
+            try {
+                return effectiveDocumentCache.getEffectiveDocument(document, changeLog);
+            } catch (final CodecException ex) {
+                LOG.warn("Failed to compute the change log checkpoints; the change log will be applied without the cache", ex);
+            }
+        }
 
-        final ReadOnlyDocument baseDocument = ReadOnlyDocument.create(documentTask.document);
+        final ReadOnlyDocument baseDocument = ReadOnlyDocument.create(document);
 
         final MutableDocument effectiveDocument = new MutableDocument(baseDocument);
-        effectiveDocument.applyChangeLog(documentTask.changeLog);
+        effectiveDocument.applyChangeLog(changeLog);
 
         return ReadOnlyDocument.create(effectiveDocument);
     }
@@ -90,6 +157,16 @@ public final class DocumentTask extends AbstractTask
     @Nonnull
     @Override
     protected WorkerResponse createWorkerResponseImpl()
+    {
+        final DocumentWorkerConfiguration config = application.getConfiguration();
+
+        return config.getStreamingJsonEncoderEnabled() && !config.getCborResultsEnabled()
+            ? createStreamedWorkerResponse()
+            : createSerialisedWorkerResponse();
+    }
+
+    @Nonnull
+    private WorkerResponse createSerialisedWorkerResponse()
     {
         // Build up the changes to add to the change log
         final ChangeLogBuilder changeLogBuilder = new ChangeLogBuilder();
@@ -106,18 +183,7 @@ public final class DocumentTask extends AbstractTask
         // If there have been failures, then check if the framework is configured to return a RESULT_EXCEPTION rather than simply adding
         // them to the change log
         if (hasFailures && application.getConfiguration().getEnableExceptionOnFailure()) {
-
-            final String failures = DocumentFunctions.documentNodes(document)
-                .flatMap(d -> d.getFailures().stream())
-                .map(f -> f.getFailureId() + ": " + f.getFailureMessage())
-                .collect(Collectors.joining("\n"));
-
-            return new WorkerResponse(outputQueue,
-                                      TaskStatus.RESULT_EXCEPTION,
-                                      failures.getBytes(StandardCharsets.UTF_8),
-                                      "DocumentWorkerException",
-                                      1,
-                                      null);
+            return createFailureResponse(outputQueue);
         }
 
         // Create a new change log entry
@@ -125,32 +191,98 @@ public final class DocumentTask extends AbstractTask
         changeLogEntry.name = getChangeLogEntryName();
         changeLogEntry.changes = changes.isEmpty() ? null : changes;
 
-        // Put together the complete change log
-        final ArrayList<DocumentWorkerChangeLogEntry> changeLog = ListFunctions.copy(documentTask.changeLog, 1);
-        changeLog.add(changeLogEntry);
+        // Put together the complete change log, folding the earlier changes into the document if compaction is enabled
+        final boolean compactChangeLog = shouldCompactChangeLog();
 
-        // Get the installed scripts to include them in the response
-        final List<DocumentWorkerScript> installedScripts = scripts.streamImpls()
-            .filter(ScriptImpl::shouldIncludeInResponse)
-            .map(ScriptImpl::toDocumentWorkerScript)
-            .collect(Collectors.toList());
+        final ArrayList<DocumentWorkerChangeLogEntry> changeLog = compactChangeLog
+            ? removeChanges(documentTask.changeLog)
+            : ListFunctions.copy(documentTask.changeLog, 1);
+        changeLog.add(changeLogEntry);
 
         // Construct the DocumentWorkerDocumentTask object
         final DocumentWorkerDocumentTask documentWorkerResult = new DocumentWorkerDocumentTask();
-        documentWorkerResult.document = documentTask.document;
+        documentWorkerResult.document = getResultDocument(compactChangeLog);
         documentWorkerResult.changeLog = changeLog;
         documentWorkerResult.customData = MapFunctions.emptyToNull(response.getCustomData().asMap());
-        documentWorkerResult.scripts = ListFunctions.emptyToNull(installedScripts);
+        documentWorkerResult.scripts = getInstalledScripts();
 
         // Serialise the result object
-        final byte[] data = application.serialiseResult(documentWorkerResult);
+        final boolean cborEncoded = application.getConfiguration().getCborResultsEnabled();
+        final byte[] data = cborEncoded
+            ? application.serialiseCborResult(documentWorkerResult)
+            : application.serialiseResult(documentWorkerResult);
 
+        return createResultResponse(outputQueue, data, documentWorkerResult.scripts, cborEncoded);
+    }
+
+    /**
+     * Writes the result message directly as JSON, recording the document changes straight into the new change log entry rather than
+     * first building up the complete result object.
+     */
+    @Nonnull
+    private WorkerResponse createStreamedWorkerResponse()
+    {
+        final boolean compactChangeLog = shouldCompactChangeLog();
+
+        try (final DocumentTaskJsonWriter writer = new DocumentTaskJsonWriter()) {
+            // The base document and the existing change log are unchanged unless they are being compacted, so if their encoded form
+            // was kept when the task was decoded then it is copied to the result rather than encoding them again
+            if (compactChangeLog || encodedDocument == null) {
+                writer.writeDocument(getResultDocument(compactChangeLog));
+            } else {
+                writer.writeDocument(encodedDocument);
+            }
+
+            // Write the existing change log and then the changes that have been made as a new entry
+            final ChangesJournal changeLogEntryJournal;
+            if (compactChangeLog) {
+                changeLogEntryJournal = writer.startChangeLogEntry(removeChanges(documentTask.changeLog), getChangeLogEntryName());
+            } else if (encodedChangeLogEntries != null) {
+                changeLogEntryJournal = writer.startChangeLogEntry(encodedChangeLogEntries, getChangeLogEntryName());
+            } else {
+                changeLogEntryJournal = writer.startChangeLogEntry(documentTask.changeLog, getChangeLogEntryName());
+            }
+
+            document.recordChanges(changeLogEntryJournal);
+
+            final boolean hasFailures = writer.endChangeLogEntry();
+
+            // Select the output queue
+            final String outputQueue = response.getOutputQueue(hasFailures);
+
+            // Discard what has been written if the framework is configured to return a RESULT_EXCEPTION when there are failures
+            if (hasFailures && application.getConfiguration().getEnableExceptionOnFailure()) {
+                return createFailureResponse(outputQueue);
+            }
+
+            final List<DocumentWorkerScript> installedScripts = getInstalledScripts();
+
+            writer.writeCustomData(MapFunctions.emptyToNull(response.getCustomData().asMap()));
+            writer.writeScripts(installedScripts);
+
+            return createResultResponse(outputQueue, writer.toByteArray(), installedScripts, false);
+        } catch (final IOException | UncheckedIOException ex) {
+            throw new TaskFailedException("Failed to serialise result", ex);
+        }
+    }
+
+    @Nonnull
+    private static WorkerResponse createResultResponse(
+        final String outputQueue,
+        final byte[] data,
+        final List<DocumentWorkerScript> scripts,
+        final boolean cborEncoded
+    )
+    {
+        // If the response message is CBOR encoded then it is in the CBOR message format, which supports everything that v3 does
         // If the response message includes any scripts then it is in the v2 message format
         // If any of the scripts have an engine specified then it is in the v3 message format
         final int resultMessageVersion;
-        if (documentWorkerResult.scripts == null) {
+        if (cborEncoded) {
+            resultMessageVersion = DocumentWorkerConstants.DOCUMENT_TASK_CBOR_API_VER;
+        } else if (scripts == null) {
             resultMessageVersion = 1;
-        } else if (documentWorkerResult.scripts.stream().map(script -> script.engine).allMatch(Objects::isNull)) {
+        } else if (scripts.stream().map(script -> script.engine).allMatch(Objects::isNull)) {
             resultMessageVersion = 2;
         } else {
             resultMessageVersion = 3;
@@ -165,6 +297,19 @@ public final class DocumentTask extends AbstractTask
                                   null);
     }
 
+    private boolean shouldCompactChangeLog()
+    {
+        return application.getConfiguration().getCompactChangeLog()
+            && hasChanges(documentTask.changeLog);
+    }
+
+    private DocumentWorkerDocument getResultDocument(final boolean compactChangeLog)
+    {
+        return compactChangeLog
+            ? ReadOnlyDocumentConverter.convert(document.getInitialDocument())
+            : documentTask.document;
+    }
+
     @Nonnull
     @Override
     protected WorkerResponse handleGeneralFailureImpl(final Throwable failure)
@@ -191,12 +336,28 @@ public final class DocumentTask extends AbstractTask
         return this.createWorkerResponse();
     }
 
+    private static boolean hasChanges(final List<DocumentWorkerChangeLogEntry> changeLog)
+    {
+        return changeLog != null
+            && changeLog.stream().anyMatch(changeLogEntry -> changeLogEntry != null && changeLogEntry.changes != null);
+    }
+
+    /**
+     * Creates a copy of the change log which only has the names of the entries, for when the changes have been applied to the document.
+     */
     @Nonnull
-    private String getChangeLogEntryName()
+    private static ArrayList<DocumentWorkerChangeLogEntry> removeChanges(final List<DocumentWorkerChangeLogEntry> changeLog)
     {
-        final DocumentWorkerConfiguration config = application.getConfiguration();
-        final String changeLogEntryName = config.getWorkerName() + ":" + config.getWorkerVersion();
+        final ArrayList<DocumentWorkerChangeLogEntry> compactedChangeLog = new ArrayList<>(changeLog.size() + 1);
+
+        for (final DocumentWorkerChangeLogEntry changeLogEntry : changeLog) {
+            if (changeLogEntry != null) {
+                final DocumentWorkerChangeLogEntry compactedChangeLogEntry = new DocumentWorkerChangeLogEntry();
+                compactedChangeLogEntry.name = changeLogEntry.name;
+                compactedChangeLog.add(compactedChangeLogEntry);
+            }
+        }
 
-        return changeLogEntryName;
+        return compactedChangeLog;
     }
 }
@@ -85,14 +85,17 @@ public final class FieldEnrichmentTask extends AbstractTask
         final String outputQueue = getOutputQueue(documentWorkerResult.failures);
 
         // Serialise the result object
-        final byte[] data = application.serialiseResult(documentWorkerResult);
+        final boolean cborEncoded = application.getConfiguration().getCborResultsEnabled();
+        final byte[] data = cborEncoded
+            ? application.serialiseCborResult(documentWorkerResult)
+            : application.serialiseResult(documentWorkerResult);
 
         // Create the WorkerResponse object
         return new WorkerResponse(outputQueue,
                                   TaskStatus.RESULT_SUCCESS,
                                   data,
                                   DocumentWorkerConstants.WORKER_NAME,
-                                  DocumentWorkerConstants.WORKER_API_VER,
+                                  cborEncoded ? DocumentWorkerConstants.WORKER_CBOR_API_VER : DocumentWorkerConstants.WORKER_API_VER,
                                   null);
     }
 
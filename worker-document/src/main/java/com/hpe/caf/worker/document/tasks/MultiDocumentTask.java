@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document.tasks;
+
+import com.hpe.caf.api.worker.TaskStatus;
+import com.hpe.caf.api.worker.WorkerResponse;
+import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.worker.document.DocumentWorkerChange;
+import com.hpe.caf.worker.document.DocumentWorkerChangeLogEntry;
+import com.hpe.caf.worker.document.DocumentWorkerConstants;
+import com.hpe.caf.worker.document.DocumentWorkerDocumentEntry;
+import com.hpe.caf.worker.document.DocumentWorkerMultiDocumentTask;
+import com.hpe.caf.worker.document.changelog.ChangeLogFunctions;
+import com.hpe.caf.worker.document.exceptions.InvalidChangeLogException;
+import com.hpe.caf.worker.document.exceptions.InvalidScriptException;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.DocumentImpl;
+import com.hpe.caf.worker.document.output.ChangeLogBuilder;
+import com.hpe.caf.worker.document.util.ListFunctions;
+import com.hpe.caf.worker.document.util.MapFunctions;
+import com.hpe.caf.worker.document.views.ReadOnlyDocument;
+import jakarta.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A task which holds a number of separate documents that share the same custom data and customization scripts.
+ * <p>
+ * The scripts are loaded once for the task rather than once for each document, and a single response is produced which holds all of
+ * the documents, each with its own change log.
+ */
+public final class MultiDocumentTask extends AbstractTask
+{
+    private final DocumentWorkerMultiDocumentTask multiDocumentTask;
+    private final List<DocumentImpl> documents;
+
+    @Nonnull
+    public static MultiDocumentTask create(
+        final ApplicationImpl application,
+        final WorkerTaskData workerTask,
+        final DocumentWorkerMultiDocumentTask multiDocumentTask
+    ) throws InvalidChangeLogException, InvalidScriptException
+    {
+        Objects.requireNonNull(multiDocumentTask);
+        Objects.requireNonNull(multiDocumentTask.documents);
+
+        if (multiDocumentTask.documents.isEmpty()) {
+            throw new IllegalArgumentException("The task does not contain any documents");
+        }
+
+        final List<ReadOnlyDocument> effectiveDocuments = new ArrayList<>(multiDocumentTask.documents.size());
+        for (final DocumentWorkerDocumentEntry documentEntry : multiDocumentTask.documents) {
+            effectiveDocuments.add(DocumentTask.createEffectiveDocument(application, documentEntry.document, documentEntry.changeLog));
+        }
+
+        return new MultiDocumentTask(application, workerTask, multiDocumentTask, effectiveDocuments);
+    }
+
+    private MultiDocumentTask(
+        final ApplicationImpl application,
+        final WorkerTaskData workerTask,
+        final DocumentWorkerMultiDocumentTask multiDocumentTask,
+        final List<ReadOnlyDocument> effectiveDocuments
+    ) throws InvalidScriptException
+    {
+        super(application,
+              workerTask,
+              effectiveDocuments.get(0),
+              multiDocumentTask.customData,
+              multiDocumentTask.scripts);
+
+        this.multiDocumentTask = multiDocumentTask;
+
+        final List<DocumentImpl> taskDocuments = new ArrayList<>(effectiveDocuments.size());
+        taskDocuments.add(document);
+        for (final ReadOnlyDocument effectiveDocument : effectiveDocuments.subList(1, effectiveDocuments.size())) {
+            taskDocuments.add(new DocumentImpl(application, this, effectiveDocument));
+        }
+        this.documents = Collections.unmodifiableList(taskDocuments);
+    }
+
+    @Nonnull
+    @Override
+    public List<DocumentImpl> getDocuments()
+    {
+        return documents;
+    }
+
+    @Nonnull
+    @Override
+    protected WorkerResponse createWorkerResponseImpl()
+    {
+        final String changeLogEntryName = getChangeLogEntryName();
+
+        // Build up the result entry for each of the documents, adding the changes that have been made as a new change log entry
+        final List<DocumentWorkerDocumentEntry> resultEntries = new ArrayList<>(documents.size());
+        boolean hasFailures = false;
+        for (int i = 0; i < documents.size(); i++) {
+            final ChangeLogBuilder changeLogBuilder = new ChangeLogBuilder();
+            documents.get(i).recordChanges(changeLogBuilder);
+
+            final List<DocumentWorkerChange> changes = changeLogBuilder.getChanges();
+            hasFailures |= ChangeLogFunctions.hasFailures(changes);
+
+            final DocumentWorkerChangeLogEntry changeLogEntry = new DocumentWorkerChangeLogEntry();
+            changeLogEntry.name = changeLogEntryName;
+            changeLogEntry.changes = changes.isEmpty() ? null : changes;
+
+            final DocumentWorkerDocumentEntry documentEntry = multiDocumentTask.documents.get(i);
+            final ArrayList<DocumentWorkerChangeLogEntry> changeLog = ListFunctions.copy(documentEntry.changeLog, 1);
+            changeLog.add(changeLogEntry);
+
+            final DocumentWorkerDocumentEntry resultEntry = new DocumentWorkerDocumentEntry();
+            resultEntry.document = documentEntry.document;
+            resultEntry.changeLog = changeLog;
+            resultEntries.add(resultEntry);
+        }
+
+        // Select the output queue
+        final String outputQueue = response.getOutputQueue(hasFailures);
+
+        // If there have been failures, then check if the framework is configured to return a RESULT_EXCEPTION rather than simply adding
+        // them to the change logs
+        if (hasFailures && application.getConfiguration().getEnableExceptionOnFailure()) {
+            return createFailureResponse(outputQueue);
+        }
+
+        // Construct and serialise the DocumentWorkerMultiDocumentTask object
+        final DocumentWorkerMultiDocumentTask result = new DocumentWorkerMultiDocumentTask();
+        result.documents = resultEntries;
+        result.customData = MapFunctions.emptyToNull(response.getCustomData().asMap());
+        result.scripts = getInstalledScripts();
+
+        final boolean cborEncoded = application.getConfiguration().getCborResultsEnabled();
+        final byte[] data = cborEncoded
+            ? application.serialiseCborResult(result)
+            : application.serialiseResult(result);
+
+        return new WorkerResponse(outputQueue,
+                                  TaskStatus.RESULT_SUCCESS,
+                                  data,
+                                  DocumentWorkerConstants.MULTI_DOCUMENT_TASK_NAME,
+                                  cborEncoded
+                                      ? DocumentWorkerConstants.MULTI_DOCUMENT_TASK_CBOR_API_VER
+                                      : DocumentWorkerConstants.MULTI_DOCUMENT_TASK_API_VER,
+                                  null);
+    }
+
+    @Nonnull
+    @Override
+    protected WorkerResponse handleGeneralFailureImpl(final Throwable failure)
+    {
+        for (final DocumentImpl taskDocument : documents) {
+            taskDocument.getFailures().add("DW-GENERAL_FAILURE",
+                                           failure.getLocalizedMessage(),
+                                           failure);
+        }
+
+        // Create a RESULT_SUCCESS for the documents
+        // (RESULT_SUCCESS is used even if there are failures, as the failures are successfully returned)
+        return this.createWorkerResponse();
+    }
+
+    @Nonnull
+    @Override
+    protected WorkerResponse handlePoisonMessageImpl(final String workerFriendlyName)
+    {
+        for (final DocumentImpl taskDocument : documents) {
+            taskDocument.getFailures().add(
+                "DW-PROCESSING_FAILED",
+                String.format("%s max processing attempts exceeded.", workerFriendlyName));
+        }
+
+        // Create a RESULT_SUCCESS for the documents
+        // (RESULT_SUCCESS is used even if there are failures, as the failures are successfully returned)
+        return this.createWorkerResponse();
+    }
+}
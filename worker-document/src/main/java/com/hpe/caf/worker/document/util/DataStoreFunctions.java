@@ -17,15 +17,20 @@ package com.hpe.caf.worker.document.util;
 
 import com.hpe.caf.api.worker.DataStore;
 import com.hpe.caf.api.worker.DataStoreException;
+import com.hpe.caf.worker.document.DocumentWorkerConstants;
 import jakarta.annotation.Nonnull;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * DataStore-related utility functions.
  */
 public final class DataStoreFunctions
 {
+    private static final byte[] CLAIM_CHECK_PREFIX_BYTES = DocumentWorkerConstants.CLAIM_CHECK_PREFIX.getBytes(StandardCharsets.UTF_8);
+
     /**
      * Overrides the default constructor to ensure that no instances of this class are created.
      */
@@ -50,4 +55,30 @@ public final class DataStoreFunctions
             throw new IOException(ex);
         }
     }
+
+    /**
+     * Creates the message data for a claim check, which is a reference to message data that is held in the data store.
+     *
+     * @param reference the reference to the message data within the data store
+     * @return the claim check message data
+     */
+    @Nonnull
+    public static byte[] createClaimCheck(final String reference)
+    {
+        return (DocumentWorkerConstants.CLAIM_CHECK_PREFIX + reference).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the data store reference which the specified message data holds, if it is a claim check.
+     *
+     * @param data the message data
+     * @return the reference to the message data within the data store, or null if the data is not a claim check
+     */
+    public static String getClaimCheckReference(final byte[] data)
+    {
+        final byte[] prefix = CLAIM_CHECK_PREFIX_BYTES;
+        return (data.length >= prefix.length && Arrays.equals(data, 0, prefix.length, prefix, 0, prefix.length))
+            ? new String(data, prefix.length, data.length - prefix.length, StandardCharsets.UTF_8)
+            : null;
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.worker.document.config.AdaptiveBatchSizingConfiguration;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.impl.AdaptiveBatchSizeControllerImpl;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveBatchSizeControllerImplTest
+{
+    @Test
+    public void batchSizeDecreasesWhenBatchIsTooSlow()
+    {
+        final AdaptiveBatchSizeControllerImpl controller = createController();
+
+        controller.recordBatchProcessingTime(100, 2000);
+
+        assertEquals(50, controller.getMaximumBatchSize());
+        assertEquals(30000, controller.getMaximumBatchTime());
+    }
+
+    @Test
+    public void batchSizeFallsToPredictedSizeWhenBatchIsFarTooSlow()
+    {
+        final AdaptiveBatchSizeControllerImpl controller = createController();
+
+        // At 100 ms per document only 10 documents can be processed within the target time
+        controller.recordBatchProcessingTime(100, 10000);
+
+        assertEquals(10, controller.getMaximumBatchSize());
+    }
+
+    @Test
+    public void batchSizeDoesNotIncreaseBeyondPredictedSize()
+    {
+        final AdaptiveBatchSizeControllerImpl controller = createController();
+
+        controller.recordBatchProcessingTime(100, 10000);
+        controller.recordBatchProcessingTime(10, 1000);
+
+        // The average is still 100 ms per document, so a larger batch is not expected to fit within the target time
+        assertEquals(10, controller.getMaximumBatchSize());
+    }
+
+    @Test
+    public void batchSizeIncreasesWhenFullBatchIsFastEnough()
+    {
+        final AdaptiveBatchSizeControllerImpl controller = createController();
+
+        controller.recordBatchProcessingTime(100, 2000);
+        controller.recordBatchProcessingTime(50, 500);
+        controller.recordBatchProcessingTime(55, 500);
+
+        assertEquals(60, controller.getMaximumBatchSize());
+        assertEquals(36000, controller.getMaximumBatchTime());
+    }
+
+    @Test
+    public void batchSizeIsUnchangedWhenPartialBatchIsFastEnough()
+    {
+        final AdaptiveBatchSizeControllerImpl controller = createController();
+
+        controller.recordBatchProcessingTime(100, 2000);
+        controller.recordBatchProcessingTime(10, 100);
+
+        assertEquals(50, controller.getMaximumBatchSize());
+    }
+
+    @Test
+    public void batchSizeStaysWithinLimits()
+    {
+        final AdaptiveBatchSizeControllerImpl controller = createController();
+
+        controller.recordBatchProcessingTime(100, 100);
+        assertEquals(100, controller.getMaximumBatchSize());
+
+        for (int i = 0; i < 10; i++) {
+            controller.recordBatchProcessingTime(controller.getMaximumBatchSize(), 5000);
+        }
+        assertEquals(2, controller.getMaximumBatchSize());
+
+        controller.setMaximumBatchSize(20);
+        assertEquals(20, controller.getMaximumBatchSize());
+        assertEquals(60000, controller.getMaximumBatchTime());
+    }
+
+    private static AdaptiveBatchSizeControllerImpl createController()
+    {
+        final DocumentWorkerConfiguration configuration = new DocumentWorkerConfiguration();
+        configuration.setMaxBatchSize(100);
+        configuration.setMaxBatchTime(60000);
+
+        final AdaptiveBatchSizingConfiguration adaptiveConfiguration = new AdaptiveBatchSizingConfiguration();
+        adaptiveConfiguration.setEnabled(true);
+        adaptiveConfiguration.setTargetBatchProcessingTime(1000L);
+        adaptiveConfiguration.setMinBatchSize(2);
+        adaptiveConfiguration.setBatchSizeIncrement(5);
+
+        return new AdaptiveBatchSizeControllerImpl(null, configuration, adaptiveConfiguration);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.BulkWorkerRuntime;
+import com.hpe.caf.api.worker.WorkerResponse;
+import com.hpe.caf.api.worker.WorkerTask;
+import com.hpe.caf.worker.document.WorkerTestFixture.TestWorker;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.InputMessageProcessorImpl;
+import com.hpe.caf.worker.document.scripting.JavaScriptManager;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import com.hpe.caf.worker.document.util.DataStoreFunctions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import org.mockito.Mockito;
+
+public class BatchPayloadSizeTest
+{
+    private static final JavaScriptManager JAVA_SCRIPT_MANAGER = new JavaScriptManager(null);
+
+    @AfterAll
+    public static void tearDown()
+    {
+        JAVA_SCRIPT_MANAGER.close();
+    }
+
+    @Test
+    public void testBatchIsClosedBeforeMaximumPayloadSizeIsExceeded() throws Exception
+    {
+        final ApplicationImpl application = createApplication(100);
+        final List<WorkerTask> workerTasks = createWorkerTasks(application, false, 40, 40, 150, 40);
+        final BulkWorkerRuntime bulkWorkerRuntime = createRuntime(workerTasks);
+
+        final TestWorker bulkWorker = new TestWorker();
+        processAllTasks(() -> new BulkDocumentMessageProcessor(application, bulkWorker, bulkWorkerRuntime), bulkWorker, 4);
+
+        // The third task was held over for the next batch, where it was admitted on its own even though it is too large
+        assertEquals(
+            Arrays.asList(Arrays.asList("doc-0", "doc-1"), Arrays.asList("doc-2"), Arrays.asList("doc-3")),
+            bulkWorker.batches);
+        verifyResponsesSet(workerTasks);
+    }
+
+    @Test
+    public void testHeldOverTaskIsPassedToPrefetchedBatch() throws Exception
+    {
+        final ApplicationImpl application = createApplication(100);
+        final List<WorkerTask> workerTasks = createWorkerTasks(application, false, 40, 40, 150, 40);
+        final BulkWorkerRuntime bulkWorkerRuntime = createRuntime(workerTasks);
+
+        final TestWorker bulkWorker = new TestWorker();
+        final ExecutorService prefetchExecutor = Executors.newCachedThreadPool();
+        try {
+            processAllTasks(
+                () -> new BulkDocumentMessageProcessor(application, bulkWorker, bulkWorkerRuntime, prefetchExecutor), bulkWorker, 4);
+        } finally {
+            prefetchExecutor.shutdownNow();
+        }
+
+        assertEquals(
+            Arrays.asList(Arrays.asList("doc-0", "doc-1"), Arrays.asList("doc-2"), Arrays.asList("doc-3")),
+            bulkWorker.batches);
+        verifyResponsesSet(workerTasks);
+    }
+
+    @Test
+    public void testClaimCheckedTaskIsMeasuredByItsMessageSize() throws Exception
+    {
+        final ApplicationImpl application = createApplication(100);
+        final List<WorkerTask> workerTasks = createWorkerTasks(application, true, 40, 40, 150, 40);
+        final BulkWorkerRuntime bulkWorkerRuntime = createRuntime(workerTasks);
+
+        final TestWorker bulkWorker = new TestWorker();
+        processAllTasks(() -> new BulkDocumentMessageProcessor(application, bulkWorker, bulkWorkerRuntime), bulkWorker, 4);
+
+        // The references are small, but the third task's message is still too large to share a batch
+        assertEquals(
+            Arrays.asList(Arrays.asList("doc-0", "doc-1"), Arrays.asList("doc-2"), Arrays.asList("doc-3")),
+            bulkWorker.batches);
+        verifyResponsesSet(workerTasks);
+    }
+
+    @Test
+    public void testTaskWithNoDocumentsToAddIsNotCharged() throws Exception
+    {
+        final ApplicationImpl application = createApplication(100);
+        final List<WorkerTask> workerTasks = createWorkerTasks(application, false, 40, 80, 40, 40);
+        cancelDocuments(application, workerTasks.get(1));
+        final BulkWorkerRuntime bulkWorkerRuntime = createRuntime(workerTasks);
+
+        final TestWorker bulkWorker = new TestWorker();
+        processAllTasks(() -> new BulkDocumentMessageProcessor(application, bulkWorker, bulkWorkerRuntime), bulkWorker, 3);
+
+        // The second task's document was cancelled, so its message did not count towards the first batch's payload size
+        assertEquals(
+            Arrays.asList(Arrays.asList("doc-0", "doc-2"), Arrays.asList("doc-3")),
+            bulkWorker.batches);
+        verifyResponsesSet(workerTasks);
+    }
+
+    @Test
+    public void testPayloadSizeIsNotLimitedByDefault() throws Exception
+    {
+        final ApplicationImpl application = createApplication(0);
+        final List<WorkerTask> workerTasks = createWorkerTasks(application, false, 40, 40, 150, 40);
+
+        final TestWorker bulkWorker = new TestWorker();
+        new BulkDocumentMessageProcessor(application, bulkWorker, createRuntime(workerTasks)).processTasks();
+
+        assertEquals(Arrays.asList(Arrays.asList("doc-0", "doc-1", "doc-2", "doc-3")), bulkWorker.batches);
+        verifyResponsesSet(workerTasks);
+    }
+
+    /**
+     * The worker framework asks for the tasks to be processed again whenever the processor returns, which it does once a batch limit is
+     * reached without the next batch having been started.
+     */
+    private static void processAllTasks(
+        final Supplier<BulkDocumentMessageProcessor> processorSupplier,
+        final TestWorker bulkWorker,
+        final int documentCount
+    ) throws InterruptedException
+    {
+        for (int i = 0; i < 10 && bulkWorker.getDocumentCount() < documentCount; i++) {
+            processorSupplier.get().processTasks();
+        }
+    }
+
+    private static void verifyResponsesSet(final List<WorkerTask> workerTasks)
+    {
+        for (final WorkerTask workerTask : workerTasks) {
+            Mockito.verify(workerTask).setResponse(any(WorkerResponse.class));
+        }
+    }
+
+    private static BulkWorkerRuntime createRuntime(final List<WorkerTask> workerTasks) throws InterruptedException
+    {
+        final BulkWorkerRuntime bulkWorkerRuntime = Mockito.mock(BulkWorkerRuntime.class);
+        final WorkerTask[] remainingTasks = new WorkerTask[workerTasks.size()];
+        for (int i = 1; i < workerTasks.size(); i++) {
+            remainingTasks[i - 1] = workerTasks.get(i);
+        }
+        Mockito.when(bulkWorkerRuntime.getNextWorkerTask(anyLong())).thenReturn(workerTasks.get(0), remainingTasks);
+        return bulkWorkerRuntime;
+    }
+
+    /**
+     * Creates tasks whose messages are the specified sizes. Claim checked messages are sent as data store references, and the input
+     * message processor records the size of the message that it retrieves.
+     */
+    private static List<WorkerTask> createWorkerTasks(
+        final ApplicationImpl application,
+        final boolean claimCheck,
+        final int... dataSizes
+    ) throws Exception
+    {
+        final InputMessageProcessorImpl inputMessageProcessor = application.getInputMessageProcessor();
+        final List<WorkerTask> workerTasks = new ArrayList<>();
+        for (int i = 0; i < dataSizes.length; i++) {
+            final int dataSize = dataSizes[i];
+            final WorkerTask workerTask = Mockito.mock(WorkerTask.class);
+            Mockito.when(workerTask.getData())
+                .thenReturn(claimCheck ? DataStoreFunctions.createClaimCheck("results/" + i) : new byte[dataSize]);
+
+            final DocumentWorkerDocumentTask documentTask = new DocumentWorkerDocumentTask();
+            documentTask.document = new DocumentWorkerDocument();
+            documentTask.document.reference = "doc-" + i;
+            Mockito.when(inputMessageProcessor.createTask(workerTask)).thenAnswer(invocation -> {
+                final DocumentTask task = DocumentTask.create(application, workerTask, documentTask);
+                if (claimCheck) {
+                    task.setPayloadSize(dataSize);
+                }
+                return task;
+            });
+
+            workerTasks.add(workerTask);
+        }
+        return workerTasks;
+    }
+
+    /**
+     * Replaces the specified task with one whose script cancels its document, so that none of its documents are added to the batch.
+     */
+    private static void cancelDocuments(final ApplicationImpl application, final WorkerTask workerTask) throws Exception
+    {
+        final DocumentWorkerScript script = new DocumentWorkerScript();
+        script.name = "cancel.js";
+        script.script = "function onBeforeProcessDocument(e) { e.cancel = true; }";
+        script.engine = "GRAAL_JS";
+
+        final DocumentWorkerDocumentTask documentTask = new DocumentWorkerDocumentTask();
+        documentTask.document = new DocumentWorkerDocument();
+        documentTask.document.reference = "cancelled";
+        documentTask.scripts = Collections.singletonList(script);
+        Mockito.when(application.getInputMessageProcessor().createTask(workerTask))
+            .thenAnswer(invocation -> DocumentTask.create(application, workerTask, documentTask));
+    }
+
+    private static ApplicationImpl createApplication(final long maxBatchBytes)
+    {
+        final DocumentWorkerConfiguration configuration = WorkerTestFixture.createConfiguration();
+        configuration.setMaxBatchBytes(maxBatchBytes);
+        final ApplicationImpl application = WorkerTestFixture.createApplication(configuration);
+        Mockito.when(application.getJavaScriptManager()).thenReturn(JAVA_SCRIPT_MANAGER);
+        return application;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.BulkWorkerRuntime;
+import com.hpe.caf.api.worker.TaskRejectedException;
+import com.hpe.caf.api.worker.WorkerResponse;
+import com.hpe.caf.api.worker.WorkerTask;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.model.Documents;
+import com.hpe.caf.worker.document.scripting.JavaScriptManager;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class BatchPipeliningTest
+{
+    private ExecutorService prefetchExecutor;
+    private JavaScriptManager javaScriptManager;
+    private ApplicationImpl application;
+    private List<WorkerTask> workerTasks;
+    private BulkWorkerRuntime bulkWorkerRuntime;
+    private Map<String, Thread> retrievingThreads;
+    private Map<String, Thread> loadingThreads;
+    private Set<String> unloadedTasks;
+
+    /**
+     * Released once the prefetch stage has retrieved the last task, so that the first batch can be held in the worker until then.
+     */
+    private CountDownLatch lastTaskRetrieved;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        final DocumentWorkerConfiguration configuration = WorkerTestFixture.createConfiguration();
+        configuration.setMaxBatchSize(2);
+
+        prefetchExecutor = Executors.newCachedThreadPool();
+        javaScriptManager = new JavaScriptManager(null);
+        application = WorkerTestFixture.createApplication(configuration);
+        Mockito.when(application.getJavaScriptManager()).thenReturn(javaScriptManager);
+        workerTasks = new ArrayList<>();
+        retrievingThreads = new ConcurrentHashMap<>();
+        loadingThreads = new ConcurrentHashMap<>();
+        unloadedTasks = ConcurrentHashMap.newKeySet();
+        lastTaskRetrieved = new CountDownLatch(1);
+
+        for (int i = 0; i < 4; i++) {
+            workerTasks.add(createWorkerTask("doc-" + i));
+        }
+
+        final ConcurrentLinkedQueue<WorkerTask> queuedTasks = new ConcurrentLinkedQueue<>(workerTasks);
+        bulkWorkerRuntime = Mockito.mock(BulkWorkerRuntime.class);
+        Mockito.when(bulkWorkerRuntime.getNextWorkerTask(anyLong())).thenAnswer(invocation -> {
+            final WorkerTask workerTask = queuedTasks.poll();
+            if (workerTask == null) {
+                Thread.sleep(1);
+                return null;
+            }
+            retrievingThreads.put(getReference(workerTask), Thread.currentThread());
+            if (queuedTasks.isEmpty()) {
+                lastTaskRetrieved.countDown();
+            }
+            return workerTask;
+        });
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        prefetchExecutor.shutdownNow();
+        javaScriptManager.close();
+    }
+
+    @Test
+    public void testNextBatchIsPrefetchedWhilstCurrentBatchIsProcessed() throws Exception
+    {
+        final FirstBatchWorker bulkWorker = new FirstBatchWorker(() -> {
+        });
+
+        createProcessor(bulkWorker).processTasks();
+
+        assertEquals(Arrays.asList(Arrays.asList("doc-0", "doc-1"), Arrays.asList("doc-2", "doc-3")), bulkWorker.batches);
+
+        // The scripts of each task handled both the events raised before the batch was processed and the events raised after it
+        for (final WorkerTask workerTask : workerTasks) {
+            final ArgumentCaptor<WorkerResponse> response = ArgumentCaptor.forClass(WorkerResponse.class);
+            Mockito.verify(workerTask).setResponse(response.capture());
+            final String result = new String(response.getValue().getData(), StandardCharsets.UTF_8);
+            assertTrue(result.contains("PREPARED") && result.contains("COMPLETED"), result);
+        }
+
+        // The second batch was retrieved and prepared by the prefetch stage, and then processed by the processing thread
+        final Thread processingThread = Thread.currentThread();
+        assertSame(processingThread, loadingThreads.get("doc-0"));
+        assertSame(processingThread, loadingThreads.get("doc-1"));
+        for (final String reference : Arrays.asList("doc-2", "doc-3")) {
+            assertNotSame(processingThread, retrievingThreads.get(reference));
+            assertSame(retrievingThreads.get(reference), loadingThreads.get(reference));
+        }
+    }
+
+    @Test
+    public void testPrefetchedBatchIsRejectedWhenInterrupted() throws Exception
+    {
+        final FirstBatchWorker bulkWorker = new FirstBatchWorker(() -> Thread.currentThread().interrupt());
+
+        assertThrows(InterruptedException.class, () -> createProcessor(bulkWorker).processTasks());
+
+        assertEquals(Collections.singletonList(Arrays.asList("doc-0", "doc-1")), bulkWorker.batches);
+        Mockito.verify(workerTasks.get(0)).setResponse(any(WorkerResponse.class));
+        Mockito.verify(workerTasks.get(1)).setResponse(any(WorkerResponse.class));
+        verifyRejectedAndScriptsUnloaded(workerTasks.get(2));
+        verifyRejectedAndScriptsUnloaded(workerTasks.get(3));
+    }
+
+    @Test
+    public void testPrefetchedBatchIsRejectedWhenProcessingFails() throws Exception
+    {
+        final FirstBatchWorker bulkWorker = new FirstBatchWorker(() -> {
+            throw new IllegalStateException("Worker failed");
+        });
+
+        assertThrows(IllegalStateException.class, () -> createProcessor(bulkWorker).processTasks());
+
+        verifyRejectedAndScriptsUnloaded(workerTasks.get(2));
+        verifyRejectedAndScriptsUnloaded(workerTasks.get(3));
+    }
+
+    private BulkDocumentMessageProcessor createProcessor(final FirstBatchWorker bulkWorker)
+    {
+        return new BulkDocumentMessageProcessor(application, bulkWorker, bulkWorkerRuntime, prefetchExecutor);
+    }
+
+    private void verifyRejectedAndScriptsUnloaded(final WorkerTask workerTask)
+    {
+        Mockito.verify(workerTask).setResponse(any(TaskRejectedException.class));
+        Mockito.verify(workerTask, Mockito.never()).setResponse(any(WorkerResponse.class));
+        assertTrue(unloadedTasks.contains(getReference(workerTask)));
+    }
+
+    private WorkerTask createWorkerTask(final String reference) throws Exception
+    {
+        final WorkerTask workerTask = Mockito.mock(WorkerTask.class);
+        Mockito.when(workerTask.getData()).thenReturn(new byte[0]);
+        Mockito.when(workerTask.toString()).thenReturn(reference);
+
+        final DocumentWorkerScript script = new DocumentWorkerScript();
+        script.name = "pipelining.js";
+        script.script = "function onProcessTask(e) { e.rootDocument.getField('PREPARED').add('true'); }"
+            + "function onAfterProcessTask(e) { e.rootDocument.getField('COMPLETED').add('true'); }";
+        script.engine = "GRAAL_JS";
+
+        final DocumentWorkerDocumentTask documentTask = new DocumentWorkerDocumentTask();
+        documentTask.document = WorkerTestFixture.createDocument(reference, 0);
+        documentTask.scripts = Collections.singletonList(script);
+
+        Mockito.when(application.getInputMessageProcessor().createTask(workerTask)).thenAnswer(invocation -> {
+            final DocumentTask task = Mockito.spy(DocumentTask.create(application, workerTask, documentTask));
+            Mockito.doAnswer(loadInvocation -> {
+                loadingThreads.put(reference, Thread.currentThread());
+                return loadInvocation.callRealMethod();
+            }).when(task).loadScripts();
+            Mockito.doAnswer(unloadInvocation -> {
+                unloadedTasks.add(reference);
+                return unloadInvocation.callRealMethod();
+            }).when(task).unloadScripts();
+            return task;
+        });
+        return workerTask;
+    }
+
+    private static String getReference(final WorkerTask workerTask)
+    {
+        return workerTask.toString();
+    }
+
+    /**
+     * Holds the first batch until the prefetch stage has retrieved all of the remaining tasks, and then runs the specified action.
+     */
+    private final class FirstBatchWorker extends WorkerTestFixture.TestWorker
+    {
+        private final Runnable firstBatchAction;
+
+        public FirstBatchWorker(final Runnable firstBatchAction)
+        {
+            this.firstBatchAction = firstBatchAction;
+        }
+
+        @Override
+        public void processDocuments(final Documents documents)
+        {
+            final boolean isFirstBatch = batches.isEmpty();
+            super.processDocuments(documents);
+
+            if (isFirstBatch) {
+                try {
+                    assertTrue(lastTaskRetrieved.await(1, TimeUnit.MINUTES));
+                } catch (final InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                firstBatchAction.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.CodecException;
+import com.hpe.caf.api.DecodeMethod;
+import com.hpe.caf.api.worker.TaskRejectedException;
+import com.hpe.caf.api.worker.WorkerResponse;
+import com.hpe.caf.api.worker.WorkerTaskData;
+import static com.hpe.caf.worker.document.WorkerTestFixture.CBOR_CODEC;
+import static com.hpe.caf.worker.document.WorkerTestFixture.CODEC;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.InputMessageProcessorImpl;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class CborCodecTest
+{
+    @Test
+    public void testRoundTripMatchesJson() throws Exception
+    {
+        final DocumentWorkerDocumentTask task = createDocumentTask();
+
+        final byte[] jsonData = CODEC.serialise(task);
+        final byte[] cborData = CBOR_CODEC.serialise(task);
+
+        // The binary field value is carried without the base64 overhead
+        assertTrue(cborData.length < jsonData.length * 4 / 5,
+                   "CBOR size " + cborData.length + " should be well below JSON size " + jsonData.length);
+
+        final DocumentWorkerDocumentTask decodedTask = CBOR_CODEC.deserialise(cborData, DocumentWorkerDocumentTask.class);
+        assertArrayEquals(jsonData, CODEC.serialise(decodedTask));
+    }
+
+    @Test
+    public void testInvalidDataIsRejected() throws Exception
+    {
+        final byte[] cborData = CBOR_CODEC.serialise(createDocumentTask());
+
+        // Truncated data
+        assertThrows(CodecException.class,
+                     () -> CBOR_CODEC.deserialise(Arrays.copyOf(cborData, cborData.length - 1), DocumentWorkerDocumentTask.class));
+
+        // Trailing data
+        assertThrows(CodecException.class,
+                     () -> CBOR_CODEC.deserialise(Arrays.copyOf(cborData, cborData.length + 1), DocumentWorkerDocumentTask.class));
+
+        // Unrecognised properties are only rejected by strict decoding
+        final HashMap<String, Object> message = new HashMap<>();
+        message.put("document", Collections.singletonMap("reference", "ref"));
+        message.put("unknown", true);
+        final byte[] unknownPropertyData = CBOR_CODEC.serialise(message);
+        assertThrows(CodecException.class,
+                     () -> CBOR_CODEC.deserialise(unknownPropertyData, DocumentWorkerDocumentTask.class, DecodeMethod.STRICT));
+        assertEquals("ref",
+                     CBOR_CODEC.deserialise(unknownPropertyData, DocumentWorkerDocumentTask.class, DecodeMethod.LENIENT)
+                         .document.reference);
+    }
+
+    @Test
+    public void testNewerTaskVersionsAreRejected() throws Exception
+    {
+        final InputMessageProcessorImpl inputMessageProcessor = new InputMessageProcessorImpl(createApplication(), null);
+        final byte[] data = CBOR_CODEC.serialise(createDocumentTask());
+
+        // Versions beyond the latest version are rejected so that they can be picked up by another worker
+        assertThrows(TaskRejectedException.class, () -> inputMessageProcessor.createTask(
+            createWorkerTask(DocumentWorkerConstants.DOCUMENT_TASK_CBOR_API_VER + 1, data)));
+    }
+
+    private static ApplicationImpl createApplication()
+    {
+        return WorkerTestFixture.createApplication(WorkerTestFixture.createConfiguration());
+    }
+
+    @Test
+    public void testCborResultsHaveTheirOwnVersion() throws Exception
+    {
+        final DocumentWorkerConfiguration configuration = WorkerTestFixture.createConfiguration();
+        final WorkerTaskData workerTask = Mockito.mock(WorkerTaskData.class);
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = WorkerTestFixture.createDocument("root", 0);
+
+        // Results are JSON encoded unless the consumers have opted in to CBOR
+        final WorkerResponse jsonResponse
+            = DocumentTask.create(WorkerTestFixture.createApplication(configuration), workerTask, task).createWorkerResponse();
+        assertEquals(1, jsonResponse.getApiVersion());
+
+        // CBOR encoded results have a newer version, so that workers which cannot decode them reject them rather than failing them
+        configuration.setCborResultsEnabled(true);
+        final WorkerResponse cborResponse
+            = DocumentTask.create(WorkerTestFixture.createApplication(configuration), workerTask, task).createWorkerResponse();
+        assertEquals(DocumentWorkerConstants.DOCUMENT_TASK_CBOR_API_VER, cborResponse.getApiVersion());
+        assertEquals("root", CBOR_CODEC.deserialise(cborResponse.getData(), DocumentWorkerDocumentTask.class).document.reference);
+    }
+
+    private static WorkerTaskData createWorkerTask(final int version, final byte[] data)
+    {
+        final WorkerTaskData workerTask = Mockito.mock(WorkerTaskData.class);
+        Mockito.when(workerTask.getClassifier()).thenReturn(DocumentWorkerConstants.DOCUMENT_TASK_NAME);
+        Mockito.when(workerTask.getVersion()).thenReturn(version);
+        Mockito.when(workerTask.getData()).thenReturn(data);
+        return workerTask;
+    }
+
+    private static DocumentWorkerDocumentTask createDocumentTask()
+    {
+        final byte[] binaryData = new byte[16 * 1024];
+        new Random(1).nextBytes(binaryData);
+
+        final DocumentWorkerDocument subdocument = new DocumentWorkerDocument();
+        subdocument.reference = "root/0";
+        subdocument.fields = new HashMap<>();
+        subdocument.fields.put("TEXT", Collections.singletonList(createFieldValue("café", DocumentWorkerFieldEncoding.utf8)));
+
+        final DocumentWorkerDocument document = new DocumentWorkerDocument();
+        document.reference = "root";
+        document.fields = new HashMap<>();
+        document.fields.put("BINARY", Arrays.asList(
+            createFieldValue(Base64.getEncoder().encodeToString(binaryData), DocumentWorkerFieldEncoding.base64),
+            createFieldValue("not base64!", DocumentWorkerFieldEncoding.base64)));
+        document.fields.put("STORED", Collections.singletonList(createFieldValue("ref/1", DocumentWorkerFieldEncoding.storage_ref)));
+        document.fields.put("TEXT", Collections.singletonList(createFieldValue("value", null)));
+        document.subdocuments = new ArrayList<>(Collections.singletonList(subdocument));
+
+        final DocumentWorkerChange change = new DocumentWorkerChange();
+        change.addFields = new HashMap<>();
+        change.addFields.put("ADDED", Collections.singletonList(
+            createFieldValue(Base64.getEncoder().encodeToString("added".getBytes(StandardCharsets.UTF_8)),
+                             DocumentWorkerFieldEncoding.base64)));
+
+        final DocumentWorkerChangeLogEntry changeLogEntry = new DocumentWorkerChangeLogEntry();
+        changeLogEntry.name = "stage-1";
+        changeLogEntry.changes = Collections.singletonList(change);
+
+        final DocumentWorkerScript script = new DocumentWorkerScript();
+        script.name = "test.js";
+        script.script = "function onProcessDocument() {}";
+
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = document;
+        task.changeLog = Collections.singletonList(changeLogEntry);
+        task.customData = Collections.singletonMap("key", "value");
+        task.scripts = Collections.singletonList(script);
+        return task;
+    }
+
+    private static DocumentWorkerFieldValue createFieldValue(final String data, final DocumentWorkerFieldEncoding encoding)
+    {
+        final DocumentWorkerFieldValue value = new DocumentWorkerFieldValue();
+        value.data = data;
+        value.encoding = encoding;
+        return value;
+    }
+}
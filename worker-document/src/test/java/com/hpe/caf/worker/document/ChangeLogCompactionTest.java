@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.worker.document.changelog.MutableDocument;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.converters.ReadOnlyDocumentConverter;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import com.hpe.caf.worker.document.views.ReadOnlyDocument;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mockito;
+
+public class ChangeLogCompactionTest
+{
+    @Test
+    public void compactedResultMatchesFullChangeLogTest() throws Exception
+    {
+        final DocumentWorkerDocumentTask fullResult = processTask(false);
+        final DocumentWorkerDocumentTask compactedResult = processTask(true);
+
+        assertEquals(Arrays.asList("stage-1", "stage-2", "test-worker:1.0"), getEntryNames(compactedResult));
+        assertEquals(getEntryNames(fullResult), getEntryNames(compactedResult));
+        assertNull(compactedResult.changeLog.get(0).changes);
+        assertNull(compactedResult.changeLog.get(1).changes);
+
+        assertEquals(getEffectiveDocument(fullResult), getEffectiveDocument(compactedResult));
+    }
+
+    @Test
+    public void compactedResultKeepsFieldOrderTest() throws Exception
+    {
+        final DocumentWorkerDocumentTask compactedResult = processTask(true);
+
+        assertEquals(Arrays.asList("TITLE", "NAME", "AUTHOR", "STAGE"), new ArrayList<>(compactedResult.document.fields.keySet()));
+    }
+
+    private static DocumentWorkerDocumentTask processTask(final boolean compactChangeLog) throws Exception
+    {
+        final DocumentWorkerConfiguration configuration = WorkerTestFixture.createConfiguration();
+        configuration.setCompactChangeLog(compactChangeLog);
+
+        final ApplicationImpl application = WorkerTestFixture.createApplication(configuration);
+        final WorkerTaskData workerTaskData = Mockito.mock(WorkerTaskData.class);
+        final AtomicReference<Object> result = new AtomicReference<>();
+
+        Mockito.when(application.serialiseResult(any())).thenAnswer(invocation -> {
+            result.set(invocation.getArgument(0));
+            return new byte[0];
+        });
+        Mockito.when(application.getInputMessageProcessor().createTask(workerTaskData))
+            .thenAnswer(invocation -> DocumentTask.create(application, workerTaskData, createDocumentTask()));
+
+        new DocumentMessageProcessor(application, new WorkerTestFixture.TestWorker(), workerTaskData, null).doWork();
+
+        return (DocumentWorkerDocumentTask) result.get();
+    }
+
+    private static List<String> getEntryNames(final DocumentWorkerDocumentTask task)
+    {
+        return task.changeLog.stream().map(changeLogEntry -> changeLogEntry.name).collect(Collectors.toList());
+    }
+
+    private static String getEffectiveDocument(final DocumentWorkerDocumentTask task) throws Exception
+    {
+        final MutableDocument effectiveDocument = new MutableDocument(ReadOnlyDocument.create(task.document));
+        effectiveDocument.applyChangeLog(task.changeLog);
+
+        final DocumentWorkerDocument document = ReadOnlyDocumentConverter.convert(ReadOnlyDocument.create(effectiveDocument));
+
+        return new String(WorkerTestFixture.CODEC.serialise(document), StandardCharsets.UTF_8);
+    }
+
+    private static DocumentWorkerDocumentTask createDocumentTask()
+    {
+        final DocumentWorkerDocument subdocument = new DocumentWorkerDocument();
+        subdocument.reference = "root/0";
+
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = new DocumentWorkerDocument();
+        task.document.reference = "root";
+        task.document.fields = new LinkedHashMap<>();
+        task.document.fields.putAll(createFields("TITLE", "title"));
+        task.document.fields.putAll(createFields("NAME", "original"));
+        task.document.fields.putAll(createFields("AUTHOR", "author"));
+        task.document.subdocuments = Collections.singletonList(subdocument);
+        task.changeLog = Arrays.asList(
+            createChangeLogEntry("stage-1", createFields("NAME", "renamed")),
+            createChangeLogEntry("stage-2", createFields("STAGE", "2")));
+        return task;
+    }
+
+    private static DocumentWorkerChangeLogEntry createChangeLogEntry(
+        final String name,
+        final HashMap<String, List<DocumentWorkerFieldValue>> addFields
+    )
+    {
+        final DocumentWorkerChange change = new DocumentWorkerChange();
+        change.addFields = addFields;
+
+        final DocumentWorkerChangeLogEntry changeLogEntry = new DocumentWorkerChangeLogEntry();
+        changeLogEntry.name = name;
+        changeLogEntry.changes = Collections.singletonList(change);
+        return changeLogEntry;
+    }
+
+    private static HashMap<String, List<DocumentWorkerFieldValue>> createFields(final String fieldName, final String data)
+    {
+        final DocumentWorkerFieldValue value = new DocumentWorkerFieldValue();
+        value.data = data;
+
+        final HashMap<String, List<DocumentWorkerFieldValue>> fields = new HashMap<>();
+        fields.put(fieldName, Collections.singletonList(value));
+        return fields;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.DataStore;
+import com.hpe.caf.api.worker.DataStoreException;
+import com.hpe.caf.api.worker.InvalidTaskException;
+import com.hpe.caf.api.worker.ReferenceNotFoundException;
+import com.hpe.caf.api.worker.TaskRejectedException;
+import com.hpe.caf.api.worker.WorkerResponse;
+import com.hpe.caf.api.worker.WorkerTaskData;
+import static com.hpe.caf.worker.document.WorkerTestFixture.CODEC;
+import com.hpe.caf.worker.document.config.ClaimCheckConfiguration;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.InputMessageProcessorImpl;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import com.hpe.caf.worker.document.util.DataStoreFunctions;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+public class ClaimCheckTest
+{
+    @TempDir
+    Path dataStoreDirectory;
+
+    @Test
+    public void testLargeResponseIsStoredInDataStore() throws Exception
+    {
+        final DataStore dataStore = new FileSystemDataStore(dataStoreDirectory);
+
+        final WorkerResponse directResponse = createTask(dataStore, null, null).createWorkerResponse();
+        final WorkerResponse claimCheckResponse
+            = createTask(dataStore, createClaimCheckConfiguration(1024L), null).createWorkerResponse();
+
+        // The claim check has a newer version so that workers which cannot retrieve it reject it rather than failing it
+        assertEquals(1, directResponse.getApiVersion());
+        assertEquals(DocumentWorkerConstants.DOCUMENT_TASK_CLAIM_CHECK_API_VER, claimCheckResponse.getApiVersion());
+        assertEquals(directResponse.getQueueReference(), claimCheckResponse.getQueueReference());
+        assertEquals(directResponse.getMessageType(), claimCheckResponse.getMessageType());
+
+        final String reference = DataStoreFunctions.getClaimCheckReference(claimCheckResponse.getData());
+        assertNotNull(reference);
+        try (final InputStream stream = dataStore.retrieve(reference)) {
+            assertArrayEquals(directResponse.getData(), stream.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testSmallResponseIsSentDirectly() throws Exception
+    {
+        final DataStore dataStore = new FileSystemDataStore(dataStoreDirectory);
+
+        final WorkerResponse response
+            = createTask(dataStore, createClaimCheckConfiguration(1024L * 1024), null).createWorkerResponse();
+
+        assertEquals(1, response.getApiVersion());
+        assertEquals("root", CODEC.deserialise(response.getData(), DocumentWorkerDocumentTask.class).document.reference);
+        try (final Stream<Path> files = Files.list(dataStoreDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testConsumedClaimCheckIsKept() throws Exception
+    {
+        final DataStore dataStore = new FileSystemDataStore(dataStoreDirectory);
+        final String reference = dataStore.store("{}".getBytes(StandardCharsets.UTF_8), "results");
+
+        final WorkerResponse response = createTask(dataStore, null, DataStoreFunctions.createClaimCheck(reference)).createWorkerResponse();
+
+        // The message may be redelivered, so its data is left for the data store's retention policy to remove
+        assertEquals("root", CODEC.deserialise(response.getData(), DocumentWorkerDocumentTask.class).document.reference);
+        try (final InputStream stream = dataStore.retrieve(reference)) {
+            assertArrayEquals("{}".getBytes(StandardCharsets.UTF_8), stream.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testMissingClaimCheckedTaskIsInvalid() throws Exception
+    {
+        final InputMessageProcessorImpl inputMessageProcessor
+            = new InputMessageProcessorImpl(createApplication(new FileSystemDataStore(dataStoreDirectory), null), null);
+
+        assertThrows(InvalidTaskException.class,
+                     () -> inputMessageProcessor.createTask(createClaimCheckWorkerTask("results/missing")));
+    }
+
+    @Test
+    public void testClaimCheckedTaskIsRejectedIfDataStoreFails() throws Exception
+    {
+        final DataStore dataStore = Mockito.mock(DataStore.class);
+        Mockito.when(dataStore.retrieve("results/1")).thenThrow(new DataStoreException("Data store unavailable"));
+        final InputMessageProcessorImpl inputMessageProcessor
+            = new InputMessageProcessorImpl(createApplication(dataStore, null), null);
+
+        // The data store might recover, so the task must not be failed permanently
+        assertThrows(TaskRejectedException.class,
+                     () -> inputMessageProcessor.createTask(createClaimCheckWorkerTask("results/1")));
+    }
+
+    private static WorkerTaskData createClaimCheckWorkerTask(final String reference)
+    {
+        final WorkerTaskData workerTask = Mockito.mock(WorkerTaskData.class);
+        Mockito.when(workerTask.getClassifier()).thenReturn(DocumentWorkerConstants.DOCUMENT_TASK_NAME);
+        Mockito.when(workerTask.getVersion()).thenReturn(DocumentWorkerConstants.DOCUMENT_TASK_CLAIM_CHECK_API_VER);
+        Mockito.when(workerTask.getData()).thenReturn(DataStoreFunctions.createClaimCheck(reference));
+        return workerTask;
+    }
+
+    private static ClaimCheckConfiguration createClaimCheckConfiguration(final Long threshold)
+    {
+        final ClaimCheckConfiguration claimCheckConfig = new ClaimCheckConfiguration();
+        claimCheckConfig.setThreshold(threshold);
+        claimCheckConfig.setPartialReference("results");
+        return claimCheckConfig;
+    }
+
+    private static DocumentTask createTask(
+        final DataStore dataStore,
+        final ClaimCheckConfiguration claimCheckConfig,
+        final byte[] taskData
+    ) throws Exception
+    {
+        final WorkerTaskData workerTask = Mockito.mock(WorkerTaskData.class);
+        Mockito.when(workerTask.getData()).thenReturn(taskData);
+        return DocumentTask.create(createApplication(dataStore, claimCheckConfig), workerTask, createDocumentTask());
+    }
+
+    private static ApplicationImpl createApplication(final DataStore dataStore, final ClaimCheckConfiguration claimCheckConfig)
+    {
+        final DocumentWorkerConfiguration configuration = WorkerTestFixture.createConfiguration();
+        configuration.setClaimCheck(claimCheckConfig);
+        return WorkerTestFixture.createApplication(configuration, dataStore);
+    }
+
+    private static DocumentWorkerDocumentTask createDocumentTask()
+    {
+        final DocumentWorkerFieldValue value = new DocumentWorkerFieldValue();
+        value.data = "Some text content. ".repeat(1000);
+
+        final DocumentWorkerDocument document = new DocumentWorkerDocument();
+        document.reference = "root";
+        document.fields = new HashMap<>();
+        document.fields.put("CONTENT", Collections.singletonList(value));
+
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = document;
+        return task;
+    }
+
+    /**
+     * A data store which keeps the data in files under a directory, in the same way as the file-system data store.
+     */
+    private static final class FileSystemDataStore implements DataStore
+    {
+        private final Path directory;
+
+        public FileSystemDataStore(final Path directory)
+        {
+            this.directory = directory;
+        }
+
+        @Override
+        public void delete(final String reference) throws DataStoreException
+        {
+            try {
+                Files.delete(directory.resolve(reference));
+            } catch (final IOException ex) {
+                throw new DataStoreException("Failed to delete " + reference, ex);
+            }
+        }
+
+        @Override
+        public InputStream retrieve(final String reference) throws DataStoreException
+        {
+            try {
+                return Files.newInputStream(directory.resolve(reference));
+            } catch (final NoSuchFileException ex) {
+                throw new ReferenceNotFoundException("Reference not found: " + reference, ex);
+            } catch (final IOException ex) {
+                throw new DataStoreException("Failed to retrieve " + reference, ex);
+            }
+        }
+
+        @Override
+        public long size(final String reference) throws DataStoreException
+        {
+            try {
+                return Files.size(directory.resolve(reference));
+            } catch (final IOException ex) {
+                throw new DataStoreException("Failed to get the size of " + reference, ex);
+            }
+        }
+
+        @Override
+        public String store(final InputStream dataStream, final String partialReference) throws DataStoreException
+        {
+            final String reference = (partialReference == null ? "" : partialReference + "/") + UUID.randomUUID();
+            try {
+                final Path file = directory.resolve(reference);
+                Files.createDirectories(file.getParent());
+                Files.copy(dataStream, file);
+            } catch (final IOException ex) {
+                throw new DataStoreException("Failed to store " + reference, ex);
+            }
+            return reference;
+        }
+
+        @Override
+        public String store(final byte[] data, final String partialReference) throws DataStoreException
+        {
+            return store(new ByteArrayInputStream(data), partialReference);
+        }
+
+        @Override
+        public String store(final Path dataPath, final String partialReference) throws DataStoreException
+        {
+            try (final InputStream stream = Files.newInputStream(dataPath)) {
+                return store(stream, partialReference);
+            } catch (final IOException ex) {
+                throw new DataStoreException("Failed to store " + dataPath, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.worker.document.extensibility.DocumentWorker;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.InputMessageProcessorImpl;
+import com.hpe.caf.worker.document.model.Document;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mockito;
+
+public class ConcurrentSubdocumentProcessingTest
+{
+    @Test
+    public void changeLogMatchesSerialProcessingTest() throws Exception
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final String serialResult = serialise(processTask(null, new TestWorker()));
+            final String concurrentResult = serialise(processTask(executor, new TestWorker()));
+
+            assertEquals(serialResult, concurrentResult);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failedSiblingDoesNotRollBackSiblingsAlreadyProcessedTest() throws Exception
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final String serialChanges = serialise(getLastChanges(processTask(null, new FailingWorker(false))));
+            final String concurrentChanges = serialise(getLastChanges(processTask(executor, new FailingWorker(true))));
+
+            // The failure is reported either way, and the siblings before the failed one are processed
+            for (final String changes : List.of(serialChanges, concurrentChanges)) {
+                assertTrue(changes.contains("DW-GENERAL_FAILURE"), changes);
+                assertTrue(changes.contains(processedValue("root/2")), changes);
+            }
+
+            // Serial processing goes down the hierarchy of each sibling before moving on to the next sibling
+            assertTrue(serialChanges.contains(processedValue("root/0/0")), serialChanges);
+            assertFalse(serialChanges.contains(processedValue("root/19")), serialChanges);
+
+            // Concurrent processing handles all of the siblings first, and the ones after the failed sibling are not rolled back
+            assertFalse(concurrentChanges.contains(processedValue("root/0/0")), concurrentChanges);
+            assertTrue(concurrentChanges.contains(processedValue("root/19")), concurrentChanges);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static DocumentWorkerDocumentTask processTask(final ExecutorService executor, final DocumentWorker worker) throws Exception
+    {
+        final ApplicationImpl application = WorkerTestFixture.createApplication(WorkerTestFixture.createConfiguration());
+        final WorkerTaskData workerTaskData = Mockito.mock(WorkerTaskData.class);
+        final AtomicReference<Object> result = new AtomicReference<>();
+
+        Mockito.when(application.serialiseResult(any())).thenAnswer(invocation -> {
+            result.set(invocation.getArgument(0));
+            return new byte[0];
+        });
+
+        final InputMessageProcessorImpl inputMessageProcessor = application.getInputMessageProcessor();
+        Mockito.when(inputMessageProcessor.getProcessSubdocumentsSeparately()).thenReturn(true);
+        Mockito.when(inputMessageProcessor.createTask(workerTaskData))
+            .thenAnswer(invocation -> DocumentTask.create(application, workerTaskData, createDocumentTask()));
+
+        // A failure is reported in the result in the same way as the framework would report it
+        final DocumentMessageProcessor processor = new DocumentMessageProcessor(application, worker, workerTaskData, executor);
+        try {
+            processor.doWork();
+        } catch (final RuntimeException ex) {
+            processor.getGeneralFailureResult(ex);
+        }
+
+        return (DocumentWorkerDocumentTask) result.get();
+    }
+
+    private static List<DocumentWorkerChange> getLastChanges(final DocumentWorkerDocumentTask task)
+    {
+        return task.changeLog.get(task.changeLog.size() - 1).changes;
+    }
+
+    private static String serialise(final Object object) throws Exception
+    {
+        return new String(WorkerTestFixture.CODEC.serialise(object), StandardCharsets.UTF_8);
+    }
+
+    private static String processedValue(final String reference)
+    {
+        return "{\"data\":\"" + reference + "\"}";
+    }
+
+    private static DocumentWorkerDocumentTask createDocumentTask()
+    {
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = WorkerTestFixture.createDocument("root", 2);
+        return task;
+    }
+
+    /**
+     * Fails to process the fourth subdocument of the root document. When processing concurrently it only fails once the subdocuments
+     * after it have been processed, so that the test does not depend on how far the other threads have got.
+     */
+    private static final class FailingWorker extends WorkerTestFixture.TestWorker
+    {
+        private final boolean waitForLaterSiblings;
+        private final CountDownLatch laterSiblingsProcessed;
+
+        public FailingWorker(final boolean waitForLaterSiblings)
+        {
+            this.waitForLaterSiblings = waitForLaterSiblings;
+            this.laterSiblingsProcessed = new CountDownLatch(16);
+        }
+
+        @Override
+        public void processDocument(final Document document)
+        {
+            final String reference = document.getReference();
+            if (reference.equals("root/3")) {
+                if (waitForLaterSiblings) {
+                    try {
+                        assertTrue(laterSiblingsProcessed.await(1, TimeUnit.MINUTES));
+                    } catch (final InterruptedException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+                throw new IllegalStateException("Failed to process " + reference);
+            }
+
+            super.processDocument(document);
+
+            if (reference.matches("root/\\d+") && Integer.parseInt(reference.substring("root/".length())) > 3) {
+                laterSiblingsProcessed.countDown();
+            }
+        }
+    }
+
+    /**
+     * Also changes the existing fields and subdocuments of some of the documents, so that concurrent changes are made to siblings.
+     */
+    private static final class TestWorker extends WorkerTestFixture.TestWorker
+    {
+        @Override
+        public void processDocument(final Document document)
+        {
+            super.processDocument(document);
+
+            final String reference = document.getReference();
+            if (reference.endsWith("3")) {
+                document.getField("NAME").clear();
+                document.getSubdocuments().add(reference + "/new").getField("NEW").add("value");
+            }
+        }
+    }
+}
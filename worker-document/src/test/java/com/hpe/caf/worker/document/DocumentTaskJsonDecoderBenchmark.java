@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.DecodeMethod;
+import com.hpe.caf.codec.JsonCodec;
+import com.hpe.caf.worker.document.converters.DocumentTaskJsonDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compares the streaming JSON decoder with the worker's codec when decoding a large composite document message.
+ * <p>
+ * This is not part of the unit tests. Run its main method with the test classpath.
+ */
+public final class DocumentTaskJsonDecoderBenchmark
+{
+    private static final JsonCodec CODEC = new JsonCodec();
+
+    private DocumentTaskJsonDecoderBenchmark()
+    {
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        final byte[] data = CODEC.serialise(createDocumentTask(200, 10));
+        System.out.printf("Message size: %d KB%n", data.length / 1024);
+
+        MicroBenchmark.measure("Codec", () -> CODEC.deserialise(data, DocumentWorkerDocumentTask.class, DecodeMethod.STRICT));
+        MicroBenchmark.measure("Streaming decoder", () -> DocumentTaskJsonDecoder.decode(data));
+        MicroBenchmark.measure("Streaming decoder, one field projected",
+                               () -> DocumentTaskJsonDecoder.decode(data, Collections.singleton("FIELD_1")));
+    }
+
+    private static DocumentWorkerDocumentTask createDocumentTask(final int subdocumentCount, final int nestedSubdocumentCount)
+    {
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = createDocument("root", 5, 1024);
+        task.document.subdocuments = new ArrayList<>();
+        for (int i = 0; i < subdocumentCount; i++) {
+            final DocumentWorkerDocument subdocument = createDocument("root/" + i, 3, 128);
+            subdocument.subdocuments = new ArrayList<>();
+            for (int j = 0; j < nestedSubdocumentCount; j++) {
+                subdocument.subdocuments.add(createDocument("root/" + i + "/" + j, 2, 64));
+            }
+            task.document.subdocuments.add(subdocument);
+        }
+        return task;
+    }
+
+    private static DocumentWorkerDocument createDocument(final String reference, final int fieldCount, final int valueLength)
+    {
+        final DocumentWorkerDocument document = new DocumentWorkerDocument();
+        document.reference = reference;
+        document.fields = new HashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            final List<DocumentWorkerFieldValue> values = new ArrayList<>();
+            values.add(createFieldValue("Some text content. ".repeat(valueLength / 19 + 1)));
+            values.add(createFieldValue("value " + i));
+            document.fields.put("FIELD_" + i, values);
+        }
+        return document;
+    }
+
+    private static DocumentWorkerFieldValue createFieldValue(final String data)
+    {
+        final DocumentWorkerFieldValue value = new DocumentWorkerFieldValue();
+        value.data = data;
+        return value;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.CodecException;
+import com.hpe.caf.api.DecodeMethod;
+import com.hpe.caf.codec.JsonCodec;
+import com.hpe.caf.worker.document.converters.DocumentTaskJsonDecoder;
+import com.hpe.caf.worker.document.converters.RawFieldValueList;
+import com.hpe.caf.worker.document.output.DocumentTaskJsonWriter;
+import com.hpe.caf.worker.document.views.ReadOnlyFieldValues;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class DocumentTaskJsonDecoderTest
+{
+    private static final JsonCodec CODEC = new JsonCodec();
+
+    @Test
+    public void testDecodedTaskMatchesCodec() throws Exception
+    {
+        final byte[] data = createMessage(3, 2);
+
+        assertEquals(serialise(CODEC.deserialise(data, DocumentWorkerDocumentTask.class, DecodeMethod.STRICT)),
+                     serialise(DocumentTaskJsonDecoder.decode(data)));
+    }
+
+    @Test
+    public void testUnrecognisedPropertiesAreRejected()
+    {
+        assertThrows(IOException.class, () -> decode("{\"document\":{\"reference\":\"r\",\"unknown\":1}}"));
+        assertThrows(IOException.class, () -> decode("{\"document\":{\"fields\":{\"F\":[{\"data\":\"d\",\"extra\":true}]}}}"));
+        assertThrows(IOException.class, () -> decode("{\"document\":{\"fields\":{\"F\":[{\"encoding\":\"unknown\"}]}}}"));
+        assertThrows(IOException.class, () -> decode("{\"document\":{}} {}"));
+    }
+
+    @Test
+    public void testProjectedDecodeMatchesCodec() throws Exception
+    {
+        final byte[] data = createMessage(3, 2);
+        final DocumentWorkerDocumentTask task = DocumentTaskJsonDecoder.decode(data, Collections.singleton("NAME"));
+
+        final RawFieldValueList contentValues = (RawFieldValueList) task.document.fields.get("CONTENT");
+        assertFalse(contentValues.isDecoded());
+        assertEquals(1, contentValues.size());
+        assertNull(task.document.fields.get("NULL"));
+
+        // The undeclared field values are decoded when they are accessed
+        assertEquals(serialise(CODEC.deserialise(data, DocumentWorkerDocumentTask.class, DecodeMethod.STRICT)),
+                     serialise(task));
+        assertTrue(contentValues.isDecoded());
+
+        // Undeclared field values are still checked
+        assertThrows(IOException.class, () -> DocumentTaskJsonDecoder.decode(
+            "{\"document\":{\"fields\":{\"F\":[{\"data\":\"d\",\"extra\":true}]}}}".getBytes(StandardCharsets.UTF_8),
+            Collections.singleton("NAME")));
+    }
+
+    @Test
+    public void testNullFieldValuesAreRejectedWithoutDecoding() throws Exception
+    {
+        final DocumentWorkerDocumentTask task = DocumentTaskJsonDecoder.decode(
+            "{\"document\":{\"fields\":{\"F\":[{\"data\":\"d\"},null],\"G\":[{\"data\":\"d\"}]}}}".getBytes(StandardCharsets.UTF_8),
+            Collections.singleton("NAME"));
+
+        final RawFieldValueList valuesWithNull = (RawFieldValueList) task.document.fields.get("F");
+        assertThrows(NullPointerException.class, () -> ReadOnlyFieldValues.create(valuesWithNull));
+        assertFalse(valuesWithNull.isDecoded());
+
+        final RawFieldValueList values = (RawFieldValueList) task.document.fields.get("G");
+        assertEquals(1, ReadOnlyFieldValues.create(values).size());
+        assertFalse(values.isDecoded());
+    }
+
+    @Test
+    public void testUndecodedFieldValuesArePassedThrough() throws Exception
+    {
+        // Raw values are copied exactly as they were received so start from the codec's own form of the message
+        final byte[] data = CODEC.serialise(CODEC.deserialise(createMessage(3, 2), DocumentWorkerDocumentTask.class));
+        final DocumentWorkerDocumentTask task = DocumentTaskJsonDecoder.decode(data, Collections.singleton("NAME"));
+
+        final byte[] result = writeResult(task);
+        assertFalse(((RawFieldValueList) task.document.fields.get("CONTENT")).isDecoded());
+
+        assertEquals(new String(writeResult(DocumentTaskJsonDecoder.decode(data)), StandardCharsets.UTF_8),
+                     new String(result, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLargeMessageMatchesCodec() throws Exception
+    {
+        final byte[] data = createMessage(20, 3);
+        final DocumentWorkerDocumentTask task = DocumentTaskJsonDecoder.decode(data);
+
+        assertEquals(serialise(CODEC.deserialise(data, DocumentWorkerDocumentTask.class, DecodeMethod.STRICT)), serialise(task));
+
+        // Field names which are repeated across subdocuments share the same string
+        assertSame(getFieldName(task.document.subdocuments.get(0), "CONTENT"),
+                   getFieldName(task.document.subdocuments.get(19).subdocuments.get(19), "CONTENT"));
+    }
+
+    private static String getFieldName(final DocumentWorkerDocument document, final String fieldName)
+    {
+        return document.fields.keySet().stream().filter(fieldName::equals).findFirst().orElseThrow();
+    }
+
+    private static byte[] writeResult(final DocumentWorkerDocumentTask task) throws IOException
+    {
+        try (final DocumentTaskJsonWriter writer = new DocumentTaskJsonWriter()) {
+            writer.writeDocument(task.document);
+            writer.startChangeLogEntry(task.changeLog, "test-worker:1.0");
+            writer.endChangeLogEntry();
+            return writer.toByteArray();
+        }
+    }
+
+    private static DocumentWorkerDocumentTask decode(final String data) throws IOException
+    {
+        return DocumentTaskJsonDecoder.decode(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String serialise(final Object value) throws CodecException
+    {
+        return new String(CODEC.serialise(value), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] createMessage(final int subdocumentCount, final int depth)
+    {
+        final String message = "{"
+            + "\"document\":" + createDocument("root", subdocumentCount, depth) + ","
+            + "\"changeLog\":[{\"name\":\"stage-1\",\"changes\":[{\"addFields\":{\"STAGE\":[{\"data\":\"1\"}]},"
+            + "\"updateSubdocument\":{\"index\":0,\"reference\":\"root/0\",\"changes\":[{\"removeFields\":[\"NAME\"]}]}}]}],"
+            + "\"customData\":{\"key\":\"value\"},"
+            + "\"scripts\":[{\"name\":\"test.js\",\"script\":\"function onProcessDocument() {}\",\"engine\":\"GRAAL_JS\"}]"
+            + "}";
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String createDocument(final String reference, final int subdocumentCount, final int depth)
+    {
+        final StringBuilder document = new StringBuilder()
+            .append("{\"reference\":\"").append(reference).append("\",")
+            .append("\"fields\":{")
+            .append("\"NAME\":[{\"data\":\"").append(reference).append("\"}],")
+            .append("\"CONTENT\":[{\"data\":\"").append("Some text content. ".repeat(20)).append("\",\"encoding\":\"utf8\"}],")
+            .append("\"BINARY\":[{\"data\":\"U2FtcGxl\",\"encoding\":\"base64\"},{\"data\":null}],")
+            .append("\"EMPTY\":[],\"NULL\":null},")
+            .append("\"failures\":[{\"failureId\":\"ID\",\"failureMessage\":\"Message\"}]");
+
+        if (depth > 0) {
+            document.append(",\"subdocuments\":[");
+            for (int i = 0; i < subdocumentCount; i++) {
+                if (i > 0) {
+                    document.append(',');
+                }
+                document.append(createDocument(reference + "/" + i, subdocumentCount, depth - 1));
+            }
+            document.append(']');
+        }
+
+        return document.append('}').toString();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.converters.DecodedDocumentTask;
+import com.hpe.caf.worker.document.converters.DocumentTaskJsonDecoder;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import org.mockito.Mockito;
+
+/**
+ * Compares the streaming JSON writer with the worker's codec when writing the result of a large composite document task.
+ * <p>
+ * Each operation creates the task from the decoded message, adds a field to the root document, and creates the response. This is not
+ * part of the unit tests. Run its main method with the test classpath.
+ */
+public final class DocumentTaskJsonWriterBenchmark
+{
+    private DocumentTaskJsonWriterBenchmark()
+    {
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        final DocumentWorkerDocumentTask task = createDocumentTask(200, 10);
+        final byte[] data = WorkerTestFixture.CODEC.serialise(task);
+        System.out.printf("Message size: %d KB%n", data.length / 1024);
+
+        final ApplicationImpl serialisingApplication = createApplication(false);
+        final ApplicationImpl streamingApplication = createApplication(true);
+        final WorkerTaskData workerTask = Mockito.mock(WorkerTaskData.class);
+
+        MicroBenchmark.measure("Codec", () -> createResponse(DocumentTask.create(serialisingApplication, workerTask, task)));
+        MicroBenchmark.measure("Streaming writer", () -> createResponse(DocumentTask.create(streamingApplication, workerTask, task)));
+        final DecodedDocumentTask decodedTask = DocumentTaskJsonDecoder.decodeRetainingSource(data, null);
+        MicroBenchmark.measure("Streaming writer, source passed through",
+                               () -> createResponse(DocumentTask.create(streamingApplication, workerTask, decodedTask)));
+    }
+
+    private static Object createResponse(final DocumentTask task)
+    {
+        task.getDocument().getField("PROCESSED").add("true");
+        return task.createWorkerResponse();
+    }
+
+    private static ApplicationImpl createApplication(final boolean streamingJsonEncoderEnabled)
+    {
+        final DocumentWorkerConfiguration configuration = WorkerTestFixture.createConfiguration();
+        configuration.setStreamingJsonEncoderEnabled(streamingJsonEncoderEnabled);
+        return WorkerTestFixture.createApplication(configuration);
+    }
+
+    private static DocumentWorkerDocumentTask createDocumentTask(final int subdocumentCount, final int nestedSubdocumentCount)
+    {
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = createDocument("root", 5, 1024);
+        task.document.subdocuments = new ArrayList<>();
+        for (int i = 0; i < subdocumentCount; i++) {
+            final DocumentWorkerDocument subdocument = createDocument("root/" + i, 3, 128);
+            subdocument.subdocuments = new ArrayList<>();
+            for (int j = 0; j < nestedSubdocumentCount; j++) {
+                subdocument.subdocuments.add(createDocument("root/" + i + "/" + j, 2, 64));
+            }
+            task.document.subdocuments.add(subdocument);
+        }
+        task.customData = Collections.singletonMap("original", "data");
+        return task;
+    }
+
+    private static DocumentWorkerDocument createDocument(final String reference, final int fieldCount, final int valueLength)
+    {
+        final DocumentWorkerDocument document = new DocumentWorkerDocument();
+        document.reference = reference;
+        document.fields = new HashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            final List<DocumentWorkerFieldValue> values = new ArrayList<>();
+            values.add(createFieldValue("Some text content. ".repeat(valueLength / 19 + 1)));
+            values.add(createFieldValue("value " + i));
+            document.fields.put("FIELD_" + i, values);
+        }
+        return document;
+    }
+
+    private static DocumentWorkerFieldValue createFieldValue(final String data)
+    {
+        final DocumentWorkerFieldValue value = new DocumentWorkerFieldValue();
+        value.data = data;
+        return value;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.DataStore;
+import com.hpe.caf.api.worker.WorkerResponse;
+import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.codec.JsonCodec;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.converters.DecodedDocumentTask;
+import com.hpe.caf.worker.document.converters.DocumentTaskJsonDecoder;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.FieldValueSpiller;
+import com.hpe.caf.worker.document.impl.InputMessageProcessorImpl;
+import com.hpe.caf.worker.document.model.Document;
+import com.hpe.caf.worker.document.model.Subdocument;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mockito;
+
+public class DocumentTaskJsonWriterTest
+{
+    private static final JsonCodec CODEC = new JsonCodec();
+
+    @Test
+    public void testUnchangedDocumentMatchesCodec() throws Exception
+    {
+        assertStreamedResultMatchesCodec(createDocumentTask(3, 2), false, document -> {
+        });
+    }
+
+    @Test
+    public void testChangedDocumentMatchesCodec() throws Exception
+    {
+        final Consumer<Document> changes = document -> {
+            document.setReference("renamed");
+            document.getField("FIELD_0").set("replaced");
+            document.getField("FIELD_1").clear();
+            document.getField("NEW_FIELD").add("added".getBytes(StandardCharsets.UTF_8));
+            document.getFailures().add("TEST-FAILURE", "Root failure");
+            document.getTask().getResponse().getCustomData().put("key", "value");
+
+            // Leave the first subdocument untouched, change the second, remove the third, and add a new one
+            final Subdocument changedSubdocument = document.getSubdocuments().get(1);
+            changedSubdocument.getField("CHILD_FIELD").add("child");
+            changedSubdocument.getSubdocuments().get(0).getFailures().add("TEST-FAILURE", "Nested failure");
+            document.getSubdocuments().get(2).delete();
+            document.getSubdocuments().add("new-subdocument").getField("NEW_CHILD_FIELD").add("value");
+        };
+
+        assertStreamedResultMatchesCodec(createDocumentTask(3, 2), false, changes);
+        assertStreamedResultMatchesCodec(createDocumentTask(3, 2), true, changes);
+    }
+
+    @Test
+    public void testClearedFailuresMatchCodec() throws Exception
+    {
+        final DocumentWorkerDocumentTask task = createDocumentTask(1, 0);
+        final DocumentWorkerFailure failure = new DocumentWorkerFailure();
+        failure.failureId = "ORIGINAL-FAILURE";
+        failure.failureMessage = "Original failure";
+        task.document.failures = Collections.singletonList(failure);
+
+        assertStreamedResultMatchesCodec(task, false, document -> document.getFailures().clear());
+    }
+
+    @Test
+    public void testLargeDocumentMatchesCodec() throws Exception
+    {
+        final Consumer<Document> changes = document -> {
+            document.getField("FIELD_0").add(createValue(4096));
+            for (final Subdocument subdocument : document.getSubdocuments()) {
+                subdocument.getField("CHILD_FIELD").add(createValue(256));
+            }
+        };
+
+        assertStreamedResultMatchesCodec(createDocumentTask(200, 10), false, changes);
+    }
+
+    private static void assertStreamedResultMatchesCodec(
+        final DocumentWorkerDocumentTask task,
+        final boolean compactChangeLog,
+        final Consumer<Document> changes
+    ) throws Exception
+    {
+        final DocumentTask serialisedTask = createTask(task, false, compactChangeLog);
+        changes.accept(serialisedTask.getDocument());
+
+        final DocumentTask streamedTask = createTask(task, true, compactChangeLog);
+        changes.accept(streamedTask.getDocument());
+
+        // The base document and change log are copied from the input message when its encoded form has been kept
+        final DocumentTask passedThroughTask = createPassedThroughTask(task, compactChangeLog);
+        changes.accept(passedThroughTask.getDocument());
+
+        final WorkerResponse serialisedResponse = serialisedTask.createWorkerResponse();
+        final WorkerResponse streamedResponse = streamedTask.createWorkerResponse();
+        final WorkerResponse passedThroughResponse = passedThroughTask.createWorkerResponse();
+
+        assertEquals(new String(serialisedResponse.getData(), StandardCharsets.UTF_8),
+                     new String(streamedResponse.getData(), StandardCharsets.UTF_8));
+        assertArrayEquals(serialisedResponse.getData(), streamedResponse.getData());
+        assertEquals(serialisedResponse.getQueueReference(), streamedResponse.getQueueReference());
+        assertEquals(serialisedResponse.getApiVersion(), streamedResponse.getApiVersion());
+
+        assertArrayEquals(serialisedResponse.getData(), passedThroughResponse.getData());
+        assertEquals(serialisedResponse.getQueueReference(), passedThroughResponse.getQueueReference());
+    }
+
+    private static DocumentTask createPassedThroughTask(final DocumentWorkerDocumentTask task, final boolean compactChangeLog)
+        throws Exception
+    {
+        final DecodedDocumentTask decodedTask = DocumentTaskJsonDecoder.decodeRetainingSource(CODEC.serialise(task), null);
+        return DocumentTask.create(createApplication(true, compactChangeLog), Mockito.mock(WorkerTaskData.class), decodedTask);
+    }
+
+    private static DocumentTask createTask(
+        final DocumentWorkerDocumentTask task,
+        final boolean streamingJsonEncoderEnabled,
+        final boolean compactChangeLog
+    ) throws Exception
+    {
+        return DocumentTask.create(createApplication(streamingJsonEncoderEnabled, compactChangeLog),
+                                   Mockito.mock(WorkerTaskData.class),
+                                   task);
+    }
+
+    private static ApplicationImpl createApplication(final boolean streamingJsonEncoderEnabled, final boolean compactChangeLog)
+    {
+        final DocumentWorkerConfiguration configuration = new DocumentWorkerConfiguration();
+        configuration.setWorkerName("test-worker");
+        configuration.setWorkerVersion("1.0");
+        configuration.setOutputQueue("output");
+        configuration.setFailureQueue("failures");
+        configuration.setStreamingJsonEncoderEnabled(streamingJsonEncoderEnabled);
+        configuration.setCompactChangeLog(compactChangeLog);
+
+        final ApplicationImpl application = Mockito.mock(ApplicationImpl.class);
+        final InputMessageProcessorImpl inputMessageProcessor = Mockito.mock(InputMessageProcessorImpl.class);
+
+        Mockito.when(application.getConfiguration()).thenReturn(configuration);
+        Mockito.when(application.getInputMessageProcessor()).thenReturn(inputMessageProcessor);
+        Mockito.when(application.getFieldValueSpiller())
+            .thenReturn(new FieldValueSpiller(Mockito.mock(DataStore.class), null));
+        Mockito.when(application.serialiseResult(any())).thenAnswer(invocation -> CODEC.serialise(invocation.getArgument(0)));
+
+        return application;
+    }
+
+    private static DocumentWorkerDocumentTask createDocumentTask(final int subdocumentCount, final int nestedSubdocumentCount)
+    {
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = createDocument("root", 5, 1024);
+        task.document.subdocuments = new ArrayList<>();
+        for (int i = 0; i < subdocumentCount; i++) {
+            final DocumentWorkerDocument subdocument = createDocument("root/" + i, 3, 128);
+            subdocument.subdocuments = new ArrayList<>();
+            for (int j = 0; j < nestedSubdocumentCount; j++) {
+                subdocument.subdocuments.add(createDocument("root/" + i + "/" + j, 2, 64));
+            }
+            task.document.subdocuments.add(subdocument);
+        }
+
+        final DocumentWorkerChange change = new DocumentWorkerChange();
+        change.addFields = new HashMap<>();
+        change.addFields.put("STAGE", Collections.singletonList(createFieldValue("1")));
+
+        final DocumentWorkerChangeLogEntry changeLogEntry = new DocumentWorkerChangeLogEntry();
+        changeLogEntry.name = "stage-1";
+        changeLogEntry.changes = Collections.singletonList(change);
+
+        task.changeLog = Arrays.asList(changeLogEntry);
+        task.customData = Collections.singletonMap("original", "data");
+        return task;
+    }
+
+    private static DocumentWorkerDocument createDocument(final String reference, final int fieldCount, final int valueLength)
+    {
+        final DocumentWorkerDocument document = new DocumentWorkerDocument();
+        document.reference = reference;
+        document.fields = new HashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            final List<DocumentWorkerFieldValue> values = new ArrayList<>();
+            values.add(createFieldValue(createValue(valueLength)));
+            values.add(createFieldValue("value " + i));
+            document.fields.put("FIELD_" + i, values);
+        }
+        return document;
+    }
+
+    private static DocumentWorkerFieldValue createFieldValue(final String data)
+    {
+        final DocumentWorkerFieldValue value = new DocumentWorkerFieldValue();
+        value.data = data;
+        return value;
+    }
+
+    private static String createValue(final int length)
+    {
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+}
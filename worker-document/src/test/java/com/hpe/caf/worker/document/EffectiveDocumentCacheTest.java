@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.Codec;
+import com.hpe.caf.api.CodecException;
+import com.hpe.caf.codec.JsonCodec;
+import com.hpe.caf.worker.document.changelog.EffectiveDocumentCache;
+import com.hpe.caf.worker.document.changelog.MutableDocument;
+import com.hpe.caf.worker.document.config.EffectiveDocumentCacheConfiguration;
+import com.hpe.caf.worker.document.converters.DecodedDocumentTask;
+import com.hpe.caf.worker.document.converters.DocumentTaskJsonDecoder;
+import com.hpe.caf.worker.document.converters.ReadOnlyDocumentConverter;
+import com.hpe.caf.worker.document.exceptions.InvalidChangeLogException;
+import com.hpe.caf.worker.document.views.ReadOnlyDocument;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class EffectiveDocumentCacheTest
+{
+    @Test
+    public void testRepeatedChangeLogIsNotReplayed() throws Exception
+    {
+        final EffectiveDocumentCache cache = createCache(null);
+
+        final ReadOnlyDocument firstDocument = cache.getEffectiveDocument(createDocument(), createChangeLog(3));
+        final ReadOnlyDocument secondDocument = cache.getEffectiveDocument(createDocument(), createChangeLog(3));
+
+        assertSame(firstDocument, secondDocument);
+        assertEquals(1, cache.getStats().hitCount());
+    }
+
+    @Test
+    public void testExtendedChangeLogStartsFromCheckpoint() throws Exception
+    {
+        final EffectiveDocumentCache cache = createCache(null);
+
+        cache.getEffectiveDocument(createDocument(), createChangeLog(3));
+        final ReadOnlyDocument document = cache.getEffectiveDocument(createDocument(), createChangeLog(5));
+
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(serialise(replay(createDocument(), createChangeLog(5))), serialise(document));
+    }
+
+    @Test
+    public void testEncodedChangeLogStartsFromCheckpointWithoutSerialising() throws Exception
+    {
+        final Codec codec = Mockito.mock(Codec.class);
+        final EffectiveDocumentCache cache = new EffectiveDocumentCache(codec, new EffectiveDocumentCacheConfiguration());
+
+        getEffectiveDocument(cache, decode(3));
+        final ReadOnlyDocument document = getEffectiveDocument(cache, decode(5));
+
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(serialise(replay(createDocument(), createChangeLog(5))), serialise(document));
+        Mockito.verifyNoInteractions(codec);
+    }
+
+    @Test
+    public void testCacheIsBoundedByWeight() throws Exception
+    {
+        final EffectiveDocumentCache cache = createCache(1L);
+
+        final ReadOnlyDocument firstDocument = cache.getEffectiveDocument(createDocument(), createChangeLog(3));
+        final ReadOnlyDocument secondDocument = cache.getEffectiveDocument(createDocument(), createChangeLog(3));
+
+        assertNotSame(firstDocument, secondDocument);
+        assertEquals(0, cache.getStats().hitCount());
+        assertEquals(serialise(firstDocument), serialise(secondDocument));
+    }
+
+    private static DecodedDocumentTask decode(final int changeLogSize) throws Exception
+    {
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = createDocument();
+        task.changeLog = createChangeLog(changeLogSize);
+
+        return DocumentTaskJsonDecoder.decodeRetainingSource(new JsonCodec().serialise(task), null);
+    }
+
+    private static ReadOnlyDocument getEffectiveDocument(final EffectiveDocumentCache cache, final DecodedDocumentTask decodedTask)
+        throws InvalidChangeLogException
+    {
+        return cache.getEffectiveDocument(decodedTask.getTask().document,
+                                          decodedTask.getTask().changeLog,
+                                          decodedTask.getEncodedDocument(),
+                                          decodedTask.getEncodedChangeLog());
+    }
+
+    private static EffectiveDocumentCache createCache(final Long maximumWeight)
+    {
+        final EffectiveDocumentCacheConfiguration config = new EffectiveDocumentCacheConfiguration();
+        config.setMaximumWeight(maximumWeight);
+
+        return new EffectiveDocumentCache(new JsonCodec(), config);
+    }
+
+    private static ReadOnlyDocument replay(
+        final DocumentWorkerDocument document,
+        final List<DocumentWorkerChangeLogEntry> changeLog
+    ) throws InvalidChangeLogException
+    {
+        final MutableDocument effectiveDocument = new MutableDocument(ReadOnlyDocument.create(document));
+        effectiveDocument.applyChangeLog(changeLog);
+        return ReadOnlyDocument.create(effectiveDocument);
+    }
+
+    private static String serialise(final ReadOnlyDocument document) throws CodecException
+    {
+        return new String(new JsonCodec().serialise(ReadOnlyDocumentConverter.convert(document)), StandardCharsets.UTF_8);
+    }
+
+    private static DocumentWorkerDocument createDocument()
+    {
+        final DocumentWorkerDocument document = new DocumentWorkerDocument();
+        document.reference = "root";
+        document.fields = createFields("FIELD", "VALUE");
+        return document;
+    }
+
+    private static List<DocumentWorkerChangeLogEntry> createChangeLog(final int entryCount)
+    {
+        final List<DocumentWorkerChangeLogEntry> changeLog = new ArrayList<>();
+        for (int i = 0; i < entryCount; i++) {
+            final DocumentWorkerChange change = new DocumentWorkerChange();
+            change.addFields = createFields("STAGE", String.valueOf(i));
+
+            final DocumentWorkerChangeLogEntry changeLogEntry = new DocumentWorkerChangeLogEntry();
+            changeLogEntry.name = "stage-" + i;
+            changeLogEntry.changes = Collections.singletonList(change);
+            changeLog.add(changeLogEntry);
+        }
+        return changeLog;
+    }
+
+    private static HashMap<String, List<DocumentWorkerFieldValue>> createFields(final String fieldName, final String data)
+    {
+        final DocumentWorkerFieldValue value = new DocumentWorkerFieldValue();
+        value.data = data;
+
+        final HashMap<String, List<DocumentWorkerFieldValue>> fields = new HashMap<>();
+        fields.put(fieldName, Collections.singletonList(value));
+        return fields;
+    }
+}
@@ -15,9 +15,13 @@
  */
 package com.hpe.caf.worker.document;
 
+import com.hpe.caf.api.worker.DataStore;
+import com.hpe.caf.api.worker.DataStoreException;
 import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.worker.document.config.FieldValueSpillingConfiguration;
 import com.hpe.caf.worker.document.impl.*;
 import com.hpe.caf.worker.document.tasks.FieldEnrichmentTask;
+import java.io.InputStream;
 import java.util.*;
 import org.apache.commons.codec.binary.Base64;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -121,9 +125,63 @@ public class FieldImplTest
         assertEquals(DocumentWorkerAction.replace, fieldChanges.action);
     }
 
+    @Test
+    public void fieldSpillTest() throws Exception
+    {
+        final FieldValueSpillingConfiguration spillingConfiguration = new FieldValueSpillingConfiguration();
+        spillingConfiguration.setThreshold(10L);
+        spillingConfiguration.setPartialReference("spilled");
+
+        final DataStore dataStore = Mockito.mock(DataStore.class);
+        Mockito.when(dataStore.store(Mockito.any(InputStream.class), Mockito.eq("spilled"))).thenReturn("spilled/string");
+        Mockito.when(dataStore.store(Mockito.any(byte[].class), Mockito.eq("spilled"))).thenReturn("spilled/bytes");
+
+        final FieldImpl fieldImpl = createFieldImpl("NEW_FIELD", new FieldValueSpiller(dataStore, spillingConfiguration));
+        fieldImpl.add("Short");
+        fieldImpl.add("A value which is over the threshold");
+        fieldImpl.add("A value which is over the threshold".getBytes());
+
+        // The threshold is measured against the UTF-8 encoded size of strings
+        fieldImpl.add("\u00e9\u00e9\u00e9\u00e9\u00e9");
+        fieldImpl.add("\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9");
+
+        final List<DocumentWorkerFieldValue> values = fieldImpl.getChanges().values;
+
+        assertEquals("Short", values.get(0).data);
+        assertEquals(null, values.get(0).encoding);
+        assertEquals("spilled/string", values.get(1).data);
+        assertEquals(DocumentWorkerFieldEncoding.storage_ref, values.get(1).encoding);
+        assertEquals("spilled/bytes", values.get(2).data);
+        assertEquals(DocumentWorkerFieldEncoding.storage_ref, values.get(2).encoding);
+        assertEquals("\u00e9\u00e9\u00e9\u00e9\u00e9", values.get(3).data);
+        assertEquals("spilled/string", values.get(4).data);
+    }
+
+    @Test
+    public void fieldSpillFailureTest() throws Exception
+    {
+        final FieldValueSpillingConfiguration spillingConfiguration = new FieldValueSpillingConfiguration();
+        spillingConfiguration.setThreshold(10L);
+
+        final DataStore dataStore = Mockito.mock(DataStore.class);
+        Mockito.when(dataStore.store(Mockito.any(InputStream.class), Mockito.any())).thenThrow(new DataStoreException("Unavailable"));
+
+        // Values which cannot be stored are held in memory instead
+        final FieldImpl fieldImpl = createFieldImpl("NEW_FIELD", new FieldValueSpiller(dataStore, spillingConfiguration));
+        fieldImpl.add("A value which is over the threshold");
+
+        assertEquals("A value which is over the threshold", fieldImpl.getChanges().values.get(0).data);
+    }
+
     private FieldImpl createFieldImpl(final String fileName)
+    {
+        return createFieldImpl(fileName, new FieldValueSpiller(Mockito.mock(DataStore.class), null));
+    }
+
+    private FieldImpl createFieldImpl(final String fileName, final FieldValueSpiller fieldValueSpiller)
     {
         final ApplicationImpl application = Mockito.mock(ApplicationImpl.class);
+        Mockito.lenient().when(application.getFieldValueSpiller()).thenReturn(fieldValueSpiller);
         final DocumentImpl document
             = createDocument("/mnt/fs/docs/hr policy.doc", "REFERENCE", DocumentWorkerFieldEncoding.utf8, application);
 
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.worker.document.fieldvalues.Base64FieldValue;
+import com.hpe.caf.worker.document.fieldvalues.NonReferenceFieldValue;
+import com.hpe.caf.worker.document.fieldvalues.StringFieldValue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.commons.codec.binary.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class FieldValueStreamingTest
+{
+    @Test
+    public void testBase64StreamMatchesDecodedValue() throws IOException
+    {
+        final byte[] data = createData(100_000);
+        final Base64FieldValue fieldValue = new Base64FieldValue(null, null, Base64.encodeBase64String(data));
+
+        try (final InputStream stream = fieldValue.openInputStream()) {
+            assertArrayEquals(data, stream.readAllBytes());
+        }
+        assertArrayEquals(data, fieldValue.getValue());
+        assertValueCannotBeModified(fieldValue.getValue(), fieldValue);
+    }
+
+    @Test
+    public void testBase64Utf8Validation()
+    {
+        // Put a multi-byte character across the validation buffer boundary
+        final char[] chars = new char[10_000];
+        Arrays.fill(chars, 'a');
+        chars[8191] = 'é';
+        final byte[] validData = new String(chars).getBytes(StandardCharsets.UTF_8);
+        assertTrue(new Base64FieldValue(null, null, Base64.encodeBase64String(validData)).isStringValue());
+
+        final byte[] invalidData = Arrays.copyOf(validData, validData.length);
+        invalidData[9000] = (byte) 0xC3;
+        assertFalse(new Base64FieldValue(null, null, Base64.encodeBase64String(invalidData)).isStringValue());
+
+        final byte[] truncatedData = Arrays.copyOf(validData, 8192);
+        assertFalse(new Base64FieldValue(null, null, Base64.encodeBase64String(truncatedData)).isStringValue());
+    }
+
+    @Test
+    public void testStringStreamMatchesEncodedValue() throws IOException
+    {
+        final String data = "café 😀 ".repeat(10_000);
+        final StringFieldValue fieldValue = new StringFieldValue(null, null, data);
+
+        try (final InputStream stream = fieldValue.openInputStream()) {
+            assertArrayEquals(data.getBytes(StandardCharsets.UTF_8), stream.readAllBytes());
+        }
+        assertValueCannotBeModified(fieldValue.getValue(), fieldValue);
+    }
+
+    private static void assertValueCannotBeModified(final byte[] value, final NonReferenceFieldValue fieldValue)
+    {
+        final byte[] originalValue = value.clone();
+        value[0]++;
+        assertArrayEquals(originalValue, fieldValue.getValue());
+    }
+
+    private static byte[] createData(final int length)
+    {
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Times operations for the benchmark programs, which are run from their main methods rather than as part of the unit tests.
+ */
+final class MicroBenchmark
+{
+    private static final ThreadMXBean THREAD_MX_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int WARM_UP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    private MicroBenchmark()
+    {
+    }
+
+    @FunctionalInterface
+    public interface Operation
+    {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Runs the operation repeatedly and prints the average time and memory allocated by each run.
+     */
+    public static void measure(final String name, final Operation operation) throws Exception
+    {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            consume(operation.run());
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long startBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            consume(operation.run());
+        }
+        final long elapsedNanos = System.nanoTime() - startTime;
+        final long allocatedBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - startBytes;
+
+        System.out.printf("%-40s %10.3f ms/op %12.1f KB/op%n",
+                          name,
+                          elapsedNanos / 1_000_000.0 / MEASURED_ITERATIONS,
+                          allocatedBytes / 1024.0 / MEASURED_ITERATIONS);
+    }
+
+    private static void consume(final Object result)
+    {
+        if (result == null) {
+            throw new IllegalStateException("The operation did not return a result");
+        }
+    }
+}
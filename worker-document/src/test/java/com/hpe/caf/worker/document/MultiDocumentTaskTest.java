@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.BulkWorkerRuntime;
+import com.hpe.caf.api.worker.TaskStatus;
+import com.hpe.caf.api.worker.WorkerResponse;
+import com.hpe.caf.api.worker.WorkerTask;
+import static com.hpe.caf.worker.document.WorkerTestFixture.CODEC;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.InputMessageProcessorImpl;
+import com.hpe.caf.worker.document.model.Document;
+import com.hpe.caf.worker.document.tasks.MultiDocumentTask;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyLong;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class MultiDocumentTaskTest
+{
+    @Test
+    public void testDocumentsAreBatchedAndReturnedInOneResponse() throws Exception
+    {
+        final ApplicationImpl application = createApplication();
+        final WorkerTask workerTask = Mockito.mock(WorkerTask.class);
+        final AtomicInteger scriptLoads = new AtomicInteger();
+
+        final InputMessageProcessorImpl inputMessageProcessor = application.getInputMessageProcessor();
+        Mockito.when(inputMessageProcessor.createTask(workerTask)).thenAnswer(invocation -> {
+            final MultiDocumentTask task = Mockito.spy(MultiDocumentTask.create(application, workerTask, createMultiDocumentTask()));
+            Mockito.doAnswer(loadInvocation -> scriptLoads.incrementAndGet()).when(task).loadScripts();
+            return task;
+        });
+
+        final BulkWorkerRuntime bulkWorkerRuntime = Mockito.mock(BulkWorkerRuntime.class);
+        Mockito.when(bulkWorkerRuntime.getNextWorkerTask(anyLong())).thenReturn(workerTask, (WorkerTask) null);
+
+        final WorkerTestFixture.TestWorker bulkWorker = new WorkerTestFixture.TestWorker();
+        new BulkDocumentMessageProcessor(application, bulkWorker, bulkWorkerRuntime).processTasks();
+
+        // All of the documents from the task were added to the same batch, and the scripts were only loaded once
+        assertEquals(Collections.singletonList(Arrays.asList("doc-0", "doc-1", "doc-2")), bulkWorker.batches);
+        assertEquals(1, scriptLoads.get());
+
+        final ArgumentCaptor<WorkerResponse> responseCaptor = ArgumentCaptor.forClass(WorkerResponse.class);
+        Mockito.verify(workerTask).setResponse(responseCaptor.capture());
+
+        final WorkerResponse response = responseCaptor.getValue();
+        assertEquals(DocumentWorkerConstants.MULTI_DOCUMENT_TASK_NAME, response.getMessageType());
+        assertEquals(DocumentWorkerConstants.MULTI_DOCUMENT_TASK_API_VER, response.getApiVersion());
+
+        final DocumentWorkerMultiDocumentTask result = CODEC.deserialise(response.getData(), DocumentWorkerMultiDocumentTask.class);
+        assertEquals(3, result.documents.size());
+        for (int i = 0; i < 3; i++) {
+            final DocumentWorkerDocumentEntry documentEntry = result.documents.get(i);
+            assertEquals("doc-" + i, documentEntry.document.reference);
+
+            // Each document has its own change log, with the changes that were made to it added as a new entry
+            final List<String> entryNames = documentEntry.changeLog.stream().map(entry -> entry.name).collect(Collectors.toList());
+            assertEquals(i == 1 ? Arrays.asList("stage-1", "test-worker:1.0") : Arrays.asList("test-worker:1.0"), entryNames);
+
+            final DocumentWorkerChangeLogEntry newEntry = documentEntry.changeLog.get(documentEntry.changeLog.size() - 1);
+            assertEquals("doc-" + i, newEntry.changes.get(0).addFields.get("PROCESSED").get(0).data);
+        }
+    }
+
+    @Test
+    public void testSubdocumentsBelongToTheirOwnRootDocument() throws Exception
+    {
+        final MultiDocumentTask task = MultiDocumentTask.create(
+            createApplication(), Mockito.mock(WorkerTask.class), createMultiDocumentTask());
+
+        assertEquals(3, task.getDocuments().size());
+        assertSame(task.getDocuments().get(0), task.getDocument());
+
+        final Document secondDocument = task.getDocuments().get(1);
+        final Document subdocument = secondDocument.getSubdocuments().get(0);
+        assertSame(secondDocument, subdocument.getRootDocument());
+        assertSame(secondDocument, subdocument.getParentDocument());
+        assertNull(secondDocument.getParentDocument());
+
+        // The custom data is shared by all of the documents, but the change log of each document is applied separately
+        assertEquals("data", task.getDocuments().get(2).getCustomData("shared"));
+        assertEquals("1", secondDocument.getField("STAGE").getStringValues().get(0));
+        assertEquals(0, task.getDocuments().get(2).getField("STAGE").getValues().size());
+    }
+
+    @Test
+    public void testFailuresOfAllDocumentsAreReported() throws Exception
+    {
+        final DocumentWorkerConfiguration configuration = WorkerTestFixture.createConfiguration();
+        configuration.setEnableExceptionOnFailure(true);
+        final MultiDocumentTask task = MultiDocumentTask.create(
+            WorkerTestFixture.createApplication(configuration), Mockito.mock(WorkerTask.class), createMultiDocumentTask());
+
+        task.getDocuments().get(0).getFailures().add("F-0", "First failure");
+        task.getDocuments().get(1).getSubdocuments().get(0).getFailures().add("F-1", "Subdocument failure");
+
+        final WorkerResponse response = task.createWorkerResponse();
+        assertEquals(TaskStatus.RESULT_EXCEPTION, response.getTaskStatus());
+        assertEquals("F-0: First failure\nF-1: Subdocument failure", new String(response.getData(), StandardCharsets.UTF_8));
+    }
+
+    private static ApplicationImpl createApplication()
+    {
+        return WorkerTestFixture.createApplication(WorkerTestFixture.createConfiguration());
+    }
+
+    private static DocumentWorkerMultiDocumentTask createMultiDocumentTask()
+    {
+        final DocumentWorkerMultiDocumentTask task = new DocumentWorkerMultiDocumentTask();
+        task.documents = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final DocumentWorkerDocumentEntry documentEntry = new DocumentWorkerDocumentEntry();
+            documentEntry.document = new DocumentWorkerDocument();
+            documentEntry.document.reference = "doc-" + i;
+            task.documents.add(documentEntry);
+        }
+
+        // Give the second document a subdocument and a change log of its own
+        final DocumentWorkerDocument subdocument = new DocumentWorkerDocument();
+        subdocument.reference = "doc-1/0";
+        task.documents.get(1).document.subdocuments = Collections.singletonList(subdocument);
+
+        final DocumentWorkerFieldValue value = new DocumentWorkerFieldValue();
+        value.data = "1";
+        final DocumentWorkerChange change = new DocumentWorkerChange();
+        change.addFields = new HashMap<>();
+        change.addFields.put("STAGE", Collections.singletonList(value));
+        final DocumentWorkerChangeLogEntry changeLogEntry = new DocumentWorkerChangeLogEntry();
+        changeLogEntry.name = "stage-1";
+        changeLogEntry.changes = Collections.singletonList(change);
+        task.documents.get(1).changeLog = Collections.singletonList(changeLogEntry);
+
+        task.customData = Collections.singletonMap("shared", "data");
+        return task;
+    }
+}
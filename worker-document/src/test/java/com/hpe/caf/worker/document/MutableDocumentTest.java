@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.worker.document.changelog.MutableDocument;
+import com.hpe.caf.worker.document.exceptions.InvalidChangeLogException;
+import com.hpe.caf.worker.document.views.ReadOnlyDocument;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class MutableDocumentTest
+{
+    @Test
+    public void testDocumentWithoutChangesIsNotCopied() throws InvalidChangeLogException
+    {
+        final ReadOnlyDocument baseDocument = ReadOnlyDocument.create(createDocument("root", 3));
+
+        final MutableDocument effectiveDocument = new MutableDocument(baseDocument);
+        effectiveDocument.applyChangeLog(Collections.singletonList(new DocumentWorkerChangeLogEntry()));
+
+        assertFalse(effectiveDocument.hasChanges());
+        assertSame(baseDocument, ReadOnlyDocument.create(effectiveDocument));
+    }
+
+    @Test
+    public void testChangesDoNotAffectBaseDocument() throws InvalidChangeLogException
+    {
+        final ReadOnlyDocument baseDocument = ReadOnlyDocument.create(createDocument("root", 3));
+
+        final DocumentWorkerChange subdocumentChange = new DocumentWorkerChange();
+        subdocumentChange.addFields = createFields("NEW_VALUE");
+
+        final DocumentWorkerChange.UpdateSubdocumentParams updateSubdocumentParams = new DocumentWorkerChange.UpdateSubdocumentParams();
+        updateSubdocumentParams.index = 1;
+        updateSubdocumentParams.reference = "root/1";
+        updateSubdocumentParams.changes = Collections.singletonList(subdocumentChange);
+
+        final DocumentWorkerChange rootChange = new DocumentWorkerChange();
+        rootChange.addFields = createFields("NEW_VALUE");
+        rootChange.updateSubdocument = updateSubdocumentParams;
+
+        final MutableDocument effectiveDocument = new MutableDocument(baseDocument);
+        effectiveDocument.applyChanges(Arrays.asList(rootChange, rootChange));
+
+        final ReadOnlyDocument document = ReadOnlyDocument.create(effectiveDocument);
+
+        assertEquals(Arrays.asList("VALUE", "NEW_VALUE", "NEW_VALUE"), getFieldData(document));
+        assertEquals(Arrays.asList("VALUE", "NEW_VALUE", "NEW_VALUE"), getFieldData(document.getSubdocuments().get(1)));
+        assertEquals(Collections.singletonList("VALUE"), getFieldData(baseDocument));
+        assertEquals(Collections.singletonList("VALUE"), getFieldData(baseDocument.getSubdocuments().get(1)));
+
+        // Subdocuments which were not changed are passed through
+        assertTrue(effectiveDocument.hasChanges());
+        assertSame(baseDocument.getSubdocuments().get(0), document.getSubdocuments().get(0));
+        assertSame(baseDocument.getSubdocuments().get(2), document.getSubdocuments().get(2));
+    }
+
+    private static List<String> getFieldData(final ReadOnlyDocument document)
+    {
+        final List<String> fieldData = new ArrayList<>();
+        document.getFields().get("FIELD").forEach(fieldValue -> fieldData.add(fieldValue.getData()));
+        return fieldData;
+    }
+
+    private static DocumentWorkerDocument createDocument(final String reference, final int subdocumentCount)
+    {
+        final DocumentWorkerDocument document = new DocumentWorkerDocument();
+        document.reference = reference;
+        document.fields = createFields("VALUE");
+        document.subdocuments = new ArrayList<>();
+        for (int i = 0; i < subdocumentCount; i++) {
+            document.subdocuments.add(createDocument(reference + "/" + i, 0));
+        }
+        return document;
+    }
+
+    private static HashMap<String, List<DocumentWorkerFieldValue>> createFields(final String data)
+    {
+        final DocumentWorkerFieldValue fieldValue = new DocumentWorkerFieldValue();
+        fieldValue.data = data;
+
+        final HashMap<String, List<DocumentWorkerFieldValue>> fields = new HashMap<>();
+        fields.put("FIELD", new ArrayList<>(Collections.singletonList(fieldValue)));
+        return fields;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.google.common.cache.CacheStats;
+import com.hpe.caf.worker.document.config.ScriptCacheConfiguration;
+import com.hpe.caf.worker.document.config.ScriptCachingConfiguration;
+import com.hpe.caf.worker.document.model.ScriptEngineType;
+import com.hpe.caf.worker.document.scripting.JavaScriptManager;
+import com.hpe.caf.worker.document.scripting.ObjectCodeProvider;
+import com.hpe.caf.worker.document.scripting.ScriptCache;
+import com.hpe.caf.worker.document.scripting.specs.InlineScriptSpec;
+import com.hpe.caf.worker.document.scripting.specs.UrlScriptSpec;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.script.CompiledScript;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.Mockito.mock;
+
+public class ScriptCacheTest
+{
+    private static final int THREADS = 20;
+
+    @Test
+    public void testConcurrentRequestsCompileOnce() throws Exception
+    {
+        final AtomicInteger compilations = new AtomicInteger();
+        final CompiledScript compiledScript = mock(CompiledScript.class);
+        final ObjectCodeProvider slowCompiler = (name, scriptSpec) -> {
+            compilations.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return compiledScript;
+        };
+
+        final ScriptCacheConfiguration cacheConfig = new ScriptCacheConfiguration();
+        cacheConfig.setMaximumSize(10L);
+        cacheConfig.setConcurrencyLevel(THREADS);
+        final ScriptCache cache = new ScriptCache(cacheConfig, new ScriptCacheConfiguration(), slowCompiler);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch startSignal = new CountDownLatch(1);
+            final List<Future<CompiledScript>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    startSignal.await();
+                    return cache.getObjectCode("script.js", new InlineScriptSpec("var x = 1;", ScriptEngineType.GRAAL_JS));
+                }));
+            }
+            startSignal.countDown();
+
+            for (final Future<CompiledScript> result : results) {
+                assertSame(compiledScript, result.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, compilations.get());
+
+        final CacheStats stats = cache.getStats();
+        assertEquals(THREADS, stats.requestCount());
+        assertEquals(1, stats.loadCount());
+        assertEquals(0, stats.evictionCount());
+    }
+
+    @Test
+    public void testSameContentFromDifferentSourcesCompilesOnce(@TempDir final Path tempDir) throws Exception
+    {
+        final String script = "function onProcessDocument(e) { e.document.getField('X').add('Y'); }";
+        final Path scriptFile = tempDir.resolve("script.js");
+        Files.writeString(scriptFile, script);
+
+        final ScriptCachingConfiguration cachingConfig = new ScriptCachingConfiguration();
+        cachingConfig.setContentScriptCache(new ScriptCacheConfiguration());
+
+        try (final JavaScriptManager javaScriptManager = new JavaScriptManager(cachingConfig)) {
+            final CompiledScript inlineScript = javaScriptManager.getObjectCode(
+                "script.js", new InlineScriptSpec(script, ScriptEngineType.GRAAL_JS));
+            final CompiledScript urlScript = javaScriptManager.getObjectCode(
+                "script.js", new UrlScriptSpec(scriptFile.toUri().toURL(), ScriptEngineType.GRAAL_JS));
+
+            assertSame(inlineScript, urlScript);
+
+            final CacheStats stats = javaScriptManager.getContentScriptCacheStats();
+            assertEquals(1, stats.hitCount());
+            assertEquals(1, stats.loadCount());
+        }
+    }
+}
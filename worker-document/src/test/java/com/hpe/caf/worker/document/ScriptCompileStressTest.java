@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.worker.document.model.ScriptEngineType;
+import com.hpe.caf.worker.document.scripting.JavaScriptEngine;
+import com.hpe.caf.worker.document.scripting.specs.InlineScriptSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+public class ScriptCompileStressTest
+{
+    // The maximum number of worker threads allowed by the configuration
+    private static final int THREADS = 20;
+    private static final int SCRIPTS_PER_THREAD = 25;
+
+    @Test
+    public void testConcurrentCompilation(final TestReporter testReporter) throws Exception
+    {
+        try (final JavaScriptEngine engine = new JavaScriptEngine(null)) {
+            final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                final CountDownLatch startSignal = new CountDownLatch(1);
+                final List<Future<List<CompiledScript>>> results = new ArrayList<>();
+                for (int threadIndex = 0; threadIndex < THREADS; threadIndex++) {
+                    final int thread = threadIndex;
+                    results.add(executor.submit(() -> {
+                        startSignal.await();
+                        return compileScripts(engine, thread);
+                    }));
+                }
+
+                // Only the compilation is timed
+                final long startTime = System.nanoTime();
+                startSignal.countDown();
+
+                final List<List<CompiledScript>> compiledScripts = new ArrayList<>();
+                for (final Future<List<CompiledScript>> result : results) {
+                    compiledScripts.add(result.get(2, TimeUnit.MINUTES));
+                }
+                final long elapsedNanos = System.nanoTime() - startTime;
+
+                final long compilesPerSecond = TimeUnit.SECONDS.toNanos(THREADS * SCRIPTS_PER_THREAD) / Math.max(elapsedNanos, 1);
+                testReporter.publishEntry("compilesPerSecond", Long.toString(compilesPerSecond));
+
+                // Check that each script was given its own name rather than the name of a script compiled on another thread
+                for (int thread = 0; thread < THREADS; thread++) {
+                    assertEquals(SCRIPTS_PER_THREAD, compiledScripts.get(thread).size());
+                    for (int i = 0; i < SCRIPTS_PER_THREAD; i++) {
+                        assertScriptName(engine, compiledScripts.get(thread).get(i), getScriptName(thread, i));
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static List<CompiledScript> compileScripts(final JavaScriptEngine engine, final int thread) throws ScriptException
+    {
+        final List<CompiledScript> compiledScripts = new ArrayList<>(SCRIPTS_PER_THREAD);
+        for (int i = 0; i < SCRIPTS_PER_THREAD; i++) {
+            compiledScripts.add(engine.getObjectCode(
+                getScriptName(thread, i),
+                new InlineScriptSpec("function getValue() { return " + i + "; } null.value;", ScriptEngineType.GRAAL_JS)));
+        }
+        return compiledScripts;
+    }
+
+    private static void assertScriptName(final JavaScriptEngine engine, final CompiledScript compiledScript, final String name)
+        throws Exception
+    {
+        final Bindings global = engine.createNewGlobal();
+        try {
+            final ScriptException ex = assertThrows(ScriptException.class, () -> compiledScript.eval(global));
+            assertEquals(name, ex.getFileName());
+        } finally {
+            ((AutoCloseable) global).close();
+        }
+    }
+
+    private static String getScriptName(final int thread, final int i)
+    {
+        return "script-" + thread + "-" + i + ".js";
+    }
+}
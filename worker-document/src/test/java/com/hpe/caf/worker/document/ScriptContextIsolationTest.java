@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.model.Script;
+import com.hpe.caf.worker.document.model.ScriptEngineType;
+import com.hpe.caf.worker.document.scripting.JavaScriptManager;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ScriptContextIsolationTest
+{
+    @Test
+    public void testScriptStateDoesNotLeakIntoLaterScripts() throws Exception
+    {
+        try (final JavaScriptManager javaScriptManager = new JavaScriptManager(null)) {
+            final ApplicationImpl application = WorkerTestFixture.createApplication(WorkerTestFixture.createConfiguration());
+            Mockito.when(application.getJavaScriptManager()).thenReturn(javaScriptManager);
+
+            for (int i = 0; i < 3; i++) {
+                final DocumentWorkerDocumentTask documentTask = new DocumentWorkerDocumentTask();
+                documentTask.document = WorkerTestFixture.createDocument("doc-" + i, 0);
+                final DocumentTask task = DocumentTask.create(application, Mockito.mock(WorkerTaskData.class), documentTask);
+
+                // Each script redeclares the same top-level constant, and fails if it can see what the earlier scripts changed
+                final Script script = task.getScripts().add();
+                script.setName("isolation.js");
+                script.setScriptInline(
+                    "const declared = 1;\n"
+                    + "if (typeof implicitGlobal !== 'undefined' || [].leaked !== undefined) {\n"
+                    + "    throw new Error('State leaked from an earlier script');\n"
+                    + "}\n"
+                    + "implicitGlobal = 1;\n"
+                    + "Array.prototype.leaked = true;\n"
+                    + "function onProcessTask() {}\n",
+                    ScriptEngineType.GRAAL_JS);
+
+                script.load();
+                script.unload();
+            }
+        }
+    }
+}
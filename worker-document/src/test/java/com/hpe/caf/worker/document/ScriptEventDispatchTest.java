@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.InputMessageProcessorImpl;
+import com.hpe.caf.worker.document.scripting.JavaScriptManager;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mockito;
+
+/**
+ * Checks which script event handlers are called, and that document events are not dispatched to scripts which do not handle them.
+ */
+public class ScriptEventDispatchTest
+{
+    private static final int SCRIPT_COUNT = 5;
+
+    // Counts the lookups of the document event handlers, which scripts can see as a Java static field
+    public static final AtomicInteger HANDLER_LOOKUPS = new AtomicInteger();
+
+    private JavaScriptManager javaScriptManager;
+    private ApplicationImpl application;
+    private WorkerTaskData workerTaskData;
+    private AtomicReference<Object> result;
+    private List<DocumentWorkerScript> taskScripts;
+
+    @BeforeEach
+    public void createApplication() throws Exception
+    {
+        javaScriptManager = new JavaScriptManager(null);
+        application = WorkerTestFixture.createApplication(WorkerTestFixture.createConfiguration());
+        workerTaskData = Mockito.mock(WorkerTaskData.class);
+        result = new AtomicReference<>();
+
+        final InputMessageProcessorImpl inputMessageProcessor = application.getInputMessageProcessor();
+
+        Mockito.when(application.getJavaScriptManager()).thenReturn(javaScriptManager);
+        Mockito.when(application.serialiseResult(any())).thenAnswer(invocation -> {
+            result.set(invocation.getArgument(0));
+            return new byte[0];
+        });
+        Mockito.when(inputMessageProcessor.getProcessSubdocumentsSeparately()).thenReturn(true);
+        Mockito.when(inputMessageProcessor.createTask(workerTaskData))
+            .thenAnswer(invocation -> DocumentTask.create(application, workerTaskData, createDocumentTask(taskScripts)));
+        HANDLER_LOOKUPS.set(0);
+    }
+
+    @AfterEach
+    public void closeJavaScriptManager()
+    {
+        javaScriptManager.close();
+    }
+
+    @Test
+    public void testDocumentEventsAreNotDispatchedToTaskOnlyScripts() throws Exception
+    {
+
+        // The scripts only handle task events, and count each time their document event handlers are looked up
+        final List<DocumentWorkerScript> scripts = new ArrayList<>();
+        for (int i = 0; i < SCRIPT_COUNT; i++) {
+            final DocumentWorkerScript script = new DocumentWorkerScript();
+            script.name = "script" + i + ".js";
+            script.script = "var lookups = Java.type('" + ScriptEventDispatchTest.class.getName() + "').HANDLER_LOOKUPS;"
+                + "['onBeforeProcessDocument', 'onProcessDocument', 'onAfterProcessDocument'].forEach(function (name) {"
+                + "  Object.defineProperty(globalThis, name, { get: function () { lookups.incrementAndGet(); } });"
+                + "});"
+                + "var count = 0; function onProcessTask() { count++; }";
+            script.engine = "GRAAL_JS";
+            scripts.add(script);
+        }
+
+        taskScripts = scripts;
+        processTask();
+
+        // Each handler is only looked up once, when the script is loaded, as the scripts do not assign any event handlers
+        assertEquals(SCRIPT_COUNT * 3, HANDLER_LOOKUPS.get());
+    }
+
+    @Test
+    public void testHandlerDefinedByAnotherHandlerIsCalled() throws Exception
+    {
+        final DocumentWorkerScript script = new DocumentWorkerScript();
+        script.name = "lateHandler.js";
+        script.script = "function onProcessTask() {"
+            + "  onProcessDocument = function (e) { e.document.getField('SCRIPT_PROCESSED').add('true'); };"
+            + "}";
+        script.engine = "GRAAL_JS";
+
+        taskScripts = Collections.singletonList(script);
+        processTask();
+
+        final String serialisedResult = new String(WorkerTestFixture.CODEC.serialise(result.get()), StandardCharsets.UTF_8);
+        assertTrue(serialisedResult.contains("SCRIPT_PROCESSED"), serialisedResult);
+    }
+
+    @Test
+    public void testHandlerDefinedByDocumentHandlerIsCalled() throws Exception
+    {
+        final DocumentWorkerScript script = new DocumentWorkerScript();
+        script.name = "lateDocumentHandler.js";
+        script.script = "function onProcessDocument() {"
+            + "  onAfterProcessDocument = function (e) { e.document.getField('SCRIPT_PROCESSED').add('true'); };"
+            + "}";
+        script.engine = "GRAAL_JS";
+
+        taskScripts = Collections.singletonList(script);
+        processTask();
+
+        final String serialisedResult = new String(WorkerTestFixture.CODEC.serialise(result.get()), StandardCharsets.UTF_8);
+        assertTrue(serialisedResult.contains("SCRIPT_PROCESSED"), serialisedResult);
+    }
+
+    @Test
+    public void testDeclaredHandlerReplacedByAnotherHandlerIsCalledAfterRefresh() throws Exception
+    {
+        final DocumentWorkerScript script = new DocumentWorkerScript();
+        script.name = "replacedHandler.js";
+        script.script = "function onProcessDocument(e) {}"
+            + "function onProcessTask() {"
+            + "  onProcessDocument = function (e) { e.document.getField('SCRIPT_PROCESSED').add('true'); };"
+            + "  thisScript.refreshHandlers();"
+            + "}";
+        script.engine = "GRAAL_JS";
+
+        taskScripts = Collections.singletonList(script);
+        processTask();
+
+        final String serialisedResult = new String(WorkerTestFixture.CODEC.serialise(result.get()), StandardCharsets.UTF_8);
+        assertTrue(serialisedResult.contains("SCRIPT_PROCESSED"), serialisedResult);
+    }
+
+    private void processTask() throws Exception
+    {
+        new DocumentMessageProcessor(application, new WorkerTestFixture.TestWorker(), workerTaskData).doWork();
+    }
+
+    private static DocumentWorkerDocumentTask createDocumentTask(final List<DocumentWorkerScript> scripts)
+    {
+        final DocumentWorkerDocumentTask task = new DocumentWorkerDocumentTask();
+        task.document = WorkerTestFixture.createDocument("root", 2);
+        task.scripts = scripts;
+        return task;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.google.common.cache.CacheStats;
+import com.hpe.caf.api.ConfigurationSource;
+import com.hpe.caf.api.worker.DataStore;
+import com.hpe.caf.api.worker.WorkerTaskData;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.config.ScriptCachingConfiguration;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.model.Script;
+import com.hpe.caf.worker.document.model.ScriptEngineType;
+import com.hpe.caf.worker.document.scripting.JavaScriptManager;
+import com.hpe.caf.worker.document.tasks.DocumentTask;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ScriptWarmUpTest
+{
+    private static final String SCRIPT_NAME = "warm-up.js";
+    private static final String SCRIPT = "function onProcessTask() {}";
+
+    @Test
+    public void testTaskUsesWarmedUpScript() throws Exception
+    {
+        final DocumentWorkerScript warmUpScript = new DocumentWorkerScript();
+        warmUpScript.name = SCRIPT_NAME;
+        warmUpScript.script = SCRIPT;
+        warmUpScript.engine = ScriptEngineType.GRAAL_JS.name();
+
+        final ScriptCachingConfiguration scriptCaching = new ScriptCachingConfiguration();
+        scriptCaching.setWarmUpScripts(Collections.singletonList(warmUpScript));
+        final DocumentWorkerConfiguration configuration = WorkerTestFixture.createConfiguration();
+        configuration.setScriptCaching(scriptCaching);
+
+        final ConfigurationSource configSource = Mockito.mock(ConfigurationSource.class);
+        Mockito.when(configSource.getConfiguration(DocumentWorkerConfiguration.class)).thenReturn(configuration);
+
+        final ApplicationImpl application
+            = new ApplicationImpl(configSource, Mockito.mock(DataStore.class), WorkerTestFixture.CODEC);
+        try (final JavaScriptManager javaScriptManager = application.getJavaScriptManager()) {
+            application.warmUpScripts();
+            assertStats(javaScriptManager.getStaticScriptCacheStats(), 0, 1);
+
+            // A task which uses the same script is given the script that was compiled during the warm-up
+            final DocumentWorkerDocumentTask documentTask = new DocumentWorkerDocumentTask();
+            documentTask.document = WorkerTestFixture.createDocument("doc", 0);
+            final DocumentTask task = DocumentTask.create(application, Mockito.mock(WorkerTaskData.class), documentTask);
+            final Script script = task.getScripts().add();
+            script.setName(SCRIPT_NAME);
+            script.setScriptInline(SCRIPT, ScriptEngineType.GRAAL_JS);
+            script.load();
+            script.unload();
+
+            assertStats(javaScriptManager.getStaticScriptCacheStats(), 1, 1);
+        }
+    }
+
+    private static void assertStats(final CacheStats stats, final long hitCount, final long missCount)
+    {
+        assertEquals(hitCount, stats.hitCount());
+        assertEquals(missCount, stats.missCount());
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.worker.document.config.ScriptCacheConfiguration;
+import com.hpe.caf.worker.document.model.ScriptEngineType;
+import com.hpe.caf.worker.document.scripting.ObjectCodeProvider;
+import com.hpe.caf.worker.document.scripting.ScriptCache;
+import com.hpe.caf.worker.document.scripting.specs.UrlScriptSpec;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.Mockito.mock;
+
+public class UrlScriptRevalidationTest
+{
+    private HttpServer server;
+    private volatile String script;
+    private volatile String entityTag;
+    private AtomicInteger fullResponses;
+    private AtomicInteger notModifiedResponses;
+
+    @BeforeEach
+    public void startServer() throws IOException
+    {
+        script = "var version = 1;";
+        entityTag = "\"1\"";
+        fullResponses = new AtomicInteger();
+        notModifiedResponses = new AtomicInteger();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/script.js", this::handleScriptRequest);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void testUnchangedHttpScriptIsNotDownloadedAgain() throws Exception
+    {
+        final UrlScriptSpec scriptSpec = new UrlScriptSpec(getScriptUrl(), ScriptEngineType.GRAAL_JS);
+
+        assertEquals("var version = 1;", scriptSpec.getScript());
+        assertNull(scriptSpec.getScriptIfChanged());
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+
+        script = "var version = 2;";
+        entityTag = "\"2\"";
+        assertEquals("var version = 2;", scriptSpec.getScriptIfChanged());
+        assertEquals(2, fullResponses.get());
+    }
+
+    @Test
+    public void testUnchangedFileScriptIsDetectedByContent(@TempDir final Path tempDir) throws Exception
+    {
+        final Path scriptFile = tempDir.resolve("script.js");
+        Files.writeString(scriptFile, "var version = 1;");
+        final UrlScriptSpec scriptSpec = new UrlScriptSpec(scriptFile.toUri().toURL(), ScriptEngineType.GRAAL_JS);
+
+        assertEquals("var version = 1;", scriptSpec.getScript());
+        assertNull(scriptSpec.getScriptIfChanged());
+
+        Files.writeString(scriptFile, "var version = 2;");
+        assertEquals("var version = 2;", scriptSpec.getScriptIfChanged());
+    }
+
+    @Test
+    public void testStaleScriptIsServedWhileRevalidating() throws Exception
+    {
+        final AtomicInteger compilations = new AtomicInteger();
+        final ObjectCodeProvider compiler = (name, scriptSpec) -> {
+            try {
+                scriptSpec.getScript();
+            } catch (final IOException ex) {
+                throw new ScriptException(ex);
+            }
+            compilations.incrementAndGet();
+            return mock(CompiledScript.class);
+        };
+
+        final ScriptCacheConfiguration cacheConfig = new ScriptCacheConfiguration();
+        cacheConfig.setRefreshAfterWrite(1L);
+
+        final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+        try {
+            final ScriptCache cache = new ScriptCache(cacheConfig, new ScriptCacheConfiguration(), compiler, refreshExecutor);
+            final CompiledScript original = getObjectCode(cache);
+
+            // An unchanged script keeps the same compiled script after revalidation
+            Thread.sleep(1100);
+            final CountDownLatch paused = pauseRefresh(refreshExecutor);
+            assertSame(original, getObjectCode(cache));
+            paused.countDown();
+            waitForRefresh(refreshExecutor);
+            assertSame(original, getObjectCode(cache));
+            assertEquals(1, notModifiedResponses.get());
+            assertEquals(1, compilations.get());
+
+            // A changed script is served stale and then replaced once it has been recompiled
+            script = "var version = 2;";
+            entityTag = "\"2\"";
+            Thread.sleep(1100);
+            final CountDownLatch pausedAgain = pauseRefresh(refreshExecutor);
+            assertSame(original, getObjectCode(cache));
+            pausedAgain.countDown();
+            waitForRefresh(refreshExecutor);
+            assertNotSame(original, getObjectCode(cache));
+            assertEquals(2, compilations.get());
+        } finally {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    private CompiledScript getObjectCode(final ScriptCache cache) throws Exception
+    {
+        return cache.getObjectCode("script.js", new UrlScriptSpec(getScriptUrl(), ScriptEngineType.GRAAL_JS));
+    }
+
+    private static CountDownLatch pauseRefresh(final ExecutorService refreshExecutor)
+    {
+        // Hold the refresh back so that the stale value is always the one served
+        final CountDownLatch paused = new CountDownLatch(1);
+        refreshExecutor.execute(() -> {
+            try {
+                paused.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return paused;
+    }
+
+    private static void waitForRefresh(final ExecutorService refreshExecutor) throws InterruptedException
+    {
+        final CountDownLatch refreshed = new CountDownLatch(1);
+        refreshExecutor.execute(refreshed::countDown);
+        assertTrue(refreshed.await(1, TimeUnit.MINUTES));
+    }
+
+    private URL getScriptUrl() throws IOException
+    {
+        return new URL("http://localhost:" + server.getAddress().getPort() + "/script.js");
+    }
+
+    private void handleScriptRequest(final HttpExchange exchange) throws IOException
+    {
+        final String currentEntityTag = entityTag;
+        exchange.getResponseHeaders().set("ETag", currentEntityTag);
+
+        if (currentEntityTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        final byte[] body = script.getBytes(StandardCharsets.UTF_8);
+        fullResponses.incrementAndGet();
+        exchange.sendResponseHeaders(200, body.length);
+        try (final OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016-2024 Open Text.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hpe.caf.worker.document;
+
+import com.hpe.caf.api.worker.DataStore;
+import com.hpe.caf.codec.JsonCodec;
+import com.hpe.caf.worker.document.codec.CborCodec;
+import com.hpe.caf.worker.document.config.DocumentWorkerConfiguration;
+import com.hpe.caf.worker.document.extensibility.BulkDocumentWorker;
+import com.hpe.caf.worker.document.extensibility.ThreadSafeDocumentWorker;
+import com.hpe.caf.worker.document.impl.ApplicationImpl;
+import com.hpe.caf.worker.document.impl.BatchSizeControllerImpl;
+import com.hpe.caf.worker.document.impl.FieldValueSpiller;
+import com.hpe.caf.worker.document.impl.InputMessageProcessorImpl;
+import com.hpe.caf.worker.document.model.Document;
+import com.hpe.caf.worker.document.model.Documents;
+import com.hpe.caf.worker.document.model.HealthMonitor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mockito;
+
+/**
+ * Creates the application objects, documents and workers that the worker-level tests share.
+ */
+final class WorkerTestFixture
+{
+    public static final JsonCodec CODEC = new JsonCodec();
+    public static final CborCodec CBOR_CODEC = new CborCodec();
+
+    private WorkerTestFixture()
+    {
+    }
+
+    public static DocumentWorkerConfiguration createConfiguration()
+    {
+        final DocumentWorkerConfiguration configuration = new DocumentWorkerConfiguration();
+        configuration.setWorkerName("test-worker");
+        configuration.setWorkerVersion("1.0");
+        configuration.setOutputQueue("output");
+        configuration.setFailureQueue("failures");
+        return configuration;
+    }
+
+    public static ApplicationImpl createApplication(final DocumentWorkerConfiguration configuration)
+    {
+        return createApplication(configuration, Mockito.mock(DataStore.class));
+    }
+
+    /**
+     * Creates a mock application with the specified configuration and data store.
+     * <p>
+     * The input message processor is a mock, so that tests can choose the tasks that it creates, and results are serialised with the test codecs.
+     */
+    public static ApplicationImpl createApplication(final DocumentWorkerConfiguration configuration, final DataStore dataStore)
+    {
+        final ApplicationImpl application = Mockito.mock(ApplicationImpl.class);
+
+        Mockito.when(application.getConfiguration()).thenReturn(configuration);
+        Mockito.when(application.getDataStore()).thenReturn(dataStore);
+        Mockito.when(application.getCodec()).thenReturn(CODEC);
+        Mockito.when(application.getCborCodec()).thenReturn(CBOR_CODEC);
+        Mockito.when(application.getInputMessageProcessor()).thenReturn(Mockito.mock(InputMessageProcessorImpl.class));
+        Mockito.when(application.getBatchSizeController()).thenReturn(new BatchSizeControllerImpl(application, configuration));
+        Mockito.when(application.getFieldValueSpiller()).thenReturn(new FieldValueSpiller(dataStore, null));
+        Mockito.when(application.serialiseResult(any())).thenAnswer(invocation -> CODEC.serialise(invocation.getArgument(0)));
+        Mockito.when(application.serialiseCborResult(any())).thenAnswer(invocation -> CBOR_CODEC.serialise(invocation.getArgument(0)));
+        return application;
+    }
+
+    /**
+     * Creates a document with a NAME field, and with 20 subdocuments at each level down to the specified depth.
+     */
+    public static DocumentWorkerDocument createDocument(final String reference, final int depth)
+    {
+        final DocumentWorkerFieldValue value = new DocumentWorkerFieldValue();
+        value.data = reference;
+
+        final DocumentWorkerDocument document = new DocumentWorkerDocument();
+        document.reference = reference;
+        document.fields = new HashMap<>();
+        document.fields.put("NAME", Collections.singletonList(value));
+
+        if (depth > 0) {
+            document.subdocuments = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                document.subdocuments.add(createDocument(reference + "/" + i, depth - 1));
+            }
+        }
+
+        return document;
+    }
+
+    /**
+     * A worker which adds a PROCESSED field containing the document reference to each document, and records the references of the
+     * documents in each batch that it is given.
+     */
+    public static class TestWorker implements ThreadSafeDocumentWorker, BulkDocumentWorker
+    {
+        public final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void checkHealth(final HealthMonitor healthMonitor)
+        {
+        }
+
+        @Override
+        public void processDocument(final Document document)
+        {
+            document.getField("PROCESSED").add(document.getReference());
+        }
+
+        @Override
+        public void processDocuments(final Documents documents)
+        {
+            final List<String> batch = new ArrayList<>();
+            for (final Document document : documents) {
+                batch.add(document.getReference());
+                processDocument(document);
+            }
+            batches.add(batch);
+        }
+
+        public int getDocumentCount()
+        {
+            synchronized (batches) {
+                return batches.stream().mapToInt(List::size).sum();
+            }
+        }
+    }
+}